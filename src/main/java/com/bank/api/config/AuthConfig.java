@@ -1,5 +1,8 @@
 package com.bank.api.config;
 
+import com.bank.api.util.BoundedPasswordEncoder;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -20,13 +23,19 @@ public class AuthConfig {
     /**
      * Создает бин для шифрования паролей с использованием BCrypt.
      * <p>
-     * Используется в сервисах регистрации и аутентификации пользователей.
+     * Используется в сервисах регистрации и аутентификации пользователей. Хеширование и проверка
+     * выполняются в ограниченном пуле потоков (см. {@link BoundedPasswordEncoder}).
      *
+     * @param meterRegistry реестр метрик
+     * @param threads       число потоков хеширования
+     * @param queueCapacity ёмкость очереди хеширования
      * @return PasswordEncoder экземпляр для хэширования паролей
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry,
+                                           @Value("${app.auth.hashing.threads:4}") int threads,
+                                           @Value("${app.auth.hashing.queue-capacity:64}") int queueCapacity) {
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), threads, queueCapacity, meterRegistry);
     }
 
     /**
@@ -0,0 +1,34 @@
+package com.bank.api.config;
+
+import com.bank.api.service.IdempotencyService;
+import com.bank.api.util.IdempotencyFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Конфигурация поддержки ключей идемпотентности.
+ * <p>
+ * Регистрирует {@link IdempotencyFilter} только для эндпоинтов, выполняющих переводы.
+ * Фильтр регистрируется после цепочки Spring Security.
+ */
+@Configuration
+public class IdempotencyConfig {
+
+    /**
+     * Регистрирует фильтр ключей идемпотентности.
+     *
+     * @param idempotencyService сервис хранения результатов запросов
+     * @param objectMapper       JSON-маппер для ответов об ошибках
+     * @return регистрация фильтра
+     */
+    @Bean
+    public FilterRegistrationBean<IdempotencyFilter> idempotencyFilter(IdempotencyService idempotencyService,
+                                                                       ObjectMapper objectMapper) {
+        FilterRegistrationBean<IdempotencyFilter> registration =
+                new FilterRegistrationBean<>(new IdempotencyFilter(idempotencyService, objectMapper));
+        registration.addUrlPatterns("/api/user/card/transfer", "/api/user/card/transfer/batch");
+        return registration;
+    }
+}
@@ -0,0 +1,14 @@
+package com.bank.api.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Включает выполнение фоновых задач по расписанию ({@code @Scheduled}).
+ * <p>
+ * Используется, например, для удаления устаревших ключей идемпотентности.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,6 +1,7 @@
 package com.bank.api.config;
 
 import com.bank.api.util.JwtFilter;
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -19,6 +20,7 @@ import org.springframework.web.cors.CorsConfigurationSource;
  *     <li>Отключает CSRF для stateless API</li>
  *     <li>Включает проверку JWT токенов</li>
  *     <li>Определяет правила доступа к эндпоинтам</li>
+ *     <li>Пропускает асинхронные диспетчеризации (потоки SSE): запрос уже прошёл проверку при открытии</li>
  *     <li>Включает поддержку CORS</li>
  * </ul>
  */
@@ -53,6 +55,7 @@ public class SecurityConfig {
                 .csrf(AbstractHttpConfigurer::disable)
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/api/auth/register", "/api/auth/login", "/test").permitAll()
                         .requestMatchers("/api/admin/**").hasRole("ADMIN")
                         .requestMatchers("/api/user/**").hasRole("USER")
@@ -3,17 +3,20 @@ package com.bank.api.controller;
 import com.bank.api.dto.AuthRequestDto;
 import com.bank.api.dto.RegisterRequestDto;
 import com.bank.api.service.AuthServiceInterface;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 /**
  * Контроллер для работы с аутентификацией и регистрацией пользователей.
  * <p>
- * Предоставляет эндпоинты для регистрации и входа в систему.
+ * Предоставляет эндпоинты для регистрации, входа и выхода из системы.
  */
 @RestController
 @RequestMapping("/api/auth")
@@ -36,11 +39,26 @@ public class AuthController {
     /**
      * Авторизация пользователя (логин).
      *
-     * @param request DTO с логином и паролем
+     * @param request        DTO с логином и паролем
+     * @param servletRequest HTTP запрос, из которого берётся адрес клиента
      * @return токен авторизации
      */
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody AuthRequestDto request) {
-        return ResponseEntity.ok(authService.login(request));
+    public ResponseEntity<?> login(@RequestBody AuthRequestDto request, HttpServletRequest servletRequest) {
+        return ResponseEntity.ok(authService.login(request, servletRequest.getRemoteAddr()));
+    }
+
+    /**
+     * Выход из системы: токен из заголовка Authorization отзывается.
+     *
+     * @param authHeader заголовок Authorization с токеном
+     * @return пустой ответ 204
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader) {
+        if (authHeader.startsWith("Bearer ")) {
+            authService.logout(authHeader.substring(7));
+        }
+        return ResponseEntity.noContent().build();
     }
 }
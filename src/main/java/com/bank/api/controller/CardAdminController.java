@@ -1,17 +1,32 @@
 package com.bank.api.controller;
 
 import com.bank.api.dto.CardDto;
+import com.bank.api.dto.CardIssueProgressDto;
+import com.bank.api.dto.CardIssueRequestDto;
+import com.bank.api.dto.CardSliceDto;
+import com.bank.api.entity.CardStatus;
+import com.bank.api.exception.BusinessException;
+import com.bank.api.repository.CardSearchCriteria;
 import com.bank.api.service.CardService;
 import com.bank.api.service.CardServiceInterface;
+import com.bank.api.util.NdjsonStreams;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 
 /**
  * REST-контроллер для управления банковскими картами администраторами.
  * <p>
- * Предоставляет эндпоинты для получения списка карт, создания карты для пользователя,
- * блокировки, активации и удаления карты.
+ * Предоставляет эндпоинты для получения, поиска и потоковой выгрузки списка карт, создания карты для пользователя
+ * и массового выпуска карт,
+ * блокировки, активации, удаления карты и управления режимом горячей карты.
  * <p>
  * Все операции выполняются с правами администратора.
  * Базовый URL: /api/admin
@@ -21,9 +36,11 @@ import java.util.List;
 public class CardAdminController {
 
     private final CardServiceInterface cardService;
+    private final ObjectMapper objectMapper;
 
-    public CardAdminController(CardServiceInterface cardService) {
+    public CardAdminController(CardServiceInterface cardService, ObjectMapper objectMapper) {
         this.cardService = cardService;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -36,6 +53,51 @@ public class CardAdminController {
         return cardService.getAllCards();
     }
 
+    /**
+     * Выгружает все карты в формате NDJSON (по карте на строку).
+     * <p>
+     * Карты пишутся в ответ по мере чтения из базы, поэтому подходит для любого числа карт.
+     *
+     * @return поток DTO карт
+     */
+    @GetMapping(value = "/cards/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportCards() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(NdjsonStreams.body(objectMapper, cardService::exportCards));
+    }
+
+    /**
+     * Ищет карты по условиям. Все условия необязательны, границы диапазонов включаются.
+     * <p>
+     * Карты возвращаются порциями в порядке ID; для следующей порции передаётся {@code nextCursor}
+     * из ответа вместе с теми же условиями.
+     *
+     * @param status      статус карты (ACTIVE, BLOCKED, EXPIRED)
+     * @param owner       начало логина владельца
+     * @param expiresFrom нижняя граница срока действия (yyyy-MM-dd)
+     * @param expiresTo   верхняя граница срока действия (yyyy-MM-dd)
+     * @param balanceFrom нижняя граница баланса
+     * @param balanceTo   верхняя граница баланса
+     * @param cursor      курсор из предыдущего ответа
+     * @param size        размер порции (по умолчанию 20, не более 100)
+     * @return карты порции и курсор следующей порции
+     */
+    @GetMapping("/cards/search")
+    public CardSliceDto searchCards(
+            @RequestParam(required = false) CardStatus status,
+            @RequestParam(required = false) String owner,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate expiresFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate expiresTo,
+            @RequestParam(required = false) BigDecimal balanceFrom,
+            @RequestParam(required = false) BigDecimal balanceTo,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        CardSearchCriteria criteria = new CardSearchCriteria(status, owner, expiresFrom, expiresTo, balanceFrom, balanceTo);
+        return cardService.searchCards(criteria, cursor, size);
+    }
+
     /**
      * Создает карту для указанного пользователя.
      *
@@ -48,6 +110,27 @@ public class CardAdminController {
         return cardService.createCardForUser(username, cardDto);
     }
 
+    /**
+     * Выпускает карты массово.
+     * <p>
+     * Ответ — поток NDJSON: после каждой выпущенной порции отправляется строка с ходом выпуска
+     * и ошибками карт порции, последняя строка содержит {@code processed == total}.
+     *
+     * @param requests владельцы и параметры карт (логин, срок действия, баланс)
+     * @return поток хода выпуска
+     * @throws BusinessException если список карт пуст
+     */
+    @PostMapping(value = "/cards/bulk", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> issueCards(@RequestBody List<CardIssueRequestDto> requests) {
+        if (requests.isEmpty()) {
+            throw new BusinessException("Card issue list is empty");
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(NdjsonStreams.<CardIssueProgressDto>body(objectMapper,
+                        progress -> cardService.issueCards(requests, progress)));
+    }
+
 
     /**
      * Блокирует карту по ID.
@@ -69,6 +152,21 @@ public class CardAdminController {
         cardService.activateCard(cardId);
     }
 
+    /**
+     * Включает, изменяет или выключает режим горячей карты.
+     * <p>
+     * Баланс горячей карты разбивается на несколько слотов, чтобы частые зачисления
+     * не ждали блокировки одной строки. Изменение выполняется без остановки переводов.
+     *
+     * @param cardId ID карты
+     * @param slots  число слотов баланса (0 или 1 — обычная карта)
+     * @return DTO карты
+     */
+    @PatchMapping("/card/{cardId}/balance-slots")
+    public CardDto setBalanceSlots(@PathVariable Long cardId, @RequestParam int slots) {
+        return cardService.setBalanceSlots(cardId, slots);
+    }
+
     /**
      * Удаляет карту по ID.
      *
@@ -1,24 +1,53 @@
 package com.bank.api.controller;
 
 import com.bank.api.dto.CardDto;
+import com.bank.api.dto.CardEventDto;
+import com.bank.api.dto.CardSliceDto;
+import com.bank.api.dto.TransferBatchResultDto;
 import com.bank.api.dto.TransferRequestDto;
+import com.bank.api.dto.TransferStatusDto;
+import com.bank.api.service.AuthenticatedUser;
+import com.bank.api.service.CardChangeTracker;
+import com.bank.api.service.CardEventHub;
 import com.bank.api.service.CardServiceInterface;
+import com.bank.api.service.TransferPipeline;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
 
 /**
  * Контроллер для пользователей для работы со своими банковскими картами.
  * <p>
  * Позволяет пользователю:
  * <ul>
- *     <li>Просматривать свои карты с фильтром по статусу и пагинацией</li>
+ *     <li>Просматривать свои карты с фильтром по статусу и пагинацией (по номеру страницы или по курсору)</li>
  *     <li>Запрашивать блокировку карты</li>
- *     <li>Выполнять переводы между своими картами</li>
- *     <li>Получать текущий баланс карты</li>
+ *     <li>Выполнять переводы между своими картами, в том числе асинхронно и пакетом</li>
+ *     <li>Получать текущий баланс карты или сразу нескольких карт</li>
+ *     <li>Получать изменения баланса и статуса карт потоком Server-Sent Events</li>
  * </ul>
+ * Запросы на перевод могут содержать заголовок {@code Idempotency-Key}: повтор запроса с тем же
+ * ключом возвращает сохранённый ответ и не выполняет перевод повторно.
+ * <p>
+ * Ответы со списками карт и балансами содержат ETag, который меняется при любом изменении карт
+ * пользователя. Запрос с {@code If-None-Match} получает 304 без обращения к базе, если карты
+ * с тех пор не менялись.
+ * <p>
+ * Пользователь определяется по ID из JWT ({@link AuthenticatedUser}), без обращения к таблице пользователей.
+ * <p>
  * Базовый URL: /api/user/card
  */
 @RestController
@@ -26,9 +55,19 @@ import org.springframework.web.bind.annotation.*;
 public class CardUserController {
 
     private final CardServiceInterface cardService;
+    private final TransferPipeline transferPipeline;
+    private final CardEventHub cardEventHub;
+    private final CardChangeTracker changeTracker;
+
+    /** Ответ можно хранить только в кэше клиента и только с проверкой ETag при каждом использовании */
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
 
-    public CardUserController(CardServiceInterface cardService) {
+    public CardUserController(CardServiceInterface cardService, TransferPipeline transferPipeline,
+                              CardEventHub cardEventHub, CardChangeTracker changeTracker) {
         this.cardService = cardService;
+        this.transferPipeline = transferPipeline;
+        this.cardEventHub = cardEventHub;
+        this.changeTracker = changeTracker;
     }
 
     /**
@@ -38,16 +77,45 @@ public class CardUserController {
      * @param status      (необязательный) фильтр по статусу карты (ACTIVE, BLOCKED, EXPIRED)
      * @param page        номер страницы (по умолчанию 0)
      * @param size        размер страницы (по умолчанию 10)
-     * @return страница DTO карт пользователя
+     * @param request     текущий запрос (для проверки {@code If-None-Match})
+     * @return страница DTO карт пользователя или 304, если карты не менялись
      */
     @GetMapping
-    public Page<CardDto> getUserCards(
-            @AuthenticationPrincipal UserDetails userDetails,
+    public ResponseEntity<Page<CardDto>> getUserCards(
+            @AuthenticationPrincipal AuthenticatedUser userDetails,
             @RequestParam(required = false) String status,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size
+            @RequestParam(defaultValue = "10") int size,
+            WebRequest request
+    ) {
+        return conditional(userDetails, request,
+                () -> cardService.getUserCards(userDetails.getId(), status, PageRequest.of(page, size)));
+    }
+
+    /**
+     * Возвращает порцию карт пользователя по курсору.
+     * <p>
+     * В отличие от {@link #getUserCards}, не выполняет подсчёт карт и не пропускает строки через
+     * {@code OFFSET}: время ответа не зависит от глубины. Для следующей порции передаётся
+     * {@code nextCursor} из ответа вместе с тем же фильтром по статусу.
+     *
+     * @param userDetails объект аутентифицированного пользователя
+     * @param status      (необязательный) фильтр по статусу карты (ACTIVE, BLOCKED, EXPIRED)
+     * @param cursor      (необязательный) курсор из предыдущего ответа
+     * @param size        размер порции (по умолчанию 20, не более 100)
+     * @param request     текущий запрос (для проверки {@code If-None-Match})
+     * @return карты порции и курсор следующей порции или 304, если карты не менялись
+     */
+    @GetMapping("/slice")
+    public ResponseEntity<CardSliceDto> getUserCardSlice(
+            @AuthenticationPrincipal AuthenticatedUser userDetails,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            WebRequest request
     ) {
-        return cardService.getUserCards(userDetails.getUsername(), status, PageRequest.of(page, size));
+        return conditional(userDetails, request,
+                () -> cardService.getUserCardSlice(userDetails.getId(), status, cursor, size));
     }
 
     /**
@@ -57,21 +125,70 @@ public class CardUserController {
      * @param cardId      ID карты для блокировки
      */
     @PatchMapping("/{cardId}/block")
-    public void requestBlockCard(@AuthenticationPrincipal UserDetails userDetails,
+    public void requestBlockCard(@AuthenticationPrincipal AuthenticatedUser userDetails,
                                  @PathVariable Long cardId) {
-        cardService.requestBlockCard(userDetails.getUsername(), cardId);
+        cardService.requestBlockCard(userDetails.getId(), cardId);
     }
 
     /**
      * Выполняет перевод между картами пользователя.
+     * <p>
+     * Если включён конвейер групповой фиксации, перевод ставится в очередь. По умолчанию запрос
+     * ждёт фиксации своей пачки; с {@code async=true} сразу возвращается 202 Accepted со ссылкой
+     * на статус заявки. При заполненной очереди возвращается 429.
      *
      * @param userDetails     объект аутентифицированного пользователя
      * @param transferRequest DTO с данными перевода (fromCardId, toCardId, amount)
+     * @param async           не ждать выполнения перевода (только при включённом конвейере)
+     * @return 200 после выполнения перевода или 202 со статусом принятой заявки
      */
     @PostMapping("/transfer")
-    public void transferBetweenCards(@AuthenticationPrincipal UserDetails userDetails,
-                                     @RequestBody TransferRequestDto transferRequest) {
-        cardService.transferBetweenCards(userDetails.getUsername(), transferRequest);
+    public ResponseEntity<TransferStatusDto> transferBetweenCards(@AuthenticationPrincipal AuthenticatedUser userDetails,
+                                                                  @RequestBody TransferRequestDto transferRequest,
+                                                                  @RequestParam(defaultValue = "false") boolean async) {
+        if (!transferPipeline.isEnabled()) {
+            cardService.transferBetweenCards(userDetails.getId(), transferRequest);
+            return ResponseEntity.ok().build();
+        }
+        if (async) {
+            TransferPipeline.Ticket ticket = transferPipeline.submit(userDetails.getId(), transferRequest);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/user/card/transfer/" + ticket.id()))
+                    .body(new TransferStatusDto(ticket.id(), TransferStatusDto.State.PENDING, null));
+        }
+        transferPipeline.submitAndWait(userDetails.getId(), transferRequest);
+        return ResponseEntity.ok().build();
+    }
+
+    /**
+     * Атомарно выполняет пакет переводов между картами пользователя.
+     * <p>
+     * Все плечи выполняются в одной транзакции: либо все, либо ни одного.
+     *
+     * @param userDetails объект аутентифицированного пользователя
+     * @param legs        список переводов (fromCardId, toCardId, amount)
+     * @return 200 с результатами плеч, если пакет выполнен, иначе 400 с причинами отказа
+     */
+    @PostMapping("/transfer/batch")
+    public ResponseEntity<TransferBatchResultDto> transferBatch(@AuthenticationPrincipal AuthenticatedUser userDetails,
+                                                                @RequestBody List<TransferRequestDto> legs) {
+        TransferBatchResultDto result = cardService.transferBatch(userDetails.getId(), legs);
+        return result.isCommitted() ? ResponseEntity.ok(result) : ResponseEntity.badRequest().body(result);
+    }
+
+    /**
+     * Возвращает статус асинхронного перевода.
+     *
+     * @param userDetails объект аутентифицированного пользователя
+     * @param requestId   идентификатор заявки, полученный при постановке перевода в очередь
+     * @return статус заявки или 404, если заявка не найдена или устарела
+     */
+    @GetMapping("/transfer/{requestId}")
+    public ResponseEntity<TransferStatusDto> getTransferStatus(@AuthenticationPrincipal AuthenticatedUser userDetails,
+                                                               @PathVariable UUID requestId) {
+        return transferPipeline.getStatus(userDetails.getId(), requestId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
     }
 
     /**
@@ -79,11 +196,57 @@ public class CardUserController {
      *
      * @param userDetails объект аутентифицированного пользователя
      * @param cardId      ID карты
-     * @return баланс карты в формате Double
+     * @param request     текущий запрос (для проверки {@code If-None-Match})
+     * @return баланс карты в формате Double или 304, если карты не менялись
      */
     @GetMapping("/{cardId}/balance")
-    public Double getCardBalance(@AuthenticationPrincipal UserDetails userDetails,
-                                 @PathVariable Long cardId) {
-        return cardService.getCardBalance(userDetails.getUsername(), cardId);
+    public ResponseEntity<Double> getCardBalance(@AuthenticationPrincipal AuthenticatedUser userDetails,
+                                                 @PathVariable Long cardId,
+                                                 WebRequest request) {
+        return conditional(userDetails, request,
+                () -> cardService.getCardBalance(userDetails.getId(), cardId));
+    }
+
+    /**
+     * Возвращает текущие балансы нескольких карт пользователя одним запросом.
+     *
+     * @param userDetails объект аутентифицированного пользователя
+     * @param ids         ID карт, например {@code ?ids=1,2,3}
+     * @param request     текущий запрос (для проверки {@code If-None-Match})
+     * @return балансы карт по ID или 304, если карты не менялись
+     */
+    @GetMapping("/balances")
+    public ResponseEntity<Map<Long, Double>> getCardBalances(@AuthenticationPrincipal AuthenticatedUser userDetails,
+                                                             @RequestParam List<Long> ids,
+                                                             WebRequest request) {
+        return conditional(userDetails, request,
+                () -> cardService.getCardBalances(userDetails.getId(), ids));
+    }
+
+    /**
+     * Открывает поток Server-Sent Events с изменениями карт пользователя.
+     * <p>
+     * После фиксации перевода приходит событие {@code balance}, после блокировки или активации
+     * карты — событие {@code status}; данные события — {@link CardEventDto}. Клиент, не успевающий
+     * читать поток, отключается и должен переподключиться.
+     *
+     * @param userDetails объект аутентифицированного пользователя
+     * @return поток событий
+     */
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvents(@AuthenticationPrincipal AuthenticatedUser userDetails) {
+        return cardEventHub.subscribe(userDetails.getId());
+    }
+
+    /**
+     * Отвечает 304, если ETag карт пользователя совпадает с {@code If-None-Match}; иначе строит ответ.
+     * ETag берётся до чтения данных, поэтому изменение во время чтения не может остаться незамеченным.
+     */
+    private <T> ResponseEntity<T> conditional(AuthenticatedUser userDetails, WebRequest request, Supplier<T> body) {
+        String eTag = changeTracker.getETag(userDetails.getId());
+        if (request.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(REVALIDATE).build();
+        }
+        return ResponseEntity.ok().eTag(eTag).cacheControl(REVALIDATE).body(body.get());
     }
 }
@@ -2,10 +2,20 @@ package com.bank.api.controller;
 
 import com.bank.api.dto.UserCreateDto;
 import com.bank.api.dto.UserDto;
+import com.bank.api.dto.UserImportResultDto;
+import com.bank.api.service.UserImportService;
 import com.bank.api.service.UserServiceInterface;
+import com.bank.api.util.NdjsonStreams;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 /**
@@ -13,9 +23,9 @@ import java.util.List;
  * <p>
  * Позволяет администратору:
  * <ul>
- *     <li>Просматривать список всех пользователей</li>
+ *     <li>Просматривать список всех пользователей и выгружать его потоком</li>
  *     <li>Блокировать и активировать пользователей</li>
- *     <li>Создавать новых пользователей</li>
+ *     <li>Создавать новых пользователей, в том числе массово из CSV или NDJSON</li>
  *     <li>Удалять пользователей</li>
  * </ul>
  * Базовый URL: /api/admin
@@ -27,6 +37,12 @@ public class UserAdminController {
     @Autowired
     private UserServiceInterface userService;
 
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
      * Возвращает список всех пользователей.
      *
@@ -37,6 +53,20 @@ public class UserAdminController {
         return userService.getAllUsers();
     }
 
+    /**
+     * Выгружает всех пользователей в формате NDJSON (по пользователю на строку).
+     * <p>
+     * Пользователи пишутся в ответ по мере чтения из базы, поэтому подходит для любого их числа.
+     *
+     * @return поток DTO пользователей
+     */
+    @GetMapping(value = "/users/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(NdjsonStreams.body(objectMapper, userService::exportUsers));
+    }
+
     /**
      * Блокирует пользователя по ID.
      *
@@ -67,6 +97,27 @@ public class UserAdminController {
         userService.createUser(userCreateDto);
     }
 
+    /**
+     * Импортирует пользователей из тела запроса.
+     * <p>
+     * Формат определяется заголовком Content-Type: {@code text/csv} (строки
+     * {@code username,password,role}, заголовок необязателен) или {@code application/x-ndjson}
+     * (по объекту {@link UserCreateDto} на строку). Тело читается потоком.
+     *
+     * @param contentType тип тела запроса
+     * @param body        тело запроса
+     * @return число строк и созданных пользователей, ошибки по строкам
+     * @throws IOException ошибка чтения тела запроса
+     */
+    @PostMapping(value = "/users/import", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    public UserImportResultDto importUsers(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                           InputStream body) throws IOException {
+        UserImportService.Format format = MediaType.APPLICATION_NDJSON.isCompatibleWith(MediaType.parseMediaType(contentType))
+                ? UserImportService.Format.NDJSON
+                : UserImportService.Format.CSV;
+        return userImportService.importUsers(body, format);
+    }
+
 
     /**
      * Удаляет пользователя по ID.
@@ -69,7 +69,14 @@ public class CardDto {
         this.balance = balance;
     }
 
-    public static CardDto fromEntity(Card card) {
+    /**
+     * Создаёт DTO карты.
+     *
+     * @param card    карта
+     * @param balance полный баланс карты; у горячей карты он включает слоты
+     * @return DTO карты
+     */
+    public static CardDto fromEntity(Card card, BigDecimal balance) {
         String maskedNumber = "**** **** **** " + card.getNumber().substring(card.getNumber().length() - 4);
 
         return new CardDto(
@@ -77,7 +84,7 @@ public class CardDto {
                 maskedNumber,
                 card.getExpirationDate(),
                 card.getStatus(),
-                card.getBalance()
+                balance
         );
     }
 }
@@ -0,0 +1,18 @@
+package com.bank.api.dto;
+
+import com.bank.api.entity.CardStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO события потока {@code /api/user/card/events}: текущие баланс и статус изменившейся карты.
+ */
+@Data
+@AllArgsConstructor
+public class CardEventDto {
+    private Long cardId;
+    private BigDecimal balance;
+    private CardStatus status;
+}
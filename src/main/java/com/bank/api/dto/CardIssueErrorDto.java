@@ -0,0 +1,17 @@
+package com.bank.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * DTO с причиной, по которой карта массового выпуска не выпущена.
+ */
+@Data
+@AllArgsConstructor
+public class CardIssueErrorDto {
+
+    /** Номер карты в запросе, начиная с 0 */
+    private int index;
+    private String username;
+    private String message;
+}
@@ -0,0 +1,21 @@
+package com.bank.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * DTO с ходом массового выпуска карт.
+ * <p>
+ * Отправляется после фиксации каждой порции: сколько карт запрошено, обработано и выпущено
+ * к этому моменту, и ошибки карт этой порции. Выпуск завершён, когда {@code processed == total}.
+ */
+@Data
+@AllArgsConstructor
+public class CardIssueProgressDto {
+    private int total;
+    private int processed;
+    private long issued;
+    private List<CardIssueErrorDto> errors;
+}
@@ -0,0 +1,18 @@
+package com.bank.api.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * DTO для выпуска одной карты в массовом выпуске.
+ * <p>
+ * Содержит логин владельца, срок действия и начальный баланс карты.
+ */
+@Data
+public class CardIssueRequestDto {
+    private String username;
+    private LocalDate expirationDate;
+    private BigDecimal balance;
+}
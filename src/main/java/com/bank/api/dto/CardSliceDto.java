@@ -0,0 +1,18 @@
+package com.bank.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * DTO с порцией карт при постраничном чтении по курсору.
+ * <p>
+ * {@code nextCursor} передаётся в следующий запрос; null означает, что карт больше нет.
+ */
+@Data
+@AllArgsConstructor
+public class CardSliceDto {
+    private List<CardDto> items;
+    private String nextCursor;
+}
@@ -0,0 +1,19 @@
+package com.bank.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * DTO с результатом пакетного перевода.
+ * <p>
+ * Пакет выполняется целиком или не выполняется вовсе: {@code committed} показывает итог,
+ * а список плеч — результат и причину отказа для каждого перевода.
+ */
+@Data
+@AllArgsConstructor
+public class TransferBatchResultDto {
+    private boolean committed;
+    private List<TransferLegResultDto> legs;
+}
@@ -0,0 +1,31 @@
+package com.bank.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO с результатом одного перевода (плеча) в пакетном переводе.
+ */
+@Data
+@AllArgsConstructor
+public class TransferLegResultDto {
+
+    /** Состояние плеча */
+    public enum State {
+        /** Перевод выполнен */
+        APPLIED,
+        /** Перевод не прошёл проверки */
+        FAILED,
+        /** Перевод корректен, но не выполнен, так как отклонено другое плечо */
+        NOT_APPLIED
+    }
+
+    private int index;
+    private Long fromCardId;
+    private Long toCardId;
+    private BigDecimal amount;
+    private State status;
+    private String message;
+}
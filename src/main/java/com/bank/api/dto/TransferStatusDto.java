@@ -0,0 +1,25 @@
+package com.bank.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.UUID;
+
+/**
+ * DTO со статусом асинхронного перевода.
+ * <p>
+ * Содержит идентификатор заявки, её текущее состояние и причину отказа, если перевод не выполнен.
+ */
+@Data
+@AllArgsConstructor
+public class TransferStatusDto {
+
+    /** Состояние заявки на перевод */
+    public enum State {
+        PENDING, COMPLETED, FAILED
+    }
+
+    private UUID id;
+    private State status;
+    private String message;
+}
@@ -0,0 +1,17 @@
+package com.bank.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * DTO с ошибкой импорта одной строки.
+ */
+@Data
+@AllArgsConstructor
+public class UserImportErrorDto {
+
+    /** Номер строки во входных данных, начиная с 1 */
+    private long line;
+    private String username;
+    private String message;
+}
@@ -0,0 +1,20 @@
+package com.bank.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * DTO с результатом импорта пользователей.
+ * <p>
+ * Содержит число обработанных строк и созданных пользователей, а также ошибку для каждой
+ * строки, по которой пользователь не создан.
+ */
+@Data
+@AllArgsConstructor
+public class UserImportResultDto {
+    private long rows;
+    private long created;
+    private List<UserImportErrorDto> errors;
+}
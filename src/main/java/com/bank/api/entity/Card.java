@@ -3,11 +3,18 @@ package com.bank.api.entity;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Сущность банковской карты.
  * <p>
  * Содержит номер, баланс, владельца, статус и дату окончания действия.
+ * <p>
+ * Баланс «горячей» карты ({@code balanceSlots > 0}) хранится в строках {@link CardBalanceSlot},
+ * а поле {@code balance} при этом равно нулю. Полный баланс считается запросом
+ * ({@code CardRepository.SELECT_CARD_DTO}) или по заблокированным слотам, а не по коллекции
+ * {@code slots}: она загружается лениво и не отражает изменения слотов, сделанные запросами.
  */
 @Entity
 @Table(name = "cards")
@@ -30,6 +37,17 @@ public class Card {
     @Column(nullable = false)
     private BigDecimal balance = BigDecimal.ZERO;
 
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
+    @Column(name = "balance_slots", nullable = false)
+    private int balanceSlots;
+
+    @OneToMany(mappedBy = "card", cascade = CascadeType.REMOVE)
+    @OrderBy("slot")
+    private List<CardBalanceSlot> slots = new ArrayList<>();
+
     public Long getId() {
         return id;
     }
@@ -73,4 +91,21 @@ public class Card {
     public void setBalance(BigDecimal balance) {
         this.balance = balance;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public int getBalanceSlots() {
+        return balanceSlots;
+    }
+
+    public void setBalanceSlots(int balanceSlots) {
+        this.balanceSlots = balanceSlots;
+    }
+
+    /** Возвращает true, если баланс карты разбит на слоты */
+    public boolean isHot() {
+        return balanceSlots > 0;
+    }
 }
@@ -0,0 +1,49 @@
+package com.bank.api.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+
+/**
+ * Часть баланса «горячей» карты.
+ * <p>
+ * Баланс карты, на которую приходит много зачислений, разбивается на несколько строк,
+ * чтобы параллельные переводы не ждали блокировки одной строки {@code cards}.
+ * Сущность используется только для чтения: остатки слотов изменяются запросами
+ * {@link com.bank.api.repository.CardBalanceSlotRepository}.
+ */
+@Entity
+@Immutable
+@Table(name = "card_balance_slots")
+public class CardBalanceSlot {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "card_id", nullable = false)
+    private Card card;
+
+    @Column(nullable = false)
+    private int slot;
+
+    @Column(nullable = false)
+    private BigDecimal balance = BigDecimal.ZERO;
+
+    public Long getId() {
+        return id;
+    }
+
+    public Card getCard() {
+        return card;
+    }
+
+    public int getSlot() {
+        return slot;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+}
@@ -2,6 +2,8 @@ package com.bank.api.entity;
 
 import jakarta.persistence.*;
 
+import java.time.LocalDateTime;
+
 /**
  * Сущность пользователя системы.
  * <p>
@@ -24,6 +26,9 @@ public class User {
 
     private boolean enabled = true;
 
+    @Column(name = "last_login_at")
+    private LocalDateTime lastLoginAt;
+
     public String getPassword() {
         return password;
     }
@@ -59,4 +64,8 @@ public class User {
     public void setEnabled(boolean enabled) {
         this.enabled = enabled;
     }
+
+    public LocalDateTime getLastLoginAt() {
+        return lastLoginAt;
+    }
 }
@@ -0,0 +1,39 @@
+package com.bank.api.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Версия токенов пользователя.
+ * <p>
+ * Каждый JWT содержит версию, действовавшую при его выпуске; увеличение версии (блокировка или
+ * удаление пользователя) делает все ранее выпущенные токены недействительными. Строка есть только
+ * у пользователей, версия которых хотя бы раз увеличивалась, остальные имеют версию 0.
+ * Таблица не ссылается на {@code users}, чтобы версия удалённого пользователя сохранялась.
+ */
+@Entity
+@Table(name = "user_token_versions")
+public class UserTokenVersion {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(nullable = false)
+    private int version;
+
+    protected UserTokenVersion() {
+    }
+
+    public UserTokenVersion(Long userId, int version) {
+        this.userId = userId;
+        this.version = version;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+}
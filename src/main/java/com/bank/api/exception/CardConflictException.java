@@ -0,0 +1,14 @@
+package com.bank.api.exception;
+
+/**
+ * Исключение конфликта: карта изменилась параллельно между проверкой и обновлением.
+ * <p>
+ * Операцию можно повторить; {@code TransferRetryExecutor} повторяет её так же,
+ * как при конфликте версий.
+ */
+public class CardConflictException extends RuntimeException {
+
+    public CardConflictException(String message) {
+        super(message);
+    }
+}
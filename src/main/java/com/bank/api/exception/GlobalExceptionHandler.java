@@ -22,6 +22,7 @@ import java.util.Map;
  *     <li>Некорректный JSON ({@link HttpMessageNotReadableException})</li>
  *     <li>Ошибки десериализации enum ({@link InvalidFormatException})</li>
  *     <li>Кастомные бизнес-исключения ({@link BusinessException})</li>
+ *     <li>Перегрузку сервиса ({@link TooManyRequestsException})</li>
  *     <li>Любые непредвиденные ошибки ({@link Exception})</li>
  * </ul>
  * <p>
@@ -109,6 +110,32 @@ public class GlobalExceptionHandler {
         return buildResponse(HttpStatus.BAD_REQUEST, "Business error", message, request.getRequestURI());
     }
 
+    /**
+     * Обрабатывает отказ из-за перегрузки сервиса.
+     *
+     * @param ex      исключение {@link TooManyRequestsException}
+     * @param request объект {@link HttpServletRequest}
+     * @return ответ с HTTP 429
+     */
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<Map<String, Object>> handleTooManyRequests(TooManyRequestsException ex,
+                                                                     HttpServletRequest request) {
+        return buildResponse(HttpStatus.TOO_MANY_REQUESTS, "Too many requests", ex.getMessage(), request.getRequestURI());
+    }
+
+    /**
+     * Обрабатывает временную недоступность сервиса.
+     *
+     * @param ex      исключение {@link ServiceUnavailableException}
+     * @param request объект {@link HttpServletRequest}
+     * @return ответ с HTTP 503
+     */
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<Map<String, Object>> handleServiceUnavailable(ServiceUnavailableException ex,
+                                                                        HttpServletRequest request) {
+        return buildResponse(HttpStatus.SERVICE_UNAVAILABLE, "Service unavailable", ex.getMessage(), request.getRequestURI());
+    }
+
     /**
      * Обрабатывает любые непредвиденные ошибки.
      *
@@ -0,0 +1,23 @@
+package com.bank.api.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Исключение при некорректном использовании заголовка {@code Idempotency-Key}.
+ * <p>
+ * Несёт HTTP-статус, который нужно вернуть клиенту: 400 для некорректного ключа,
+ * 409 если запрос с этим ключом ещё выполняется, 422 если ключ использован с другим запросом.
+ */
+public class IdempotencyConflictException extends RuntimeException {
+
+    private final HttpStatus status;
+
+    public IdempotencyConflictException(HttpStatus status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+}
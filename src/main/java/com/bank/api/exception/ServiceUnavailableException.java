@@ -0,0 +1,13 @@
+package com.bank.api.exception;
+
+/**
+ * Исключение временной недоступности: сервис не успел обработать запрос за отведённое время.
+ * <p>
+ * Обрабатывается {@link GlobalExceptionHandler} и возвращается клиенту как HTTP 503.
+ */
+public class ServiceUnavailableException extends RuntimeException {
+
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,13 @@
+package com.bank.api.exception;
+
+/**
+ * Исключение перегрузки: запрос отклонён, чтобы не переполнять очереди сервиса.
+ * <p>
+ * Обрабатывается {@link GlobalExceptionHandler} и возвращается клиенту как HTTP 429.
+ */
+public class TooManyRequestsException extends RuntimeException {
+
+    public TooManyRequestsException(String message) {
+        super(message);
+    }
+}
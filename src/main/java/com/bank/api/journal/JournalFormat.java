@@ -0,0 +1,159 @@
+package com.bank.api.journal;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Двоичный формат журнала переводов.
+ * <p>
+ * Журнал состоит из сегментов {@code transfers-<offset>.journal}, где offset — номер первой записи
+ * сегмента (20 цифр, чтобы сегменты сортировались по имени). Сегмент — массив записей по
+ * {@value #RECORD_SIZE} байт без заголовка; незаписанная часть заполнена нулями. Формат записи
+ * (big-endian):
+ * <pre>
+ *  0  int   magic (0x544A524E, "TJRN")
+ *  4  short версия формата
+ *  6  short scale суммы
+ *  8  long  offset записи
+ * 16  long  ID перевода
+ * 24  long  ID карты-отправителя
+ * 32  long  ID карты-получателя
+ * 40  long  unscaled-значение суммы
+ * 48  long  время перевода, микросекунды от эпохи
+ * 56  int   зарезервировано (0)
+ * 60  int   CRC32C байтов 0..59
+ * </pre>
+ * Запись действительна, если совпадают magic, контрольная сумма и offset. Первая недействительная
+ * запись считается концом журнала: это либо ещё не записанный слот, либо запись, оборванная сбоем.
+ */
+final class JournalFormat {
+
+    static final int RECORD_SIZE = 64;
+    static final int MAGIC = 0x544A524E;
+    static final short VERSION = 1;
+
+    private static final int CRC_OFFSET = 60;
+    private static final Pattern SEGMENT_NAME = Pattern.compile("transfers-(\\d{20})\\.journal");
+
+    private JournalFormat() {
+    }
+
+    /** Сегмент журнала: номер первой записи и путь к файлу */
+    record Segment(long baseOffset, Path path) {
+    }
+
+    /** Возвращает имя файла сегмента, начинающегося с записи baseOffset */
+    static String segmentName(long baseOffset) {
+        return String.format("transfers-%020d.journal", baseOffset);
+    }
+
+    /** Возвращает сегменты каталога в порядке возрастания номера первой записи */
+    static List<Segment> listSegments(Path dir) throws IOException {
+        List<Segment> segments = new ArrayList<>();
+        if (!Files.isDirectory(dir)) {
+            return segments;
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            files.forEach(path -> {
+                Matcher matcher = SEGMENT_NAME.matcher(path.getFileName().toString());
+                if (matcher.matches()) {
+                    segments.add(new Segment(Long.parseLong(matcher.group(1)), path));
+                }
+            });
+        }
+        segments.sort(Comparator.comparingLong(Segment::baseOffset));
+        return segments;
+    }
+
+    /**
+     * Кодирует запись в массив размером {@value #RECORD_SIZE} байт.
+     *
+     * @throws ArithmeticException если сумма не помещается в long
+     */
+    static byte[] encode(long offset, long transferId, long fromCardId, long toCardId,
+                         BigDecimal amount, Instant createdAt) {
+        ByteBuffer buf = ByteBuffer.allocate(RECORD_SIZE);
+        buf.putInt(MAGIC)
+                .putShort(VERSION)
+                .putShort((short) amount.scale())
+                .putLong(offset)
+                .putLong(transferId)
+                .putLong(fromCardId)
+                .putLong(toCardId)
+                .putLong(amount.unscaledValue().longValueExact())
+                .putLong(toEpochMicros(createdAt))
+                .putInt(0);
+        buf.putInt(CRC_OFFSET, crc(buf.array()));
+        return buf.array();
+    }
+
+    /**
+     * Декодирует запись из буфера.
+     *
+     * @param buf            буфер с записью
+     * @param index          позиция записи в буфере
+     * @param expectedOffset ожидаемый номер записи
+     * @return запись или null, если слот пуст или запись повреждена
+     */
+    static JournalRecord decode(ByteBuffer buf, int index, long expectedOffset) {
+        if (!isValid(buf, index, expectedOffset)) {
+            return null;
+        }
+        short scale = buf.getShort(index + 6);
+        return new JournalRecord(
+                expectedOffset,
+                buf.getLong(index + 16),
+                buf.getLong(index + 24),
+                buf.getLong(index + 32),
+                new BigDecimal(BigInteger.valueOf(buf.getLong(index + 40)), scale),
+                fromEpochMicros(buf.getLong(index + 48)));
+    }
+
+    /** Проверяет magic, версию, offset и контрольную сумму записи */
+    static boolean isValid(ByteBuffer buf, int index, long expectedOffset) {
+        if (buf.getInt(index) != MAGIC
+                || buf.getShort(index + 4) != VERSION
+                || buf.getLong(index + 8) != expectedOffset) {
+            return false;
+        }
+        byte[] bytes = new byte[RECORD_SIZE];
+        buf.get(index, bytes);
+        return crc(bytes) == buf.getInt(index + CRC_OFFSET);
+    }
+
+    /** Проверяет, что слот не записывался (заполнен нулями) */
+    static boolean isEmpty(ByteBuffer buf, int index) {
+        for (int i = 0; i < RECORD_SIZE; i += Long.BYTES) {
+            if (buf.getLong(index + i) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int crc(byte[] record) {
+        CRC32C crc = new CRC32C();
+        crc.update(record, 0, CRC_OFFSET);
+        return (int) crc.getValue();
+    }
+
+    private static long toEpochMicros(Instant instant) {
+        return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000L), instant.getNano() / 1_000);
+    }
+
+    private static Instant fromEpochMicros(long micros) {
+        return Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1_000L);
+    }
+}
@@ -0,0 +1,18 @@
+package com.bank.api.journal;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Запись журнала переводов.
+ *
+ * @param offset     порядковый номер записи в журнале, начиная с 0
+ * @param transferId ID перевода в таблице transfers
+ * @param fromCardId ID карты-отправителя
+ * @param toCardId   ID карты-получателя
+ * @param amount     сумма перевода
+ * @param createdAt  время перевода
+ */
+public record JournalRecord(long offset, long transferId, long fromCardId, long toCardId,
+                            BigDecimal amount, Instant createdAt) {
+}
@@ -0,0 +1,297 @@
+package com.bank.api.journal;
+
+import com.bank.api.repository.TransferRepository;
+import com.bank.api.repository.TransferView;
+import com.bank.api.service.TransferCommittedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Локальный журнал зафиксированных переводов только для дозаписи.
+ * <p>
+ * Каждый перевод после фиксации транзакции записывается в журнал записью фиксированного размера
+ * (см. {@link JournalFormat}). Запись идёт через {@link MappedByteBuffer} в текущий сегмент; заполненный
+ * сегмент закрывается и создаётся следующий. Журнал даёт последовательную ленту движений денег,
+ * которую можно читать через {@link TransferJournalReader}, не обращаясь к таблице transfers.
+ * <p>
+ * Данные в отображённой памяти переживают падение процесса. Чтобы пережить и сбой ОС, включается
+ * {@code app.transfer.journal.sync}: тогда каждая запись сбрасывается на диск сразу. При открытии
+ * журнал находит конец по первой недействительной записи последнего сегмента, поэтому оборванная
+ * сбоем запись перезаписывается следующим переводом.
+ * <p>
+ * Журнал дополняет таблицу transfers и не участвует в транзакции: ошибка записи в журнал
+ * не отменяет перевод. Чтобы переводы, не попавшие в журнал из-за сбоя между фиксацией и записью,
+ * не терялись, при запуске журнал находит наибольший записанный ID перевода и дописывает
+ * из таблицы transfers все переводы с большим ID. Ошибка записи во время работы не скрывается:
+ * она увеличивает метрику {@code transfer.journal.append.failures} и переводит индикатор
+ * здоровья журнала в DOWN до перезапуска, который восполнит пропуск.
+ * <p>
+ * Остающиеся пропуски: перевод, зафиксированный позже перевода с большим ID (параллельные
+ * транзакции) и не записанный из-за сбоя, при запуске не восполняется. Журнал рассчитан на один
+ * узел-писатель: переводы других узлов попадают в него только при запуске.
+ * <p>
+ * Запись защищена {@link ReentrantLock}, а не {@code synchronized}: сброс на диск внутри монитора
+ * закрепил бы виртуальный поток за потоком-носителем.
+ */
+@Component
+public class TransferJournal implements HealthIndicator {
+
+    private static final Logger log = LoggerFactory.getLogger(TransferJournal.class);
+
+    /** Сколько переводов читается из таблицы transfers за один запрос при восполнении */
+    private static final int CATCH_UP_PAGE_SIZE = 1000;
+
+    private final TransferRepository transferRepository;
+    private final Counter appendFailures;
+    private final boolean enabled;
+    private final Path dir;
+    private final int segmentRecords;
+    private final boolean sync;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private int slot;
+    private long nextOffset;
+    private long lastTransferId;
+    private volatile String lastFailure;
+
+    public TransferJournal(TransferRepository transferRepository,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.transfer.journal.enabled:false}") boolean enabled,
+                           @Value("${app.transfer.journal.dir:journal}") String dir,
+                           @Value("${app.transfer.journal.segment-records:1048576}") int segmentRecords,
+                           @Value("${app.transfer.journal.sync:false}") boolean sync) {
+        this.transferRepository = transferRepository;
+        this.appendFailures = Counter.builder("transfer.journal.append.failures")
+                .description("Committed transfers that could not be appended to the journal")
+                .register(meterRegistry);
+        this.enabled = enabled;
+        this.dir = Path.of(dir);
+        this.segmentRecords = Math.max(1, segmentRecords);
+        this.sync = sync;
+        if (enabled) {
+            try {
+                open();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot open transfer journal in " + this.dir, e);
+            }
+        }
+    }
+
+    /**
+     * Дописывает в журнал перевод, транзакция которого зафиксирована.
+     * <p>
+     * Вызывается после фиксации; если транзакции нет, вызывается сразу.
+     *
+     * @param event событие о переводе
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTransferCommitted(TransferCommittedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            append(event.transferId(), event.fromCardId(), event.toCardId(), event.amount(), event.createdAt());
+        } catch (RuntimeException | IOException e) {
+            appendFailures.increment();
+            lastFailure = "Transfer " + event.transferId() + ": " + e;
+            log.error("Failed to append transfer {} to journal, it will be restored on restart",
+                    event.transferId(), e);
+        }
+    }
+
+    /**
+     * Дописывает в журнал переводы из таблицы transfers, ID которых больше наибольшего
+     * записанного в журнал. Выполняется при запуске, до приёма запросов.
+     *
+     * @return число дописанных переводов
+     * @throws IOException если не удалось дописать перевод
+     */
+    @PostConstruct
+    public long catchUp() throws IOException {
+        if (!enabled) {
+            return 0;
+        }
+        long appended = 0;
+        long afterId = getLastTransferId();
+        List<TransferView> page;
+        do {
+            page = transferRepository.findCommittedAfter(afterId, PageRequest.of(0, CATCH_UP_PAGE_SIZE));
+            for (TransferView transfer : page) {
+                append(transfer.transferId(), transfer.fromCardId(), transfer.toCardId(),
+                        transfer.amount(), transfer.createdAt());
+                afterId = transfer.transferId();
+                appended++;
+            }
+        } while (page.size() == CATCH_UP_PAGE_SIZE);
+        if (appended > 0) {
+            log.info("Appended {} transfers missing from the journal", appended);
+        }
+        return appended;
+    }
+
+    /** DOWN, если после запуска хотя бы один перевод не удалось записать в журнал */
+    @Override
+    public Health health() {
+        if (!enabled) {
+            return Health.up().withDetail("enabled", false).build();
+        }
+        String failure = lastFailure;
+        Health.Builder builder = failure == null ? Health.up() : Health.down().withDetail("lastFailure", failure);
+        return builder
+                .withDetail("nextOffset", getNextOffset())
+                .withDetail("failures", (long) appendFailures.count())
+                .build();
+    }
+
+    private void append(Long transferId, Long fromCardId, Long toCardId,
+                        BigDecimal amount, LocalDateTime createdAt) throws IOException {
+        append(transferId == null ? 0 : transferId, fromCardId, toCardId,
+                amount, createdAt.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    /**
+     * Дописывает запись в журнал.
+     *
+     * @return offset записи
+     * @throws IOException если не удалось создать следующий сегмент
+     */
+    public long append(long transferId, long fromCardId, long toCardId,
+                       BigDecimal amount, Instant createdAt) throws IOException {
+        lock.lock();
+        try {
+            if (channel == null) {
+                throw new IllegalStateException("Transfer journal is closed");
+            }
+            if (slot == capacity) {
+                roll();
+            }
+            long offset = nextOffset;
+            byte[] record = JournalFormat.encode(offset, transferId, fromCardId, toCardId, amount, createdAt);
+            int index = slot * JournalFormat.RECORD_SIZE;
+            buffer.put(index, record);
+            if (sync) {
+                buffer.force(index, JournalFormat.RECORD_SIZE);
+            }
+            slot++;
+            nextOffset++;
+            lastTransferId = Math.max(lastTransferId, transferId);
+            return offset;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Возвращает offset, который получит следующая запись */
+    public long getNextOffset() {
+        lock.lock();
+        try {
+            return nextOffset;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Возвращает наибольший ID перевода, записанного в журнал, или 0 */
+    public long getLastTransferId() {
+        lock.lock();
+        try {
+            return lastTransferId;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Возвращает каталог журнала */
+    public Path getDirectory() {
+        return dir;
+    }
+
+    /** Сбрасывает текущий сегмент на диск и закрывает журнал */
+    @PreDestroy
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (channel != null) {
+                buffer.force();
+                channel.close();
+                channel = null;
+                buffer = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Открывает последний сегмент и находит конец записанных данных и наибольший ID перевода.
+     * ID ищется в двух последних сегментах: последний может быть только что начат.
+     */
+    private void open() throws IOException {
+        Files.createDirectories(dir);
+        List<JournalFormat.Segment> segments = JournalFormat.listSegments(dir);
+        if (segments.isEmpty()) {
+            map(0, segmentRecords);
+            return;
+        }
+        long scanFrom = segments.get(Math.max(0, segments.size() - 2)).baseOffset();
+        new TransferJournalReader(dir).replay(scanFrom,
+                record -> lastTransferId = Math.max(lastTransferId, record.transferId()));
+        JournalFormat.Segment last = segments.get(segments.size() - 1);
+        int existing = (int) (Files.size(last.path()) / JournalFormat.RECORD_SIZE);
+        map(last.baseOffset(), existing > 0 ? existing : segmentRecords);
+        while (slot < capacity
+                && JournalFormat.isValid(buffer, slot * JournalFormat.RECORD_SIZE, nextOffset)) {
+            slot++;
+            nextOffset++;
+        }
+        if (slot < capacity) {
+            // запись, оборванная сбоем, будет перезаписана
+            buffer.put(slot * JournalFormat.RECORD_SIZE, new byte[JournalFormat.RECORD_SIZE]);
+        }
+    }
+
+    /** Закрывает заполненный сегмент и открывает следующий */
+    private void roll() throws IOException {
+        buffer.force();
+        channel.close();
+        map(nextOffset, segmentRecords);
+    }
+
+    /** Отображает в память сегмент, начинающийся с записи baseOffset */
+    private void map(long baseOffset, int records) throws IOException {
+        channel = FileChannel.open(dir.resolve(JournalFormat.segmentName(baseOffset)),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) records * JournalFormat.RECORD_SIZE);
+        capacity = records;
+        slot = 0;
+        nextOffset = baseOffset;
+    }
+}
@@ -0,0 +1,126 @@
+package com.bank.api.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Чтение журнала переводов с заданного offset.
+ * <p>
+ * Читатель не блокирует запись и может работать в другом процессе. Чтобы следить за журналом,
+ * вызывайте {@link #replay} повторно, передавая возвращённый offset: каждый вызов дочитывает
+ * записи, появившиеся с прошлого раза.
+ * <pre>{@code
+ * TransferJournalReader reader = new TransferJournalReader(Path.of("journal"));
+ * long offset = 0;
+ * while (running) {
+ *     offset = reader.replay(offset, record -> publish(record));
+ *     Thread.sleep(100);
+ * }
+ * }</pre>
+ */
+public class TransferJournalReader {
+
+    /** Сколько записей читается с диска за один раз */
+    private static final int READ_CHUNK_RECORDS = 1024;
+
+    private final Path dir;
+
+    public TransferJournalReader(Path dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * Передаёт consumer все записи журнала, начиная с fromOffset.
+     *
+     * @param fromOffset номер первой записи
+     * @param consumer   получатель записей
+     * @return offset, с которого нужно продолжить чтение
+     * @throws IllegalArgumentException если записи с таким offset уже нет в журнале
+     * @throws IOException              при ошибке чтения
+     */
+    public long replay(long fromOffset, Consumer<JournalRecord> consumer) throws IOException {
+        return replay(fromOffset, Long.MAX_VALUE, consumer);
+    }
+
+    /**
+     * Передаёт consumer не более maxRecords записей журнала, начиная с fromOffset.
+     *
+     * @param fromOffset номер первой записи
+     * @param maxRecords максимальное число записей
+     * @param consumer   получатель записей
+     * @return offset, с которого нужно продолжить чтение
+     * @throws IllegalArgumentException если записи с таким offset уже нет в журнале
+     * @throws IOException              при ошибке чтения
+     */
+    public long replay(long fromOffset, long maxRecords, Consumer<JournalRecord> consumer) throws IOException {
+        if (fromOffset < 0) {
+            throw new IllegalArgumentException("Offset must not be negative");
+        }
+        List<JournalFormat.Segment> segments = JournalFormat.listSegments(dir);
+        int first = findSegment(segments, fromOffset);
+        if (first < 0) {
+            if (segments.isEmpty() && fromOffset == 0) {
+                return 0;
+            }
+            throw new IllegalArgumentException("Offset " + fromOffset + " is not in the journal");
+        }
+
+        long offset = fromOffset;
+        long remaining = maxRecords;
+        for (int i = first; i < segments.size() && remaining > 0; i++) {
+            long read = readSegment(segments.get(i), offset, remaining, consumer);
+            offset += read;
+            remaining -= read;
+            if (i + 1 < segments.size() && segments.get(i + 1).baseOffset() != offset) {
+                // сегмент прочитан не до конца: следующий начинается позже
+                break;
+            }
+        }
+        return offset;
+    }
+
+    /** Читает действительные записи сегмента начиная с offset и возвращает их число */
+    private long readSegment(JournalFormat.Segment segment, long offset, long maxRecords,
+                             Consumer<JournalRecord> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment.path(), StandardOpenOption.READ)) {
+            long position = (offset - segment.baseOffset()) * JournalFormat.RECORD_SIZE;
+            long size = channel.size();
+            ByteBuffer chunk = ByteBuffer.allocate(READ_CHUNK_RECORDS * JournalFormat.RECORD_SIZE);
+            long read = 0;
+            while (read < maxRecords && position < size) {
+                chunk.clear();
+                int bytes = channel.read(chunk, position);
+                if (bytes < JournalFormat.RECORD_SIZE) {
+                    break;
+                }
+                int records = bytes / JournalFormat.RECORD_SIZE;
+                for (int r = 0; r < records && read < maxRecords; r++) {
+                    JournalRecord record = JournalFormat.decode(chunk, r * JournalFormat.RECORD_SIZE, offset + read);
+                    if (record == null) {
+                        return read;
+                    }
+                    consumer.accept(record);
+                    read++;
+                }
+                position += (long) records * JournalFormat.RECORD_SIZE;
+            }
+            return read;
+        }
+    }
+
+    /** Возвращает индекс сегмента, содержащего offset, или -1 */
+    private static int findSegment(List<JournalFormat.Segment> segments, long offset) {
+        int found = -1;
+        for (int i = 0; i < segments.size(); i++) {
+            if (segments.get(i).baseOffset() <= offset) {
+                found = i;
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,109 @@
+package com.bank.api.journal;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Утилита командной строки для проверки журнала переводов.
+ * <p>
+ * Для каждого сегмента проверяет контрольные суммы и порядковые номера записей, а также то, что
+ * после последней записи сегмент заполнен нулями и что сегменты идут без пропусков. Оборванная
+ * запись в конце последнего сегмента (результат сбоя при записи) считается допустимой.
+ * <p>
+ * Запуск из собранного jar:
+ * <pre>
+ * java -cp api.jar -Dloader.main=com.bank.api.journal.TransferJournalVerifier \
+ *     org.springframework.boot.loader.launch.PropertiesLauncher journal
+ * </pre>
+ * Код завершения 0 — журнал цел, 1 — найдены повреждения, 2 — неверные аргументы.
+ */
+public final class TransferJournalVerifier {
+
+    private TransferJournalVerifier() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: TransferJournalVerifier <journal-dir>");
+            System.exit(2);
+        }
+        System.exit(verify(Path.of(args[0]), System.out) ? 0 : 1);
+    }
+
+    /**
+     * Проверяет все сегменты каталога.
+     *
+     * @param dir каталог журнала
+     * @param out поток для отчёта
+     * @return true, если повреждений не найдено
+     * @throws IOException при ошибке чтения
+     */
+    public static boolean verify(Path dir, PrintStream out) throws IOException {
+        List<JournalFormat.Segment> segments = JournalFormat.listSegments(dir);
+        if (segments.isEmpty()) {
+            out.println("No journal segments in " + dir);
+            return true;
+        }
+
+        boolean ok = true;
+        long total = 0;
+        Long expectedBase = null;
+        for (int i = 0; i < segments.size(); i++) {
+            JournalFormat.Segment segment = segments.get(i);
+            boolean last = i == segments.size() - 1;
+            if (expectedBase != null && segment.baseOffset() != expectedBase) {
+                out.printf("%s: expected first offset %d, found %d%n",
+                        segment.path().getFileName(), expectedBase, segment.baseOffset());
+                ok = false;
+            }
+            SegmentReport report = verifySegment(segment, last);
+            out.printf("%s: %d records from offset %d, %s%n", segment.path().getFileName(), report.records,
+                    segment.baseOffset(), report.status);
+            ok &= report.ok;
+            total += report.records;
+            expectedBase = segment.baseOffset() + report.records;
+        }
+        out.printf("%d segments, %d records: %s%n", segments.size(), total, ok ? "OK" : "CORRUPTED");
+        return ok;
+    }
+
+    /** Результат проверки сегмента */
+    private record SegmentReport(long records, boolean ok, String status) {
+    }
+
+    private static SegmentReport verifySegment(JournalFormat.Segment segment, boolean last) throws IOException {
+        long size = Files.size(segment.path());
+        if (size % JournalFormat.RECORD_SIZE != 0) {
+            return new SegmentReport(0, false, "size " + size + " is not a multiple of record size");
+        }
+        try (FileChannel channel = FileChannel.open(segment.path(), StandardOpenOption.READ)) {
+            ByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int slots = (int) (size / JournalFormat.RECORD_SIZE);
+            int records = 0;
+            while (records < slots
+                    && JournalFormat.isValid(buf, records * JournalFormat.RECORD_SIZE, segment.baseOffset() + records)) {
+                records++;
+            }
+            if (records == slots) {
+                return new SegmentReport(records, true, "OK (full)");
+            }
+            if (!last) {
+                return new SegmentReport(records, false, "invalid record at slot " + records + " of a closed segment");
+            }
+            boolean torn = !JournalFormat.isEmpty(buf, records * JournalFormat.RECORD_SIZE);
+            for (int slot = records + 1; slot < slots; slot++) {
+                if (!JournalFormat.isEmpty(buf, slot * JournalFormat.RECORD_SIZE)) {
+                    return new SegmentReport(records, false, "invalid record at slot " + records
+                            + ", data found after it at slot " + slot);
+                }
+            }
+            return new SegmentReport(records, true, torn ? "OK (torn last record ignored)" : "OK");
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.bank.api.repository;
+
+import com.bank.api.entity.CardBalanceSlot;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+/**
+ * Репозиторий слотов баланса «горячих» карт.
+ * <p>
+ * Остатки слотов изменяются только запросами JDBC из {@link CardBalanceSlotRepositoryCustom}:
+ * так зачисления в разные слоты не проходят через контекст персистентности и не перезаписывают
+ * друг друга.
+ */
+public interface CardBalanceSlotRepository extends JpaRepository<CardBalanceSlot, Long>, CardBalanceSlotRepositoryCustom {
+}
@@ -0,0 +1,45 @@
+package com.bank.api.repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Операции над остатками слотов баланса, выполняемые напрямую через JDBC в текущей транзакции.
+ */
+public interface CardBalanceSlotRepositoryCustom {
+
+    /**
+     * Зачисляет сумму в слот карты.
+     *
+     * @param cardId ID карты
+     * @param slot   номер слота
+     * @param amount сумма
+     * @return число изменённых строк: 0, если такого слота нет
+     */
+    int credit(Long cardId, int slot, BigDecimal amount);
+
+    /**
+     * Списывает сумму со слота карты без проверки остатка.
+     *
+     * @param cardId ID карты
+     * @param slot   номер слота
+     * @param amount сумма
+     */
+    void debit(Long cardId, int slot, BigDecimal amount);
+
+    /**
+     * Блокирует все слоты карты ({@code SELECT ... FOR UPDATE}) и возвращает их остатки.
+     *
+     * @param cardId ID карты
+     * @return остатки слотов в порядке номеров
+     */
+    List<BigDecimal> lockBalances(Long cardId);
+
+    /**
+     * Заменяет слоты карты новым набором.
+     *
+     * @param cardId   ID карты
+     * @param balances остатки новых слотов по порядку; пустой список удаляет все слоты
+     */
+    void replaceSlots(Long cardId, List<BigDecimal> balances);
+}
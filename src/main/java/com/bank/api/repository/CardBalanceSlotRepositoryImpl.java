@@ -0,0 +1,55 @@
+package com.bank.api.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Реализация {@link CardBalanceSlotRepositoryCustom} на JDBC.
+ * <p>
+ * Соединение берётся из текущей JPA-транзакции.
+ */
+public class CardBalanceSlotRepositoryImpl implements CardBalanceSlotRepositoryCustom {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CardBalanceSlotRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public int credit(Long cardId, int slot, BigDecimal amount) {
+        return jdbcTemplate.update(
+                "update card_balance_slots set balance = balance + ? where card_id = ? and slot = ?",
+                amount, cardId, slot);
+    }
+
+    @Override
+    public void debit(Long cardId, int slot, BigDecimal amount) {
+        jdbcTemplate.update(
+                "update card_balance_slots set balance = balance - ? where card_id = ? and slot = ?",
+                amount, cardId, slot);
+    }
+
+    @Override
+    public List<BigDecimal> lockBalances(Long cardId) {
+        return jdbcTemplate.queryForList(
+                "select balance from card_balance_slots where card_id = ? order by slot for update",
+                BigDecimal.class, cardId);
+    }
+
+    @Override
+    public void replaceSlots(Long cardId, List<BigDecimal> balances) {
+        jdbcTemplate.update("delete from card_balance_slots where card_id = ?", cardId);
+        List<Object[]> rows = new ArrayList<>(balances.size());
+        for (int slot = 0; slot < balances.size(); slot++) {
+            rows.add(new Object[]{cardId, slot, balances.get(slot)});
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(
+                    "insert into card_balance_slots (card_id, slot, balance) values (?, ?, ?)", rows);
+        }
+    }
+}
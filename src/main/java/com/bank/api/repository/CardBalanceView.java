@@ -0,0 +1,14 @@
+package com.bank.api.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Проекция карты для чтения баланса: владелец и полный остаток без загрузки сущностей.
+ *
+ * @param cardId  ID карты
+ * @param ownerId ID владельца
+ * @param balance остаток карты вместе со слотами горячей карты
+ * @param version версия строки карты
+ */
+public record CardBalanceView(Long cardId, Long ownerId, BigDecimal balance, Long version) {
+}
@@ -1,35 +1,259 @@
 package com.bank.api.repository;
 
+import com.bank.api.dto.CardDto;
 import com.bank.api.entity.Card;
 import com.bank.api.entity.CardStatus;
-import com.bank.api.entity.User;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Репозиторий для работы с сущностью Card.
  * <p>
  * Поддерживает пагинацию и фильтрацию карт по пользователю и статусу.
+ * <p>
+ * Методы чтения для API возвращают {@link CardDto} напрямую: запрос выбирает только нужные
+ * столбцы, маскирует номер и складывает остаток горячей карты со слотами, а владелец
+ * задаётся ID из токена, без обращения к таблице пользователей. Сущности не загружаются
+ * и не проверяются на изменения.
+ * Поиск карт по произвольному набору условий реализован в {@link CardRepositoryImpl}.
  */
-public interface CardRepository extends JpaRepository<Card, Long> {
+public interface CardRepository extends JpaRepository<Card, Long>, CardRepositoryCustom {
+
+    /** Начало запроса, строящего {@link CardDto} из карты {@code c} */
+    String SELECT_CARD_DTO = "select new com.bank.api.dto.CardDto(c.id, " +
+            "concat('**** **** **** ', substring(c.number, length(c.number) - 3)), " +
+            "c.expirationDate, c.status, " +
+            "c.balance + coalesce((select sum(s.balance) from CardBalanceSlot s where s.card = c), 0)) ";
+
+    /** Условие «карта принадлежит пользователю :ownerId» */
+    String OWNED_BY = "c.owner.id = :ownerId ";
+
+    /**
+     * Возвращает номера из списка, которые уже заняты картами.
+     *
+     * @param numbers проверяемые номера
+     * @return занятые номера
+     */
+    @Query("select c.number from Card c where c.number in :numbers")
+    List<String> findExistingNumbers(@Param("numbers") Collection<String> numbers);
+
+    /**
+     * Возвращает все карты в виде DTO.
+     *
+     * @return DTO всех карт
+     */
+    @Query(SELECT_CARD_DTO + "from Card c order by c.id asc")
+    List<CardDto> findAllCardDtos();
+
+    /**
+     * Читает все карты в виде DTO потоком для выгрузки.
+     * <p>
+     * Строки читаются курсором порциями по 1000, не собираясь в список. Поток нужно закрыть,
+     * читать его можно только внутри транзакции.
+     *
+     * @return поток DTO всех карт
+     */
+    @Query(SELECT_CARD_DTO + "from Card c order by c.id asc")
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = "1000"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    Stream<CardDto> streamAllCardDtos();
 
     /**
-     * Возвращает все карты пользователя с пагинацией.
+     * Возвращает карты пользователя в виде DTO с пагинацией.
      *
-     * @param owner    пользователь
+     * @param ownerId  ID владельца
      * @param pageable объект пагинации
-     * @return страница карт
+     * @return страница DTO карт
      */
-    Page<Card> findAllByOwner(User owner, Pageable pageable);
+    @Query(value = SELECT_CARD_DTO + "from Card c where " + OWNED_BY,
+            countQuery = "select count(c) from Card c where " + OWNED_BY)
+    Page<CardDto> findCardDtosByOwner(@Param("ownerId") Long ownerId, Pageable pageable);
 
     /**
-     * Возвращает все карты пользователя с фильтром по статусу и пагинацией.
+     * Возвращает карты пользователя с фильтром по статусу в виде DTO с пагинацией.
      *
-     * @param owner    пользователь
+     * @param ownerId  ID владельца
      * @param status   статус карты
      * @param pageable объект пагинации
-     * @return страница карт
+     * @return страница DTO карт
+     */
+    @Query(value = SELECT_CARD_DTO + "from Card c where " + OWNED_BY + "and c.status = :status",
+            countQuery = "select count(c) from Card c where " + OWNED_BY + "and c.status = :status")
+    Page<CardDto> findCardDtosByOwnerAndStatus(@Param("ownerId") Long ownerId,
+                                               @Param("status") CardStatus status,
+                                               Pageable pageable);
+
+    /**
+     * Возвращает первую порцию карт пользователя в порядке {@code (status, id)}.
+     * <p>
+     * Порядок совпадает с индексом {@code idx_cards_owner_status_id}, поэтому запрос читает только
+     * нужные строки индекса, без {@code OFFSET} и без подсчёта общего числа карт.
+     *
+     * @param ownerId  ID владельца
+     * @param pageable размер порции (номер страницы должен быть 0)
+     * @return порция карт
+     */
+    @Query(SELECT_CARD_DTO + "from Card c where " + OWNED_BY +
+            "order by c.status asc, c.id asc")
+    Slice<CardDto> findSliceByOwner(@Param("ownerId") Long ownerId, Pageable pageable);
+
+    /**
+     * Возвращает порцию карт пользователя, следующую за картой {@code (status, afterId)}, в порядке {@code (status, id)}.
+     *
+     * @param ownerId        ID владельца
+     * @param status         статус последней карты предыдущей порции
+     * @param afterId        ID последней карты предыдущей порции
+     * @param laterStatuses  статусы, следующие за {@code status} в порядке сортировки
+     * @param pageable       размер порции (номер страницы должен быть 0)
+     * @return порция карт
+     */
+    @Query(SELECT_CARD_DTO + "from Card c where " + OWNED_BY +
+            "and ((c.status = :status and c.id > :afterId) or c.status in :laterStatuses) " +
+            "order by c.status asc, c.id asc")
+    Slice<CardDto> findSliceByOwnerAfter(@Param("ownerId") Long ownerId,
+                                      @Param("status") CardStatus status,
+                                      @Param("afterId") Long afterId,
+                                      @Param("laterStatuses") Collection<CardStatus> laterStatuses,
+                                      Pageable pageable);
+
+    /**
+     * Возвращает порцию карт пользователя с указанным статусом, следующую за картой {@code afterId}.
+     *
+     * @param ownerId  ID владельца
+     * @param status   статус карт
+     * @param afterId  ID последней карты предыдущей порции или 0 для первой порции
+     * @param pageable размер порции (номер страницы должен быть 0)
+     * @return порция карт
+     */
+    @Query(SELECT_CARD_DTO + "from Card c where " + OWNED_BY +
+            "and c.status = :status and c.id > :afterId " +
+            "order by c.id asc")
+    Slice<CardDto> findSliceByOwnerAndStatusAfter(@Param("ownerId") Long ownerId,
+                                               @Param("status") CardStatus status,
+                                               @Param("afterId") Long afterId,
+                                               Pageable pageable);
+
+    /**
+     * Загружает карты по ID с блокировкой строк ({@code SELECT ... FOR UPDATE}).
+     * <p>
+     * Строки блокируются в порядке возрастания ID, поэтому два встречных перевода
+     * между одними и теми же картами не могут взять блокировки в разном порядке.
+     * Ожидание блокировки ограничено, по истечении таймаута MariaDB возвращает ошибку 1205.
+     *
+     * @param ids ID карт
+     * @return заблокированные карты, отсортированные по ID
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "5000"))
+    @Query("select c from Card c where c.id in :ids order by c.id asc")
+    List<Card> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Загружает карты по ID с разделяемой блокировкой строк ({@code SELECT ... LOCK IN SHARE MODE}).
+     * <p>
+     * Используется для «горячих» карт: параллельные переводы не мешают друг другу, а изменение
+     * статуса или числа слотов ждёт их завершения.
+     *
+     * @param ids ID карт
+     * @return заблокированные карты, отсортированные по ID
+     */
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "5000"))
+    @Query("select c from Card c where c.id in :ids order by c.id asc")
+    List<Card> findAllByIdForShare(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Читает владельца и полный остаток карты одним запросом, без загрузки сущностей.
+     * Остаток горячей карты включает сумму её слотов.
+     *
+     * @param id ID карты
+     * @return проекция баланса или пустой Optional, если карты нет
+     */
+    @Query("select new com.bank.api.repository.CardBalanceView(c.id, c.owner.id, " +
+            "c.balance + coalesce((select sum(s.balance) from CardBalanceSlot s where s.card = c), 0), c.version) " +
+            "from Card c where c.id = :id")
+    Optional<CardBalanceView> findBalanceView(@Param("id") Long id);
+
+    /**
+     * Читает владельцев и полные остатки нескольких карт одним запросом {@code IN}.
+     *
+     * @param ids ID карт
+     * @return проекции баланса найденных карт
+     */
+    @Query("select new com.bank.api.repository.CardBalanceView(c.id, c.owner.id, " +
+            "c.balance + coalesce((select sum(s.balance) from CardBalanceSlot s where s.card = c), 0), c.version) " +
+            "from Card c where c.id in :ids")
+    List<CardBalanceView> findBalanceViews(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Возвращает ID карт, баланс которых разбит на слоты.
+     *
+     * @return ID «горячих» карт
+     */
+    @Query("select c.id from Card c where c.balanceSlots > 0")
+    List<Long> findHotCardIds();
+
+    /**
+     * Списывает сумму с карты, если карта принадлежит пользователю, активна, не просрочена
+     * и на ней достаточно средств. Все проверки выполняются в условии одного {@code UPDATE}.
+     * Карты с балансом в слотах не изменяются.
+     *
+     * @param id       ID карты
+     * @param ownerId  ID владельца
+     * @param amount   сумма списания
+     * @param today    текущая дата для проверки срока действия
+     * @return число изменённых строк: 1 при успехе, 0 если условие не выполнено
+     */
+    @Modifying
+    @Query("update Card c set c.balance = c.balance - :amount, c.version = c.version + 1 " +
+            "where c.id = :id " +
+            "and c.owner.id = :ownerId " +
+            "and c.status = com.bank.api.entity.CardStatus.ACTIVE " +
+            "and c.expirationDate >= :today " +
+            "and c.balanceSlots = 0 " +
+            "and c.balance >= :amount")
+    int debitIfAllowed(@Param("id") Long id,
+                       @Param("ownerId") Long ownerId,
+                       @Param("amount") BigDecimal amount,
+                       @Param("today") LocalDate today);
+
+    /**
+     * Зачисляет сумму на карту, если карта принадлежит пользователю, активна и не просрочена.
+     * Карты с балансом в слотах не изменяются.
+     *
+     * @param id       ID карты
+     * @param ownerId  ID владельца
+     * @param amount   сумма зачисления
+     * @param today    текущая дата для проверки срока действия
+     * @return число изменённых строк: 1 при успехе, 0 если условие не выполнено
      */
-    Page<Card> findAllByOwnerAndStatus(User owner, CardStatus status, Pageable pageable);
+    @Modifying
+    @Query("update Card c set c.balance = c.balance + :amount, c.version = c.version + 1 " +
+            "where c.id = :id " +
+            "and c.owner.id = :ownerId " +
+            "and c.status = com.bank.api.entity.CardStatus.ACTIVE " +
+            "and c.expirationDate >= :today " +
+            "and c.balanceSlots = 0")
+    int creditIfAllowed(@Param("id") Long id,
+                        @Param("ownerId") Long ownerId,
+                        @Param("amount") BigDecimal amount,
+                        @Param("today") LocalDate today);
 }
@@ -0,0 +1,33 @@
+package com.bank.api.repository;
+
+import com.bank.api.dto.CardDto;
+import com.bank.api.entity.Card;
+
+import java.util.List;
+
+/**
+ * Запросы к картам, которые строятся динамически через JPA Criteria, и пакетная вставка карт.
+ */
+public interface CardRepositoryCustom {
+
+    /**
+     * Ищет карты по условиям в порядке возрастания ID.
+     *
+     * @param criteria условия поиска
+     * @param afterId  ID последней карты предыдущей порции или null для первой порции
+     * @param limit    максимальное число карт
+     * @return DTO найденных карт
+     */
+    List<CardDto> searchCardDtos(CardSearchCriteria criteria, Long afterId, int limit);
+
+    /**
+     * Вставляет карты одним пакетом JDBC в отдельной транзакции.
+     * <p>
+     * Если вставка одной карты не удалась, не вставляется ни одна. Сущности не становятся
+     * управляемыми, их ID не заполняются.
+     *
+     * @param cards карты для вставки, с владельцем
+     * @return число вставленных карт
+     */
+    int insertAll(List<Card> cards);
+}
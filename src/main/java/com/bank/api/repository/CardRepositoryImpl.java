@@ -0,0 +1,151 @@
+package com.bank.api.repository;
+
+import com.bank.api.dto.CardDto;
+import com.bank.api.entity.Card;
+import com.bank.api.entity.CardBalanceSlot;
+import com.bank.api.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Реализация {@link CardRepositoryCustom} на JPA Criteria и JDBC.
+ * <p>
+ * В запрос попадают только заданные условия, поэтому MariaDB выбирает индекс под конкретную
+ * комбинацию фильтров:
+ * <ul>
+ *     <li>статус и срок действия — {@code idx_cards_status_expiration_id};</li>
+ *     <li>только срок действия — {@code idx_cards_expiration_id};</li>
+ *     <li>баланс — {@code idx_cards_slots_balance_id};</li>
+ *     <li>начало логина — уникальный индекс {@code users.username}, затем {@code idx_cards_owner_status_id}.</li>
+ * </ul>
+ * Баланс обычной карты сравнивается по столбцу {@code balance}; сумма слотов вычисляется только
+ * для горячих карт ({@code balance_slots > 0}), у которых столбец всегда равен нулю.
+ * <p>
+ * Сущность Card использует IDENTITY-ключ, при котором Hibernate не объединяет вставки в пакеты,
+ * поэтому пакетная вставка выполняется напрямую через {@link JdbcTemplate}.
+ */
+public class CardRepositoryImpl implements CardRepositoryCustom {
+
+    private static final String INSERT_SQL = "insert into cards "
+            + "(number, owner_id, expiration_date, status, balance, version, balance_slots) "
+            + "values (?, ?, ?, ?, ?, 0, 0)";
+
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+
+    public CardRepositoryImpl(EntityManager entityManager, JdbcTemplate jdbcTemplate) {
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    @Transactional
+    public int insertAll(List<Card> cards) {
+        if (cards.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Card card = cards.get(i);
+                ps.setString(1, card.getNumber());
+                ps.setLong(2, card.getOwner().getId());
+                ps.setDate(3, Date.valueOf(card.getExpirationDate()));
+                ps.setString(4, card.getStatus().name());
+                ps.setBigDecimal(5, card.getBalance());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return cards.size();
+            }
+        });
+        return cards.size();
+    }
+
+    @Override
+    public List<CardDto> searchCardDtos(CardSearchCriteria criteria, Long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<CardDto> query = cb.createQuery(CardDto.class);
+        Root<Card> card = query.from(Card.class);
+
+        Subquery<BigDecimal> slots = query.subquery(BigDecimal.class);
+        Root<CardBalanceSlot> slot = slots.from(CardBalanceSlot.class);
+        slots.select(cb.sum(slot.get("balance"))).where(cb.equal(slot.get("card"), card));
+        Expression<BigDecimal> balance = card.get("balance");
+        Expression<BigDecimal> totalBalance = cb.sum(balance, cb.coalesce(slots, BigDecimal.ZERO));
+
+        Expression<String> number = card.get("number");
+        query.select(cb.construct(CardDto.class,
+                card.get("id"),
+                cb.concat("**** **** **** ", cb.substring(number, cb.diff(cb.length(number), 3))),
+                card.get("expirationDate"),
+                card.get("status"),
+                totalBalance));
+
+        List<Predicate> where = new ArrayList<>();
+        if (criteria.status() != null) {
+            where.add(cb.equal(card.get("status"), criteria.status()));
+        }
+        if (criteria.ownerPrefix() != null) {
+            Join<Card, User> owner = card.join("owner");
+            where.add(cb.like(owner.get("username"), escapeLike(criteria.ownerPrefix()) + "%", '\\'));
+        }
+        if (criteria.expiresFrom() != null) {
+            where.add(cb.greaterThanOrEqualTo(card.get("expirationDate"), criteria.expiresFrom()));
+        }
+        if (criteria.expiresTo() != null) {
+            where.add(cb.lessThanOrEqualTo(card.get("expirationDate"), criteria.expiresTo()));
+        }
+        if (criteria.balanceFrom() != null || criteria.balanceTo() != null) {
+            Expression<Integer> balanceSlots = card.get("balanceSlots");
+            Predicate regular = cb.and(cb.equal(balanceSlots, 0),
+                    range(cb, balance, criteria.balanceFrom(), criteria.balanceTo()));
+            Predicate hot = cb.and(cb.gt(balanceSlots, 0),
+                    range(cb, totalBalance, criteria.balanceFrom(), criteria.balanceTo()));
+            where.add(cb.or(regular, hot));
+        }
+        if (afterId != null) {
+            where.add(cb.gt(card.get("id"), afterId));
+        }
+
+        query.where(where.toArray(Predicate[]::new))
+                .orderBy(cb.asc(card.get("id")));
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /** Условие «значение в диапазоне», незаданная граница не проверяется */
+    private static Predicate range(CriteriaBuilder cb, Expression<BigDecimal> value, BigDecimal from, BigDecimal to) {
+        List<Predicate> bounds = new ArrayList<>(2);
+        if (from != null) {
+            bounds.add(cb.greaterThanOrEqualTo(value, from));
+        }
+        if (to != null) {
+            bounds.add(cb.lessThanOrEqualTo(value, to));
+        }
+        return cb.and(bounds.toArray(Predicate[]::new));
+    }
+
+    /** Экранирует символы шаблона LIKE, чтобы начало логина сравнивалось буквально */
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
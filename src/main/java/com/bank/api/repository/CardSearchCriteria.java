@@ -0,0 +1,25 @@
+package com.bank.api.repository;
+
+import com.bank.api.entity.CardStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Условия поиска карт администратором. Незаданные (null) условия не применяются,
+ * границы диапазонов включаются.
+ *
+ * @param status      статус карты
+ * @param ownerPrefix начало логина владельца
+ * @param expiresFrom нижняя граница срока действия
+ * @param expiresTo   верхняя граница срока действия
+ * @param balanceFrom нижняя граница баланса
+ * @param balanceTo   верхняя граница баланса
+ */
+public record CardSearchCriteria(CardStatus status,
+                                 String ownerPrefix,
+                                 LocalDate expiresFrom,
+                                 LocalDate expiresTo,
+                                 BigDecimal balanceFrom,
+                                 BigDecimal balanceTo) {
+}
@@ -0,0 +1,37 @@
+package com.bank.api.repository;
+
+import com.bank.api.entity.IdempotencyRecord;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Репозиторий для работы с ключами идемпотентности.
+ */
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+    /**
+     * Ищет ключ идемпотентности пользователя.
+     *
+     * @param username       логин пользователя
+     * @param idempotencyKey значение заголовка Idempotency-Key
+     * @return Optional с записью или пустой, если ключ не использовался
+     */
+    Optional<IdempotencyRecord> findByUsernameAndIdempotencyKey(String username, String idempotencyKey);
+
+    /**
+     * Удаляет ключи, срок хранения которых истёк.
+     *
+     * @param now текущее время
+     * @return число удалённых записей
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
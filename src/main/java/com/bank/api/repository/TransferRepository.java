@@ -1,12 +1,29 @@
 package com.bank.api.repository;
 
 import com.bank.api.entity.Transfer;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
 
 /**
  * Репозиторий для работы с сущностью Transfer.
  * <p>
- * Поддерживает CRUD операции с переводами между картами.
+ * Поддерживает CRUD операции с переводами между картами и пакетную вставку переводов.
  */
-public interface TransferRepository extends JpaRepository<Transfer, Long> {
+public interface TransferRepository extends JpaRepository<Transfer, Long>, TransferRepositoryCustom {
+
+    /**
+     * Возвращает зафиксированные переводы с ID больше заданного в порядке возрастания ID,
+     * не загружая карты.
+     *
+     * @param afterId  ID, после которого начинается выборка
+     * @param pageable размер выборки (используется только первая страница)
+     * @return переводы
+     */
+    @Query("select new com.bank.api.repository.TransferView(t.id, t.fromCard.id, t.toCard.id, " +
+            "t.amount, t.createdAt) from Transfer t where t.id > :afterId order by t.id asc")
+    List<TransferView> findCommittedAfter(@Param("afterId") long afterId, Pageable pageable);
 }
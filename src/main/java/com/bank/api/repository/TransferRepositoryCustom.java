@@ -0,0 +1,22 @@
+package com.bank.api.repository;
+
+import com.bank.api.entity.Transfer;
+
+import java.util.List;
+
+/**
+ * Дополнительные операции репозитория переводов, не выражаемые через Spring Data JPA.
+ */
+public interface TransferRepositoryCustom {
+
+    /**
+     * Вставляет записи о переводах одним пакетом JDBC в текущей транзакции.
+     * <p>
+     * Сущности не становятся управляемыми, их ID не заполняются: сгенерированные ключи
+     * возвращаются списком в порядке переводов.
+     *
+     * @param transfers переводы для вставки
+     * @return ID вставленных переводов
+     */
+    List<Long> insertAll(List<Transfer> transfers);
+}
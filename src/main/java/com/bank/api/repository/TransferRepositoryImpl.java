@@ -0,0 +1,64 @@
+package com.bank.api.repository;
+
+import com.bank.api.entity.Transfer;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Реализация {@link TransferRepositoryCustom} на JDBC.
+ * <p>
+ * Сущность Transfer использует IDENTITY-ключ, при котором Hibernate не объединяет вставки в пакеты,
+ * поэтому пакетная вставка выполняется напрямую через {@link JdbcTemplate}. Соединение берётся
+ * из текущей JPA-транзакции.
+ */
+public class TransferRepositoryImpl implements TransferRepositoryCustom {
+
+    private static final String INSERT_SQL =
+            "insert into transfers (from_card_id, to_card_id, amount, created_at) values (?, ?, ?, ?)";
+
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TransferRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<Long> insertAll(List<Transfer> transfers) {
+        List<Long> ids = new ArrayList<>(transfers.size());
+        for (int from = 0; from < transfers.size(); from += BATCH_SIZE) {
+            List<Transfer> chunk = transfers.subList(from, Math.min(from + BATCH_SIZE, transfers.size()));
+            KeyHolder keyHolder = new GeneratedKeyHolder();
+            jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_SQL, new String[]{"id"}),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            Transfer transfer = chunk.get(i);
+                            ps.setLong(1, transfer.getFromCard().getId());
+                            ps.setLong(2, transfer.getToCard().getId());
+                            ps.setBigDecimal(3, transfer.getAmount());
+                            ps.setTimestamp(4, Timestamp.valueOf(transfer.getCreatedAt()));
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return chunk.size();
+                        }
+                    }, keyHolder);
+            for (Map<String, Object> keys : keyHolder.getKeyList()) {
+                ids.add(((Number) keys.values().iterator().next()).longValue());
+            }
+        }
+        return ids;
+    }
+}
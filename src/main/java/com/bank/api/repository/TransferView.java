@@ -0,0 +1,17 @@
+package com.bank.api.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Проекция перевода без загрузки карт.
+ *
+ * @param transferId ID перевода
+ * @param fromCardId ID карты-отправителя
+ * @param toCardId   ID карты-получателя
+ * @param amount     сумма перевода
+ * @param createdAt  время перевода
+ */
+public record TransferView(Long transferId, Long fromCardId, Long toCardId,
+                           BigDecimal amount, LocalDateTime createdAt) {
+}
@@ -2,16 +2,27 @@ package com.bank.api.repository;
 
 
 import com.bank.api.entity.User;
+import jakarta.persistence.QueryHint;
+import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Репозиторий для работы с сущностью User.
  * <p>
  * Поддерживает поиск пользователя по логину и проверку существования пользователя.
  */
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
 
     /**
      * Ищет пользователя по логину.
@@ -28,4 +39,62 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * @return true, если пользователь существует
      */
     boolean existsByUsername(String username);
-}
\ No newline at end of file
+
+    /**
+     * Возвращает логины из списка, которые уже заняты.
+     * <p>
+     * Логины сравниваются по правилам уникального индекса, поэтому результат может отличаться
+     * от переданных логинов регистром.
+     *
+     * @param usernames проверяемые логины
+     * @return занятые логины в том виде, в каком они хранятся
+     */
+    @Query("select u.username from User u where u.username in :usernames")
+    List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    /**
+     * Ищет пользователей по списку логинов одним запросом.
+     *
+     * @param usernames логины пользователей
+     * @return найденные пользователи
+     */
+    List<User> findByUsernameIn(Collection<String> usernames);
+
+    /**
+     * Читает всех пользователей потоком для выгрузки.
+     * <p>
+     * Строки читаются курсором порциями по 1000, не собираясь в список; сущности загружаются
+     * только для чтения. Поток нужно закрыть, читать его можно только внутри транзакции.
+     *
+     * @return поток пользователей в порядке ID
+     */
+    @Query("select u from User u order by u.id asc")
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.fetchSize", value = "1000"),
+            @QueryHint(name = "org.hibernate.readOnly", value = "true")
+    })
+    Stream<User> streamAll();
+
+    /**
+     * Возвращает пользователей, входивших в систему не раньше указанного времени,
+     * начиная с последних вошедших.
+     *
+     * @param since    нижняя граница времени входа
+     * @param pageable ограничение числа пользователей
+     * @return пользователи в порядке убывания времени входа
+     */
+    @Query("select u from User u where u.lastLoginAt >= :since order by u.lastLoginAt desc")
+    List<User> findRecentlyActive(@Param("since") LocalDateTime since, Pageable pageable);
+
+    /**
+     * Запоминает время входа пользователя.
+     *
+     * @param id ID пользователя
+     * @param at время входа
+     * @return число изменённых строк
+     */
+    @Transactional
+    @Modifying
+    @Query("update User u set u.lastLoginAt = :at where u.id = :id")
+    int updateLastLoginAt(@Param("id") Long id, @Param("at") LocalDateTime at);
+}
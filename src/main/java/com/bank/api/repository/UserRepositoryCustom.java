@@ -0,0 +1,22 @@
+package com.bank.api.repository;
+
+import com.bank.api.entity.User;
+
+import java.util.List;
+
+/**
+ * Дополнительные операции репозитория пользователей, не выражаемые через Spring Data JPA.
+ */
+public interface UserRepositoryCustom {
+
+    /**
+     * Вставляет пользователей одним пакетом JDBC в отдельной транзакции.
+     * <p>
+     * Если вставка одной строки не удалась, не вставляется ни одна. Сущности не становятся
+     * управляемыми, их ID не заполняются.
+     *
+     * @param users пользователи для вставки
+     * @return число вставленных пользователей
+     */
+    int insertAll(List<User> users);
+}
@@ -0,0 +1,52 @@
+package com.bank.api.repository;
+
+import com.bank.api.entity.User;
+import jakarta.transaction.Transactional;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Реализация {@link UserRepositoryCustom} на JDBC.
+ * <p>
+ * Сущность User использует IDENTITY-ключ, при котором Hibernate не объединяет вставки в пакеты,
+ * поэтому пакетная вставка выполняется напрямую через {@link JdbcTemplate}; ID назначает база.
+ */
+public class UserRepositoryImpl implements UserRepositoryCustom {
+
+    private static final String INSERT_SQL =
+            "insert into users (username, password, role, enabled) values (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    @Transactional
+    public int insertAll(List<User> users) {
+        if (users.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                User user = users.get(i);
+                ps.setString(1, user.getUsername());
+                ps.setString(2, user.getPassword());
+                ps.setString(3, user.getRole().name());
+                ps.setBoolean(4, user.isEnabled());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return users.size();
+            }
+        });
+        return users.size();
+    }
+}
@@ -0,0 +1,38 @@
+package com.bank.api.repository;
+
+import com.bank.api.entity.UserTokenVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+/**
+ * Репозиторий версий токенов пользователей.
+ */
+public interface UserTokenVersionRepository extends JpaRepository<UserTokenVersion, Long> {
+
+    /**
+     * Увеличивает версию токенов пользователя на единицу, создавая строку с версией 1,
+     * если версия пользователя ещё не сохранялась.
+     * <p>
+     * Выполняется одним атомарным запросом, поэтому одновременные отзывы не конфликтуют
+     * по первичному ключу.
+     *
+     * @param userId ID пользователя
+     */
+    @Modifying
+    @Query(value = "insert into user_token_versions (user_id, version) values (:userId, 1) " +
+            "on duplicate key update version = version + 1", nativeQuery = true)
+    void increment(@Param("userId") Long userId);
+
+    /**
+     * Читает сохранённую версию токенов пользователя из базы.
+     *
+     * @param userId ID пользователя
+     * @return версия или пустой Optional, если версия не сохранялась
+     */
+    @Query("select v.version from UserTokenVersion v where v.userId = :userId")
+    Optional<Integer> findVersion(@Param("userId") Long userId);
+}
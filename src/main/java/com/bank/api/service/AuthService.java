@@ -4,22 +4,24 @@ import com.bank.api.dto.AuthRequestDto;
 import com.bank.api.dto.AuthResponseDto;
 import com.bank.api.dto.RegisterRequestDto;
 import com.bank.api.entity.Role;
+import com.bank.api.entity.User;
+import com.bank.api.exception.TooManyRequestsException;
 import com.bank.api.repository.UserRepository;
 import com.bank.api.util.JwtUtil;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
-import java.util.Collections;
+import java.time.LocalDateTime;
 
 /**
  * Сервис аутентификации пользователей.
  * <p>
- * Обрабатывает регистрацию и вход в систему.
+ * Обрабатывает регистрацию, вход и выход из системы.
  */
 @Service
 @RequiredArgsConstructor
@@ -29,6 +31,9 @@ public class AuthService implements AuthServiceInterface {
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtService;
     private final AuthenticationManager authenticationManager;
+    private final TokenVersionRegistry tokenVersions;
+    private final TokenRevocationList revocationList;
+    private final LoginThrottle loginThrottle;
 
     /**
      * Регистрация нового пользователя.
@@ -45,38 +50,50 @@ public class AuthService implements AuthServiceInterface {
 
         userRepository.save(user);
 
-        var userDetails = new org.springframework.security.core.userdetails.User(
-                user.getUsername(),
-                user.getPassword(),
-                Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + user.getRole().name()))
-        );
-
-        String token = jwtService.generateToken(userDetails);
+        String token = jwtService.generateToken(user, tokenVersions.currentVersion(user.getId()));
         return new AuthResponseDto(token);
     }
 
     /**
      * Авторизация пользователя (логин).
+     * <p>
+     * Пользователь берётся из результата аутентификации и повторно из базы не читается;
+     * время входа запоминается для прогрева {@link UserDetailsCache} при запуске.
+     * Частота попыток ограничивается по логину и адресу клиента до проверки пароля.
      *
-     * @param request DTO с данными авторизации (username, password)
+     * @param request       DTO с данными авторизации (username, password)
+     * @param clientAddress адрес клиента
      * @return DTO с JWT токеном пользователя
      *
      * @throws AuthenticationException если логин или пароль неверные
+     * @throws TooManyRequestsException если превышен лимит попыток или очередь хеширования заполнена
      */
-    public AuthResponseDto login(AuthRequestDto request) {
-        authenticationManager.authenticate(
+    public AuthResponseDto login(AuthRequestDto request, String clientAddress) {
+        loginThrottle.acquire(request.getUsername(), clientAddress);
+        Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(
                         request.getUsername(),
                         request.getPassword()
                 )
         );
 
-        var user = userRepository.findByUsername(request.getUsername())
-                .orElseThrow();
+        User user = ((CustomUserDetails) authentication.getPrincipal()).getUser();
+        userRepository.updateLastLoginAt(user.getId(), LocalDateTime.now());
 
-
-        var userDetails = new CustomUserDetails(user);
-        String token = jwtService.generateToken(userDetails);
+        String token = jwtService.generateToken(user, tokenVersions.currentVersion(user.getId()));
         return new AuthResponseDto(token);
     }
+
+    /**
+     * Выход пользователя.
+     * <p>
+     * Токен отзывается до истечения срока действия; недействительные и истёкшие токены игнорируются.
+     *
+     * @param token JWT токен
+     */
+    public void logout(String token) {
+        jwtService.parseValidClaims(token)
+                .filter(claims -> claims.tokenId() != null)
+                .ifPresent(claims -> revocationList.revoke(claims.tokenId(), claims.userId(), claims.expiresAt()));
+    }
 }
@@ -7,7 +7,7 @@ import com.bank.api.dto.RegisterRequestDto;
 /**
  * Интерфейс для сервиса аутентификации.
  * <p>
- * Определяет методы регистрации и логина пользователя.
+ * Определяет методы регистрации, логина и выхода пользователя.
  */
 public interface AuthServiceInterface {
 
@@ -22,8 +22,16 @@ public interface AuthServiceInterface {
     /**
      * Логин пользователя и генерация токена.
      *
-     * @param request DTO с логином и паролем
+     * @param request       DTO с логином и паролем
+     * @param clientAddress адрес клиента для ограничения частоты попыток
      * @return DTO с JWT токеном
      */
-    AuthResponseDto login(AuthRequestDto request);
+    AuthResponseDto login(AuthRequestDto request, String clientAddress);
+
+    /**
+     * Выход пользователя: отзывает переданный токен.
+     *
+     * @param token JWT токен
+     */
+    void logout(String token);
 }
@@ -0,0 +1,71 @@
+package com.bank.api.service;
+
+import com.bank.api.entity.Role;
+import com.bank.api.util.JwtClaims;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Пользователь, аутентифицированный по JWT.
+ * <p>
+ * Строится из данных проверенного токена без обращения к базе. Пароля не содержит;
+ * заблокированный или удалённый пользователь отсекается проверкой версии токена
+ * ({@link TokenVersionRegistry}), поэтому учётная запись считается активной.
+ */
+public class AuthenticatedUser implements UserDetails {
+
+    private final Long id;
+    private final String username;
+    private final Role role;
+    private final List<GrantedAuthority> authorities;
+
+    public AuthenticatedUser(Long id, String username, Role role) {
+        this.id = id;
+        this.username = username;
+        this.role = role;
+        this.authorities = List.of(new SimpleGrantedAuthority("ROLE_" + role.name()));
+    }
+
+    /**
+     * Создаёт пользователя из данных токена.
+     *
+     * @param claims данные проверенного токена
+     * @return аутентифицированный пользователь
+     */
+    public static AuthenticatedUser from(JwtClaims claims) {
+        return new AuthenticatedUser(claims.userId(), claims.username(), claims.role());
+    }
+
+    /**
+     * Возвращает ID пользователя.
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Возвращает роль пользователя.
+     */
+    public Role getRole() {
+        return role;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+}
@@ -0,0 +1,200 @@
+package com.bank.api.service;
+
+import com.bank.api.entity.Card;
+import com.bank.api.repository.CardBalanceView;
+import com.bank.api.repository.CardRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Кэш балансов карт в памяти узла.
+ * <p>
+ * Хранит для карты её владельца и полный остаток (вместе со слотами горячей карты). Сервис карт
+ * обновляет кэш после фиксации транзакции: новый остаток обычной карты записывается в кэш сразу,
+ * запись горячей карты удаляется. Из двух записей об одной карте остаётся запись с большей версией
+ * строки, поэтому поздно выполненный обработчик фиксации не затирает более новый остаток.
+ * Обработчики фиксации кэша выполняются раньше остальных, в частности до увеличения счётчика
+ * {@link CardChangeTracker}: новый ETag не может появиться раньше нового остатка в кэше.
+ * <p>
+ * Промах читает карту одним запросом {@link CardRepository#findBalanceView} и кладёт результат
+ * в кэш, только если с начала чтения по карте не было зафиксированных изменений: для этого
+ * каждая фиксация увеличивает счётчик полосы карты. Прочитанное до перевода значение не может
+ * попасть в кэш после него.
+ * <p>
+ * Кэш локален для узла; изменения, сделанные другими узлами, становятся видны не позже
+ * истечения срока хранения записи. Статистика публикуется метриками {@code cache.*}
+ * с тегом {@code cache=card.balance}.
+ */
+@Component
+public class CardBalanceCache {
+
+    private static final int STRIPES = 4096;
+
+    /**
+     * Закэшированный баланс карты.
+     *
+     * @param ownerId ID владельца
+     * @param balance полный остаток карты
+     * @param version версия строки карты, по которой упорядочиваются записи
+     */
+    public record Entry(Long ownerId, BigDecimal balance, long version) {
+    }
+
+    private final CardRepository cardRepository;
+    private final Cache<Long, Entry> cache;
+    private final AtomicLongArray changeCounters = new AtomicLongArray(STRIPES);
+
+    public CardBalanceCache(CardRepository cardRepository,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.card.balance-cache.max-size:100000}") long maxSize,
+                            @Value("${app.card.balance-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.cardRepository = cardRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "card.balance");
+    }
+
+    /**
+     * Возвращает баланс карты из кэша, а при промахе читает его из БД.
+     *
+     * @param cardId ID карты
+     * @return баланс или пустой Optional, если карты нет
+     */
+    public Optional<Entry> get(Long cardId) {
+        Entry cached = cache.getIfPresent(cardId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        long counter = changeCounters.get(stripe(cardId));
+        return cardRepository.findBalanceView(cardId)
+                .map(view -> store(view, counter));
+    }
+
+    /**
+     * Возвращает балансы нескольких карт; все промахи читаются из БД одним запросом.
+     *
+     * @param cardIds ID карт
+     * @return балансы найденных карт по ID
+     */
+    public Map<Long, Entry> getAll(Collection<Long> cardIds) {
+        Map<Long, Entry> result = new HashMap<>(cache.getAllPresent(cardIds));
+        Map<Long, Long> counters = new HashMap<>();
+        for (Long cardId : cardIds) {
+            if (!result.containsKey(cardId)) {
+                counters.put(cardId, changeCounters.get(stripe(cardId)));
+            }
+        }
+        if (!counters.isEmpty()) {
+            for (CardBalanceView view : cardRepository.findBalanceViews(counters.keySet())) {
+                Long counter = counters.get(view.cardId());
+                if (counter != null) {
+                    result.put(view.cardId(), store(view, counter));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Записывает остаток карты в кэш после фиксации текущей транзакции.
+     * <p>
+     * Владелец запоминается сразу, а остаток и версия читаются из карты после фиксации, поэтому
+     * несколько изменений одной карты в транзакции дают одну итоговую запись. Для горячей карты
+     * запись удаляется: её остаток складывается в слотах. Без активной транзакции кэш обновляется сразу.
+     *
+     * @param card изменённая карта
+     */
+    public void putOnCommit(Card card) {
+        if (card.getId() == null) {
+            return;
+        }
+        if (card.isHot() || card.getOwner() == null) {
+            invalidateOnCommit(card.getId());
+            return;
+        }
+        Long ownerId = card.getOwner().getId();
+        afterCommit(() -> {
+            Long cardId = card.getId();
+            Entry entry = new Entry(ownerId, card.getBalance(), versionOf(card.getVersion()));
+            changeCounters.incrementAndGet(stripe(cardId));
+            cache.asMap().merge(cardId, entry, (current, updated) -> isNewer(current, updated) ? current : updated);
+        });
+    }
+
+    /**
+     * Удаляет карту из кэша после фиксации текущей транзакции; без активной транзакции — сразу.
+     *
+     * @param cardId ID карты
+     */
+    public void invalidateOnCommit(Long cardId) {
+        if (cardId == null) {
+            return;
+        }
+        afterCommit(() -> {
+            changeCounters.incrementAndGet(stripe(cardId));
+            cache.invalidate(cardId);
+        });
+    }
+
+    /** Кладёт прочитанный баланс в кэш, если после начала чтения карта не изменялась */
+    private Entry store(CardBalanceView view, long counter) {
+        Entry loaded = entry(view);
+        int stripe = stripe(view.cardId());
+        cache.asMap().compute(view.cardId(), (id, current) ->
+                changeCounters.get(stripe) != counter || isNewer(current, loaded) ? current : loaded);
+        return loaded;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+
+            @Override
+            public int getOrder() {
+                return Ordered.HIGHEST_PRECEDENCE;
+            }
+        });
+    }
+
+    /** Возвращает true, если закэшированная запись новее кандидата */
+    private static boolean isNewer(Entry current, Entry candidate) {
+        return current != null && current.version() > candidate.version();
+    }
+
+    private static Entry entry(CardBalanceView view) {
+        return new Entry(view.ownerId(), view.balance(), versionOf(view.version()));
+    }
+
+    private static long versionOf(Long version) {
+        return version == null ? -1 : version;
+    }
+
+    private static int stripe(Long cardId) {
+        return Long.hashCode(cardId * 0x9E3779B97F4A7C15L) & (STRIPES - 1);
+    }
+}
@@ -0,0 +1,118 @@
+package com.bank.api.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Счётчики изменений карт пользователей для условных GET-запросов.
+ * <p>
+ * Каждое изменение карт пользователя (перевод, смена статуса, выпуск и удаление карты)
+ * после фиксации транзакции увеличивает счётчик его полосы. ETag ответа строится из счётчика,
+ * поэтому его можно сравнить с {@code If-None-Match} до любого запроса к картам. Счётчик
+ * увеличивается только после фиксации: ответ, прочитанный до увеличения, может получить старый
+ * ETag вместе с новыми данными, но не наоборот. По той же причине счётчик увеличивается последним
+ * из обработчиков фиксации, после обновления {@link CardBalanceCache}.
+ * <p>
+ * Память фиксирована: пользователи распределены по полосам по хешу ID. Изменение у соседа
+ * по полосе только меняет ETag без необходимости, а ID пользователя входит в ETag, поэтому ответы
+ * разных пользователей не совпадают. Метка запуска в ETag не даёт счётчикам, начавшимся после
+ * перезапуска заново, повторить старые значения.
+ * <p>
+ * Как и {@link CardBalanceCache}, счётчики локальны для узла: изменения, выполненные другим
+ * узлом, здесь не видны. Поэтому ETag действует не дольше {@code app.card.etag.max-age-ms}:
+ * в него входит номер интервала времени такой длины, и с началом следующего интервала ответ
+ * строится заново. Изменение, сделанное на другом узле, становится видно клиенту не позже
+ * чем через этот интервал.
+ */
+@Component
+public class CardChangeTracker {
+
+    private final AtomicLongArray counters;
+    private final String epoch;
+    private final long maxAgeMs;
+    private final LongSupplier clock;
+
+    @Autowired
+    public CardChangeTracker(@Value("${app.card.etag.stripes:65536}") int stripes,
+                             @Value("${app.card.etag.max-age-ms:5000}") long maxAgeMs) {
+        this(stripes, maxAgeMs, System::currentTimeMillis);
+    }
+
+    CardChangeTracker(int stripes, long maxAgeMs, LongSupplier clock) {
+        this.counters = new AtomicLongArray(Math.max(1, stripes));
+        this.epoch = Long.toHexString(clock.getAsLong()) + Integer.toHexString(ThreadLocalRandom.current().nextInt());
+        this.maxAgeMs = Math.max(1, maxAgeMs);
+        this.clock = clock;
+    }
+
+    /**
+     * Возвращает ETag текущего состояния карт пользователя.
+     *
+     * @param userId ID пользователя
+     * @return ETag в кавычках
+     */
+    public String getETag(Long userId) {
+        long counter = counters.get(stripe(userId));
+        long window = clock.getAsLong() / maxAgeMs;
+        return "\"" + epoch + '-' + Long.toHexString(window) + '-' + counter + '-' + Long.toHexString(userId) + "\"";
+    }
+
+    /**
+     * Отмечает изменение карт пользователя после фиксации текущей транзакции
+     * (сразу, если транзакции нет).
+     *
+     * @param userId ID пользователя
+     */
+    public void bumpOnCommit(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bump(userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                bump(userId);
+            }
+
+            @Override
+            public int getOrder() {
+                return Ordered.LOWEST_PRECEDENCE;
+            }
+        });
+    }
+
+    /**
+     * Отмечает зафиксированное изменение баланса или статуса карты.
+     *
+     * @param event изменение карты
+     */
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCardChanged(CardChangedEvent event) {
+        if (event.ownerId() != null) {
+            bump(event.ownerId());
+        }
+    }
+
+    private void bump(Long userId) {
+        counters.incrementAndGet(stripe(userId));
+    }
+
+    private int stripe(Long userId) {
+        return Math.floorMod(Long.hashCode(userId * 0x9E3779B97F4A7C15L), counters.length());
+    }
+}
@@ -0,0 +1,32 @@
+package com.bank.api.service;
+
+import com.bank.api.entity.Card;
+import com.bank.api.entity.CardStatus;
+
+import java.math.BigDecimal;
+
+/**
+ * Событие об изменении баланса или статуса карты.
+ * <p>
+ * Публикуется {@link CardService} внутри транзакции; {@link CardEventHub} получает его после
+ * фиксации и передаёт подписчикам владельца карты.
+ *
+ * @param type    что изменилось
+ * @param cardId  ID карты
+ * @param ownerId ID владельца
+ * @param balance новый остаток или null, если его нужно перечитать (горячая карта, условный перевод)
+ * @param status  статус карты
+ */
+public record CardChangedEvent(Type type, Long cardId, Long ownerId, BigDecimal balance, CardStatus status) {
+
+    /** Вид изменения */
+    public enum Type {
+        BALANCE, STATUS
+    }
+
+    /** Создаёт событие по изменённой карте; остаток горячей карты не передаётся */
+    static CardChangedEvent of(Type type, Card card) {
+        return new CardChangedEvent(type, card.getId(), card.getOwner().getId(),
+                card.isHot() ? null : card.getBalance(), card.getStatus());
+    }
+}
@@ -0,0 +1,320 @@
+package com.bank.api.service;
+
+import com.bank.api.dto.CardEventDto;
+import com.bank.api.exception.TooManyRequestsException;
+import com.bank.api.repository.CardBalanceView;
+import com.bank.api.repository.CardRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Раздача событий об изменении карт подписчикам Server-Sent Events.
+ * <p>
+ * Подписчики группируются по ID пользователя. После фиксации транзакции {@link CardChangedEvent} кладётся
+ * в ограниченный буфер каждого подписчика владельца карты; поток фиксации не пишет в сокет
+ * и не ждёт клиентов. Буферы отправляются небольшим пулом потоков, для каждого подписчика
+ * не более одной отправки одновременно, поэтому порядок событий сохраняется.
+ * <p>
+ * Если буфер подписчика переполнен, подписчик считается медленным и отключается; клиент
+ * переподключается и получает актуальное состояние заново. Периодический пинг держит соединение
+ * открытым и обнаруживает разорванные соединения.
+ * <p>
+ * Отправка одному клиенту занимает поток пула не дольше {@code app.card.events.send-timeout-ms}:
+ * подписчик, отправка которому зависла, отключается, а поток отправки прерывается. Несколько
+ * зависших клиентов не останавливают доставку остальным дольше этого срока.
+ */
+@Component
+public class CardEventHub {
+
+    private static final Logger log = LoggerFactory.getLogger(CardEventHub.class);
+
+    /** Сообщение в буфере подписчика; без события — пинг */
+    private record Message(String name, CardChangedEvent event) {
+    }
+
+    private static final Message HEARTBEAT = new Message(null, null);
+
+    /** Подключённый клиент */
+    private static final class Subscriber {
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Message> buffer;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private final AtomicBoolean completed = new AtomicBoolean();
+        private volatile boolean completeOnClose;
+        /** Поток, выполняющий отправку, и момент её начала (System.nanoTime); защищены монитором подписчика */
+        private Thread sender;
+        private long sendStartedAt;
+
+        private Subscriber(Long userId, SseEmitter emitter, int bufferSize) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+    }
+
+    private final CardRepository cardRepository;
+    private final int bufferSize;
+    private final long timeoutMs;
+    private final int maxSubscribers;
+    private final long sendTimeoutNanos;
+    private final ConcurrentMap<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ExecutorService senders;
+    private final Counter dropped;
+    private final Counter stalled;
+
+    public CardEventHub(CardRepository cardRepository,
+                        MeterRegistry meterRegistry,
+                        @Value("${app.card.events.buffer-size:64}") int bufferSize,
+                        @Value("${app.card.events.timeout-ms:1800000}") long timeoutMs,
+                        @Value("${app.card.events.max-subscribers:10000}") int maxSubscribers,
+                        @Value("${app.card.events.sender-threads:4}") int senderThreads,
+                        @Value("${app.card.events.send-timeout-ms:10000}") long sendTimeoutMs) {
+        this.cardRepository = cardRepository;
+        this.bufferSize = Math.max(1, bufferSize);
+        this.timeoutMs = timeoutMs;
+        this.maxSubscribers = maxSubscribers;
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, sendTimeoutMs));
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(Math.max(1, senderThreads), task -> {
+            Thread thread = new Thread(task, "card-events-" + threadIndex.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.dropped = Counter.builder("card.events.dropped")
+                .description("Event subscribers disconnected because their buffer was full")
+                .register(meterRegistry);
+        this.stalled = Counter.builder("card.events.stalled")
+                .description("Event subscribers disconnected because a send to them did not finish in time")
+                .register(meterRegistry);
+        Gauge.builder("card.events.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Connected card event subscribers")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Подписывает пользователя на события его карт.
+     *
+     * @param userId ID пользователя
+     * @return поток событий
+     * @throws TooManyRequestsException если достигнуто максимальное число подписчиков узла
+     */
+    public SseEmitter subscribe(Long userId) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new TooManyRequestsException("Too many event subscribers, try again later");
+        }
+        Subscriber subscriber = new Subscriber(userId, createEmitter(timeoutMs), bufferSize);
+        subscribers.compute(userId, (key, set) -> {
+            Set<Subscriber> result = set != null ? set : ConcurrentHashMap.newKeySet();
+            result.add(subscriber);
+            return result;
+        });
+        subscriber.emitter.onCompletion(() -> close(subscriber, false));
+        subscriber.emitter.onError(e -> close(subscriber, false));
+        subscriber.emitter.onTimeout(() -> close(subscriber, true));
+        return subscriber.emitter;
+    }
+
+    /**
+     * Передаёт зафиксированное изменение карты подписчикам её владельца.
+     *
+     * @param event изменение карты
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCardChanged(CardChangedEvent event) {
+        Set<Subscriber> targets = subscribers.get(event.ownerId());
+        if (targets == null) {
+            return;
+        }
+        Message message = new Message(event.type() == CardChangedEvent.Type.BALANCE ? "balance" : "status", event);
+        for (Subscriber subscriber : targets) {
+            offer(subscriber, message);
+        }
+    }
+
+    /** Отправляет пинг всем подписчикам */
+    @Scheduled(fixedDelayString = "${app.card.events.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (Set<Subscriber> set : subscribers.values()) {
+            for (Subscriber subscriber : set) {
+                offer(subscriber, HEARTBEAT);
+            }
+        }
+    }
+
+    /** Отключает подписчиков, отправка которым длится дольше {@code app.card.events.send-timeout-ms} */
+    @Scheduled(fixedDelayString = "${app.card.events.send-check-ms:1000}")
+    public void disconnectStalled() {
+        long now = System.nanoTime();
+        for (Set<Subscriber> set : subscribers.values()) {
+            for (Subscriber subscriber : set) {
+                synchronized (subscriber) {
+                    if (subscriber.sender == null || now - subscriber.sendStartedAt < sendTimeoutNanos) {
+                        continue;
+                    }
+                    subscriber.sender.interrupt();
+                }
+                stalled.increment();
+                log.debug("Disconnecting stalled card event subscriber of user {}", subscriber.userId);
+                close(subscriber, true);
+            }
+        }
+    }
+
+    /** Возвращает число подключённых подписчиков */
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    /** Закрывает все подписки и останавливает потоки отправки */
+    @PreDestroy
+    public void shutdown() {
+        for (Set<Subscriber> set : subscribers.values()) {
+            for (Subscriber subscriber : set) {
+                close(subscriber, true);
+            }
+        }
+        senders.shutdown();
+        try {
+            senders.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Создаёт поток для нового подписчика */
+    SseEmitter createEmitter(long timeoutMs) {
+        return new SseEmitter(timeoutMs);
+    }
+
+    /** Кладёт сообщение в буфер подписчика; при переполнении отключает его */
+    private void offer(Subscriber subscriber, Message message) {
+        if (subscriber.buffer.offer(message)) {
+            scheduleDrain(subscriber);
+            return;
+        }
+        dropped.increment();
+        log.debug("Disconnecting slow card event subscriber of user {}", subscriber.userId);
+        close(subscriber, true);
+    }
+
+    /**
+     * Отключает подписчика. Завершение потока выполняется потоком отправки: отправка может
+     * ждать медленного клиента, и поток фиксации не должен ждать вместе с ней.
+     */
+    private void close(Subscriber subscriber, boolean complete) {
+        if (complete) {
+            subscriber.completeOnClose = true;
+        }
+        if (!subscriber.closed.compareAndSet(false, true)) {
+            if (complete) {
+                scheduleDrain(subscriber);
+            }
+            return;
+        }
+        subscribers.computeIfPresent(subscriber.userId, (key, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+        subscriberCount.decrementAndGet();
+        scheduleDrain(subscriber);
+    }
+
+    private void scheduleDrain(Subscriber subscriber) {
+        if (subscriber.draining.compareAndSet(false, true)) {
+            try {
+                senders.execute(() -> drain(subscriber));
+            } catch (RuntimeException e) {
+                subscriber.draining.set(false);
+            }
+        }
+    }
+
+    /**
+     * Отправляет накопленные сообщения подписчика; для одного подписчика выполняется не более одного раза одновременно.
+     * <p>
+     * После снятия флага {@code draining} состояние проверяется заново: сообщение или закрытие,
+     * пришедшие, пока флаг был установлен, не могли запустить отправку сами.
+     */
+    private void drain(Subscriber subscriber) {
+        try {
+            Message message;
+            while (!subscriber.closed.get() && (message = subscriber.buffer.poll()) != null) {
+                send(subscriber, message);
+            }
+        } catch (IOException | IllegalStateException e) {
+            close(subscriber, false);
+        } finally {
+            if (subscriber.closed.get()) {
+                subscriber.buffer.clear();
+                if (subscriber.completeOnClose && subscriber.completed.compareAndSet(false, true)) {
+                    subscriber.emitter.complete();
+                }
+            }
+            subscriber.draining.set(false);
+        }
+        boolean pending = subscriber.closed.get()
+                ? subscriber.completeOnClose && !subscriber.completed.get()
+                : !subscriber.buffer.isEmpty();
+        if (pending) {
+            scheduleDrain(subscriber);
+        }
+    }
+
+    /** Отправляет сообщение, отмечая начало отправки для {@link #disconnectStalled()} */
+    private void send(Subscriber subscriber, Message message) throws IOException {
+        SseEmitter.SseEventBuilder event = toSseEvent(message);
+        synchronized (subscriber) {
+            subscriber.sender = Thread.currentThread();
+            subscriber.sendStartedAt = System.nanoTime();
+        }
+        try {
+            subscriber.emitter.send(event);
+        } finally {
+            synchronized (subscriber) {
+                subscriber.sender = null;
+                // прерывание, пришедшее от disconnectStalled, относится только к этой отправке
+                Thread.interrupted();
+            }
+        }
+    }
+
+    private SseEmitter.SseEventBuilder toSseEvent(Message message) {
+        if (message.event() == null) {
+            return SseEmitter.event().comment("ping");
+        }
+        CardChangedEvent event = message.event();
+        BigDecimal balance = event.balance() != null ? event.balance()
+                : cardRepository.findBalanceView(event.cardId()).map(CardBalanceView::balance).orElse(null);
+        return SseEmitter.event()
+                .name(message.name())
+                .data(new CardEventDto(event.cardId(), balance, event.status()), MediaType.APPLICATION_JSON);
+    }
+}
@@ -1,38 +1,109 @@
 package com.bank.api.service;
 
 import com.bank.api.dto.CardDto;
+import com.bank.api.dto.CardIssueErrorDto;
+import com.bank.api.dto.CardIssueProgressDto;
+import com.bank.api.dto.CardIssueRequestDto;
+import com.bank.api.dto.CardSliceDto;
+import com.bank.api.dto.TransferBatchResultDto;
+import com.bank.api.dto.TransferLegResultDto;
 import com.bank.api.dto.TransferRequestDto;
 import com.bank.api.entity.*;
+import com.bank.api.exception.BusinessException;
+import com.bank.api.exception.CardConflictException;
 import com.bank.api.repository.*;
+import com.bank.api.util.CardCursor;
 import com.bank.api.util.CardUtil;
 import com.bank.api.util.CardValidator;
 import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Сервис для работы с банковскими картами.
  * <p>
  * Обрабатывает создание карт, блокировку, активацию, удаление и переводы между картами.
+ * <p>
+ * Open-in-view выключен, поэтому методы, читающие ленивые связи карты, выполняются в собственной
+ * короткой транзакции: соединение из пула занято только на время работы с БД. Переводы открывают
+ * транзакции сами через {@link TransferRetryExecutor} и не должны вызываться внутри внешней транзакции.
+ * <p>
+ * Методы чтения не загружают сущности: каждый выполняет один запрос-проекцию {@link CardRepository},
+ * возвращающий готовые DTO (для страниц с номером к нему добавляется подсчёт карт).
  */
 @Service
 public class CardService implements CardServiceInterface {
 
+    /** Максимальное число плеч в пакетном переводе */
+    static final int MAX_BATCH_LEGS = 100;
+
+    /** Максимальное число карт в одном запросе балансов */
+    static final int MAX_BALANCE_LOOKUP = 100;
+
+    /** Максимальный размер порции при чтении карт по курсору */
+    static final int MAX_SLICE_SIZE = 100;
+
+    /** Число карт массового выпуска, вставляемых в одной транзакции */
+    static final int ISSUE_CHUNK_SIZE = 1000;
+
+    /** Число попыток вставить порцию карт, если номер заняли параллельно */
+    private static final int ISSUE_MAX_ATTEMPTS = 3;
+
     private final CardRepository cardRepository;
     private final UserRepository userRepository;
     private final TransferRepository transferRepository;
+    private final TransferRetryExecutor transferRetryExecutor;
+    private final StripedCardLockManager cardLockManager;
+    private final HotCardBalanceManager hotCards;
+    private final CardBalanceCache balanceCache;
+    private final CardChangeTracker changeTracker;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransferMode transferMode;
 
     public CardService(CardRepository cardRepository,
                        UserRepository userRepository,
-                       TransferRepository transferRepository) {
+                       TransferRepository transferRepository,
+                       TransferRetryExecutor transferRetryExecutor,
+                       StripedCardLockManager cardLockManager,
+                       HotCardBalanceManager hotCards,
+                       CardBalanceCache balanceCache,
+                       CardChangeTracker changeTracker,
+                       ApplicationEventPublisher eventPublisher,
+                       @Value("${app.transfer.mode:PESSIMISTIC}") TransferMode transferMode) {
         this.cardRepository = cardRepository;
         this.userRepository = userRepository;
         this.transferRepository = transferRepository;
+        this.transferRetryExecutor = transferRetryExecutor;
+        this.cardLockManager = cardLockManager;
+        this.hotCards = hotCards;
+        this.balanceCache = balanceCache;
+        this.changeTracker = changeTracker;
+        this.eventPublisher = eventPublisher;
+        this.transferMode = transferMode;
     }
 
     /**
@@ -42,10 +113,65 @@ public class CardService implements CardServiceInterface {
      */
     @Override
     public List<CardDto> getAllCards() {
-        return cardRepository.findAll()
-                .stream()
-                .map(CardDto::fromEntity)
-                .collect(Collectors.toList());
+        return cardRepository.findAllCardDtos();
+    }
+
+    /**
+     * Выгружает все карты, читая их из базы потоком.
+     * <p>
+     * Карты читаются проекцией в DTO, поэтому в контексте персистентности ничего не накапливается
+     * и память не зависит от числа карт.
+     *
+     * @param sink обработчик, вызываемый для каждой карты
+     */
+    @Override
+    @Transactional
+    public void exportCards(Consumer<CardDto> sink) {
+        try (Stream<CardDto> cards = cardRepository.streamAllCardDtos()) {
+            cards.forEach(sink);
+        }
+    }
+
+    /**
+     * Ищет карты по условиям администратора.
+     * <p>
+     * Карты возвращаются в порядке ID; курсор следующей порции указывает на последнюю карту
+     * (статус в нём не используется). Запрашивается на одну карту больше размера порции,
+     * чтобы узнать, есть ли следующая, без подсчёта общего числа.
+     *
+     * @param criteria условия поиска
+     * @param cursor   курсор из предыдущей порции или null
+     * @param size     размер порции
+     * @return порция карт и курсор следующей порции
+     * @throws BusinessException если размер порции или диапазоны заданы неверно
+     */
+    @Override
+    public CardSliceDto searchCards(CardSearchCriteria criteria, String cursor, int size) {
+        if (size < 1 || size > MAX_SLICE_SIZE) {
+            throw new BusinessException("Slice size must be between 1 and " + MAX_SLICE_SIZE);
+        }
+        if (criteria.expiresFrom() != null && criteria.expiresTo() != null
+                && criteria.expiresFrom().isAfter(criteria.expiresTo())) {
+            throw new BusinessException("Expiration range is empty");
+        }
+        if (criteria.balanceFrom() != null && criteria.balanceTo() != null
+                && criteria.balanceFrom().compareTo(criteria.balanceTo()) > 0) {
+            throw new BusinessException("Balance range is empty");
+        }
+        String ownerPrefix = criteria.ownerPrefix() == null || criteria.ownerPrefix().isBlank()
+                ? null : criteria.ownerPrefix().trim();
+        CardSearchCriteria normalized = new CardSearchCriteria(criteria.status(), ownerPrefix,
+                criteria.expiresFrom(), criteria.expiresTo(), criteria.balanceFrom(), criteria.balanceTo());
+        Long afterId = cursor == null || cursor.isBlank() ? null : CardCursor.decode(cursor).id();
+
+        List<CardDto> cards = cardRepository.searchCardDtos(normalized, afterId, size + 1);
+        String nextCursor = null;
+        if (cards.size() > size) {
+            cards = cards.subList(0, size);
+            CardDto last = cards.get(size - 1);
+            nextCursor = new CardCursor(last.getStatus(), last.getId()).encode();
+        }
+        return new CardSliceDto(cards, nextCursor);
     }
 
     /**
@@ -67,7 +193,117 @@ public class CardService implements CardServiceInterface {
         card.setBalance(CardUtil.defaultBalance(cardDto.getBalance()));
 
         cardRepository.save(card);
-        return CardDto.fromEntity(card);
+        changeTracker.bumpOnCommit(user.getId());
+        return CardDto.fromEntity(card, card.getBalance());
+    }
+
+    /**
+     * Выпускает карты массово.
+     * <p>
+     * Карты обрабатываются порциями по {@value #ISSUE_CHUNK_SIZE}. Для каждой порции владельцы
+     * находятся одним запросом, номера генерируются сразу для всей порции и проверяются на
+     * занятость одним запросом, а карты вставляются одним пакетом JDBC в отдельной короткой
+     * транзакции. Выпущенные порции остаются выпущенными, даже если выпуск прерван.
+     * <p>
+     * После фиксации каждой порции обработчику передаётся ход выпуска с ошибками этой порции.
+     * Карта с неизвестным владельцем или без срока действия пропускается.
+     *
+     * @param requests владельцы и параметры карт
+     * @param progress обработчик, получающий ход выпуска после каждой порции
+     * @throws BusinessException если список карт пуст
+     */
+    @Override
+    public void issueCards(List<CardIssueRequestDto> requests, Consumer<CardIssueProgressDto> progress) {
+        if (requests == null || requests.isEmpty()) {
+            throw new BusinessException("Card issue list is empty");
+        }
+        long issued = 0;
+        for (int from = 0; from < requests.size(); from += ISSUE_CHUNK_SIZE) {
+            int to = Math.min(from + ISSUE_CHUNK_SIZE, requests.size());
+            List<CardIssueErrorDto> errors = new ArrayList<>();
+            issued += issueChunk(requests.subList(from, to), from, errors);
+            progress.accept(new CardIssueProgressDto(requests.size(), to, issued, errors));
+        }
+    }
+
+    /**
+     * Выпускает порцию карт.
+     *
+     * @param chunk  карты порции
+     * @param offset номер первой карты порции в запросе
+     * @param errors список, в который добавляются ошибки карт порции
+     * @return число выпущенных карт
+     */
+    private int issueChunk(List<CardIssueRequestDto> chunk, int offset, List<CardIssueErrorDto> errors) {
+        Set<String> usernames = chunk.stream()
+                .map(CardIssueRequestDto::getUsername)
+                .filter(username -> username != null && !username.isBlank())
+                .collect(Collectors.toSet());
+        Map<String, User> owners = usernames.isEmpty() ? Map.of() : userRepository.findByUsernameIn(usernames).stream()
+                .collect(Collectors.toMap(user -> user.getUsername().toLowerCase(Locale.ROOT), Function.identity(),
+                        (first, second) -> first));
+
+        List<Card> cards = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            CardIssueRequestDto request = chunk.get(i);
+            User owner = request.getUsername() == null ? null : owners.get(request.getUsername().toLowerCase(Locale.ROOT));
+            if (owner == null) {
+                errors.add(new CardIssueErrorDto(offset + i, request.getUsername(), "User not found"));
+            } else if (request.getExpirationDate() == null) {
+                errors.add(new CardIssueErrorDto(offset + i, request.getUsername(), "Expiration date is required"));
+            } else {
+                Card card = new Card();
+                card.setOwner(owner);
+                card.setExpirationDate(request.getExpirationDate());
+                card.setStatus(CardUtil.determineInitialStatus(request.getExpirationDate()));
+                card.setBalance(CardUtil.defaultBalance(request.getBalance()));
+                cards.add(card);
+            }
+        }
+        if (cards.isEmpty()) {
+            return 0;
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            List<String> numbers = generateFreeCardNumbers(cards.size());
+            for (int i = 0; i < cards.size(); i++) {
+                cards.get(i).setNumber(numbers.get(i));
+            }
+            try {
+                int inserted = cardRepository.insertAll(cards);
+                cards.stream().map(card -> card.getOwner().getId()).distinct().forEach(changeTracker::bumpOnCommit);
+                return inserted;
+            } catch (DuplicateKeyException e) {
+                if (attempt == ISSUE_MAX_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Генерирует различные номера карт, не занятые в базе.
+     * <p>
+     * Номера порождаются сразу для всей порции; занятые отбрасываются по результату одного
+     * запроса и генерируются заново, пока не наберётся нужное число.
+     *
+     * @param count число номеров
+     * @return номера карт
+     */
+    private List<String> generateFreeCardNumbers(int count) {
+        Set<String> numbers = new LinkedHashSet<>(count * 2);
+        while (numbers.size() < count) {
+            Set<String> candidates = new HashSet<>();
+            while (candidates.size() < count - numbers.size()) {
+                String number = CardUtil.generateCardNumber();
+                if (!numbers.contains(number)) {
+                    candidates.add(number);
+                }
+            }
+            cardRepository.findExistingNumbers(candidates).forEach(candidates::remove);
+            numbers.addAll(candidates);
+        }
+        return new ArrayList<>(numbers);
     }
 
 
@@ -77,6 +313,7 @@ public class CardService implements CardServiceInterface {
      * @param cardId ID карты
      */
     @Override
+    @Transactional
     public void blockCard(Long cardId) {
         updateCardStatus(cardId, CardStatus.BLOCKED);
     }
@@ -89,6 +326,7 @@ public class CardService implements CardServiceInterface {
      * @throws RuntimeException если карта просрочена
      */
     @Override
+    @Transactional
     public void activateCard(Long cardId) {
         Card card = getCardOrThrow(cardId);
         CardValidator.validateNotExpired(card);
@@ -102,40 +340,94 @@ public class CardService implements CardServiceInterface {
      */
     @Override
     public void deleteCard(Long cardId) {
+        Optional<CardBalanceView> view = cardRepository.findBalanceView(cardId);
         cardRepository.deleteById(cardId);
+        balanceCache.invalidateOnCommit(cardId);
+        view.ifPresent(v -> changeTracker.bumpOnCommit(v.ownerId()));
     }
 
     /**
      * Возвращает карты пользователя с фильтром по статусу и пагинацией.
      *
-     * @param username логин пользователя
+     * @param userId   ID пользователя
      * @param status   статус карты (ACTIVE, BLOCKED, EXPIRED) — необязательный
      * @param pageable объект пагинации
      * @return страница DTO карт пользователя
      */
     @Override
-    public Page<CardDto> getUserCards(String username, String status, Pageable pageable) {
-        User user = getUserByUsername(username);
-
+    public Page<CardDto> getUserCards(Long userId, String status, Pageable pageable) {
         if (status == null || status.isBlank()) {
-            return cardRepository.findAllByOwner(user, pageable).map(CardDto::fromEntity);
+            return cardRepository.findCardDtosByOwner(userId, pageable);
         }
 
         CardStatus cardStatus = parseCardStatus(status);
-        return cardRepository.findAllByOwnerAndStatus(user, cardStatus, pageable).map(CardDto::fromEntity);
+        return cardRepository.findCardDtosByOwnerAndStatus(userId, cardStatus, pageable);
+    }
+
+    /**
+     * Возвращает порцию карт пользователя, следующую за курсором.
+     * <p>
+     * Карты упорядочены по {@code (status, id)} (статусы — в алфавитном порядке, как их сортирует БД),
+     * с фильтром по статусу — по {@code id}. Запрос идёт по индексу {@code (owner_id, status, id)}
+     * от позиции курсора, без {@code OFFSET} и без подсчёта общего числа карт.
+     *
+     * @param userId   ID пользователя
+     * @param status   статус карты (ACTIVE, BLOCKED, EXPIRED) — необязательный
+     * @param cursor   курсор из предыдущего ответа или null для первой порции
+     * @param size     размер порции
+     * @return карты порции и курсор следующей порции
+     */
+    @Override
+    public CardSliceDto getUserCardSlice(Long userId, String status, String cursor, int size) {
+        if (size < 1 || size > MAX_SLICE_SIZE) {
+            throw new BusinessException("Slice size must be between 1 and " + MAX_SLICE_SIZE);
+        }
+        Pageable limit = PageRequest.of(0, size);
+        CardCursor after = cursor == null || cursor.isBlank() ? null : CardCursor.decode(cursor);
+
+        Slice<CardDto> slice;
+        if (status != null && !status.isBlank()) {
+            CardStatus cardStatus = parseCardStatus(status);
+            if (after != null && after.status() != cardStatus) {
+                throw new BusinessException("Invalid cursor");
+            }
+            slice = cardRepository.findSliceByOwnerAndStatusAfter(userId, cardStatus,
+                    after == null ? 0L : after.id(), limit);
+        } else if (after == null) {
+            slice = cardRepository.findSliceByOwner(userId, limit);
+        } else {
+            slice = cardRepository.findSliceByOwnerAfter(userId, after.status(), after.id(),
+                    statusesAfter(after.status()), limit);
+        }
+
+        List<CardDto> cards = slice.getContent();
+        String nextCursor = null;
+        if (slice.hasNext() && !cards.isEmpty()) {
+            CardDto last = cards.get(cards.size() - 1);
+            nextCursor = new CardCursor(last.getStatus(), last.getId()).encode();
+        }
+        return new CardSliceDto(cards, nextCursor);
+    }
+
+    /** Возвращает статусы, следующие за указанным в порядке сортировки БД */
+    private static List<CardStatus> statusesAfter(CardStatus status) {
+        return Arrays.stream(CardStatus.values())
+                .filter(s -> s.name().compareTo(status.name()) > 0)
+                .toList();
     }
 
     /**
      * Пользователь запрашивает блокировку своей карты.
      *
-     * @param username логин пользователя
+     * @param userId   ID пользователя
      * @param cardId   ID карты
      *
      * @throws RuntimeException если карта уже заблокирована
      */
     @Override
-    public void requestBlockCard(String username, Long cardId) {
-        Card card = getCardOwnedByUser(username, cardId);
+    @Transactional
+    public void requestBlockCard(Long userId, Long cardId) {
+        Card card = getCardOwnedByUser(userId, cardId);
         if (card.getStatus() == CardStatus.BLOCKED) {
             throw new RuntimeException("Card already blocked");
         }
@@ -144,39 +436,354 @@ public class CardService implements CardServiceInterface {
 
     /**
      * Выполняет перевод между картами пользователя.
+     * <p>
+     * Переводы по одним и тем же картам сначала сериализуются внутри узла через
+     * {@link StripedCardLockManager}, и только затем обращаются к БД.
+     * В режиме {@link TransferMode#PESSIMISTIC} обе карты блокируются в БД в порядке возрастания ID,
+     * транзакция повторяется при взаимной блокировке или таймауте ожидания блокировки.
+     * В режиме {@link TransferMode#OPTIMISTIC} карты читаются без блокировок, а при конфликте
+     * версий перевод выполняется заново. В режиме {@link TransferMode#CONDITIONAL} перевод
+     * выполняется двумя условными {@code UPDATE} и вставкой записи о переводе.
+     * <p>
+     * Горячие карты ({@link HotCardBalanceManager}) в любом режиме блокируются разделяемой
+     * блокировкой, а их баланс изменяется в слотах; блокировка внутри узла для них не берётся.
      *
-     * @param username        логин пользователя
+     * @param userId          ID пользователя
      * @param transferRequest DTO с данными перевода (fromCardId, toCardId, amount)
      *
      * @throws RuntimeException если сумма отрицательная, карты неактивны, просрочены или недостаточно средств
      */
     @Override
-    @Transactional
-    public void transferBetweenCards(String username, TransferRequestDto transferRequest) {
+    public void transferBetweenCards(Long userId, TransferRequestDto transferRequest) {
         CardValidator.validatePositiveAmount(transferRequest.getAmount());
 
-        Card fromCard = getCardOwnedByUser(username, transferRequest.getFromCardId());
-        Card toCard = getCardOwnedByUser(username, transferRequest.getToCardId());
+        Long fromCardId = transferRequest.getFromCardId();
+        Long toCardId = transferRequest.getToCardId();
+        cardLockManager.runLocked(() -> transferRetryExecutor.run(() -> {
+            if (transferMode == TransferMode.CONDITIONAL && !hotCards.isHot(fromCardId) && !hotCards.isHot(toCardId)) {
+                executeConditionalTransfer(userId, transferRequest);
+            } else {
+                executeTransfer(userId, transferRequest);
+            }
+        }), inProcessLockIds(fromCardId, toCardId));
+    }
 
-        CardValidator.validateActiveAndNotExpired(fromCard, "Source card");
-        CardValidator.validateActiveAndNotExpired(toCard, "Destination card");
-        CardValidator.validateSufficientBalance(fromCard, transferRequest.getAmount());
+    /**
+     * Выполняет перевод условными {@code UPDATE}, решая об успехе по числу изменённых строк.
+     * <p>
+     * Строки обновляются в порядке возрастания ID, как и в пессимистичном режиме.
+     * Если условие не выполнено, карта перечитывается, и причина отказа определяется
+     * проверками {@link CardValidator}.
+     */
+    private void executeConditionalTransfer(Long userId, TransferRequestDto transferRequest) {
+        Long fromCardId = transferRequest.getFromCardId();
+        Long toCardId = transferRequest.getToCardId();
+        BigDecimal amount = transferRequest.getAmount();
+        if (fromCardId == null || toCardId == null) {
+            throw new RuntimeException("Card not found");
+        }
+        LocalDate today = LocalDate.now();
+
+        if (fromCardId <= toCardId) {
+            debitOrReject(userId, fromCardId, amount, today);
+            creditOrReject(userId, toCardId, amount, today);
+        } else {
+            creditOrReject(userId, toCardId, amount, today);
+            debitOrReject(userId, fromCardId, amount, today);
+        }
+
+        Transfer transfer = new Transfer();
+        transfer.setFromCard(cardRepository.getReferenceById(fromCardId));
+        transfer.setToCard(cardRepository.getReferenceById(toCardId));
+        transfer.setAmount(amount);
+        transferRepository.save(transfer);
+        balanceCache.invalidateOnCommit(fromCardId);
+        balanceCache.invalidateOnCommit(toCardId);
+        eventPublisher.publishEvent(new TransferCommittedEvent(transfer.getId(), fromCardId, toCardId,
+                amount, transfer.getCreatedAt()));
+        for (Long cardId : new LinkedHashSet<>(List.of(fromCardId, toCardId))) {
+            eventPublisher.publishEvent(new CardChangedEvent(CardChangedEvent.Type.BALANCE, cardId, userId,
+                    null, CardStatus.ACTIVE));
+        }
+    }
+
+    /** Списывает сумму условным UPDATE или выбрасывает исключение с причиной отказа */
+    private void debitOrReject(Long userId, Long cardId, BigDecimal amount, LocalDate today) {
+        if (cardRepository.debitIfAllowed(cardId, userId, amount, today) == 0) {
+            throw rejectionReason(userId, cardId, "Source card", amount);
+        }
+    }
+
+    /** Зачисляет сумму условным UPDATE или выбрасывает исключение с причиной отказа */
+    private void creditOrReject(Long userId, Long cardId, BigDecimal amount, LocalDate today) {
+        if (cardRepository.creditIfAllowed(cardId, userId, amount, today) == 0) {
+            throw rejectionReason(userId, cardId, "Destination card", null);
+        }
+    }
+
+    /**
+     * Определяет, почему условный UPDATE не изменил карту.
+     * <p>
+     * Проверки {@link CardValidator} выбрасывают исключение с конкретной причиной. Если все они
+     * прошли, значит карта изменилась между UPDATE и повторным чтением, и перевод повторяется
+     * ({@link CardConflictException}).
+     */
+    private RuntimeException rejectionReason(Long userId, Long cardId, String context, BigDecimal amount) {
+        Card card = getCardOwnedByUser(userId, cardId);
+        hotCards.checkLockMode(card, false);
+        CardValidator.validateActiveAndNotExpired(card, context);
+        if (amount != null) {
+            CardValidator.validateSufficientBalance(card, amount);
+        }
+        return new CardConflictException(context + " was modified concurrently");
+    }
 
+    /** Выполняет перевод внутри транзакции, загружая карты согласно режиму конкурентного доступа */
+    private void executeTransfer(Long userId, TransferRequestDto transferRequest) {
+        Long fromCardId = transferRequest.getFromCardId();
+        Long toCardId = transferRequest.getToCardId();
+
+        Card fromCard;
+        Card toCard;
+        if (transferMode == TransferMode.OPTIMISTIC) {
+            fromCard = getCardOwnedByUser(userId, fromCardId);
+            toCard = getCardOwnedByUser(userId, toCardId);
+        } else {
+            Map<Long, Card> locked = lockCards(fromCardId, toCardId);
+            fromCard = getLockedCardOwnedByUser(locked, userId, fromCardId);
+            toCard = getLockedCardOwnedByUser(locked, userId, toCardId);
+        }
+
+        validateTransfer(fromCard, toCard, transferRequest.getAmount());
         performTransfer(fromCard, toCard, transferRequest.getAmount());
     }
 
+    /**
+     * Применяет пачку переводов в текущей транзакции.
+     * <p>
+     * Все карты пачки блокируются одним запросом в порядке возрастания ID. Переводы применяются
+     * по очереди с учётом уже изменённых остатков; перевод, не прошедший проверки, пропускается
+     * и не влияет на остальные: проверки {@link CardValidator} не изменяют карты, поэтому
+     * отклонённый перевод ничего не оставляет в фиксируемой транзакции. Записи о переводах
+     * вставляются одним пакетом JDBC.
+     * <p>
+     * Пачка всегда выполняется с блокировкой строк, независимо от {@link TransferMode}:
+     * в пачке много карт, и условные {@code UPDATE} или повтор по версии для каждой из них
+     * свели бы на нет выигрыш от групповой фиксации. Блокировки внутри узла
+     * ({@link StripedCardLockManager}) не берутся, взаимное исключение обеспечивают
+     * блокировки строк в БД.
+     * Вызывается {@link TransferPipeline} внутри транзакции {@link TransferRetryExecutor}; метод
+     * публичный, чтобы вызов через транзакционный прокси сервиса доходил до самого сервиса.
+     *
+     * @param commands переводы пачки
+     * @return для каждого перевода null при успехе или исключение с причиной отказа
+     */
+    public List<RuntimeException> applyTransferBatch(List<TransferCommand> commands) {
+        Map<Long, Card> locked = lockCards(commands.stream()
+                .flatMap(c -> Stream.of(c.request().getFromCardId(), c.request().getToCardId()))
+                .toArray(Long[]::new));
+
+        List<RuntimeException> outcomes = new ArrayList<>(commands.size());
+        List<Transfer> transfers = new ArrayList<>(commands.size());
+        for (TransferCommand command : commands) {
+            try {
+                transfers.add(applyLockedTransfer(locked, command.userId(), command.request()));
+                outcomes.add(null);
+            } catch (RuntimeException e) {
+                if (TransferRetryExecutor.isRetryable(e) || TransferRetryExecutor.isVersionConflict(e)) {
+                    throw e;
+                }
+                outcomes.add(e);
+            }
+        }
+        publishCommitted(transfers, transferRepository.insertAll(transfers));
+        return outcomes;
+    }
+
+    /**
+     * Выполняет пакет переводов пользователя атомарно.
+     * <p>
+     * Сначала проверяются суммы всех плеч. Затем каждая затронутая карта блокируется один раз
+     * (в порядке возрастания ID), плечи применяются по очереди, а записи о переводах вставляются
+     * одним пакетом JDBC. Если хотя бы одно плечо не проходит проверки, транзакция откатывается
+     * и ни один перевод не выполняется. Пакет всегда выполняется с блокировкой строк,
+     * независимо от {@link TransferMode}.
+     *
+     * @param userId   ID пользователя
+     * @param legs     переводы пакета
+     * @return итог пакета и результат каждого плеча
+     */
+    @Override
+    public TransferBatchResultDto transferBatch(Long userId, List<TransferRequestDto> legs) {
+        if (legs == null || legs.isEmpty()) {
+            throw new BusinessException("Transfer batch is empty");
+        }
+        if (legs.size() > MAX_BATCH_LEGS) {
+            throw new BusinessException("Transfer batch exceeds " + MAX_BATCH_LEGS + " legs");
+        }
+
+        String[] errors = new String[legs.size()];
+        boolean valid = true;
+        for (int i = 0; i < legs.size(); i++) {
+            try {
+                CardValidator.validatePositiveAmount(legs.get(i).getAmount());
+            } catch (RuntimeException e) {
+                errors[i] = e.getMessage();
+                valid = false;
+            }
+        }
+
+        if (valid) {
+            Long[] cardIds = inProcessLockIds(legs.stream()
+                    .flatMap(leg -> Stream.of(leg.getFromCardId(), leg.getToCardId()))
+                    .toArray(Long[]::new));
+            try {
+                cardLockManager.runLocked(() -> transferRetryExecutor.run(() ->
+                        applyTransferLegs(userId, legs, errors)), cardIds);
+                return batchResult(legs, errors, true);
+            } catch (TransferBatchRejectedException e) {
+                // плечи с ошибками уже отмечены в errors, транзакция откатана
+            }
+        }
+        return batchResult(legs, errors, false);
+    }
+
+    /** Применяет плечи пакета к заблокированным картам; при любой ошибке откатывает транзакцию */
+    private void applyTransferLegs(Long userId, List<TransferRequestDto> legs, String[] errors) {
+        Arrays.fill(errors, null);
+        Map<Long, Card> locked = lockCards(legs.stream()
+                .flatMap(leg -> Stream.of(leg.getFromCardId(), leg.getToCardId()))
+                .toArray(Long[]::new));
+
+        List<Transfer> transfers = new ArrayList<>(legs.size());
+        boolean rejected = false;
+        for (int i = 0; i < legs.size(); i++) {
+            try {
+                transfers.add(applyLockedTransfer(locked, userId, legs.get(i)));
+            } catch (RuntimeException e) {
+                errors[i] = e.getMessage();
+                rejected = true;
+            }
+        }
+        if (rejected) {
+            throw new TransferBatchRejectedException();
+        }
+        publishCommitted(transfers, transferRepository.insertAll(transfers));
+    }
+
+    /** Проверяет и применяет перевод к заблокированным картам, возвращая несохранённую запись о переводе */
+    private Transfer applyLockedTransfer(Map<Long, Card> locked, Long userId, TransferRequestDto request) {
+        CardValidator.validatePositiveAmount(request.getAmount());
+        Card fromCard = getLockedCardOwnedByUser(locked, userId, request.getFromCardId());
+        Card toCard = getLockedCardOwnedByUser(locked, userId, request.getToCardId());
+        validateTransfer(fromCard, toCard, request.getAmount());
+        return applyTransfer(fromCard, toCard, request.getAmount());
+    }
+
+    /** Формирует результат пакета по ошибкам плеч */
+    private TransferBatchResultDto batchResult(List<TransferRequestDto> legs, String[] errors, boolean committed) {
+        List<TransferLegResultDto> results = new ArrayList<>(legs.size());
+        for (int i = 0; i < legs.size(); i++) {
+            TransferRequestDto leg = legs.get(i);
+            TransferLegResultDto.State state = committed ? TransferLegResultDto.State.APPLIED
+                    : errors[i] != null ? TransferLegResultDto.State.FAILED
+                    : TransferLegResultDto.State.NOT_APPLIED;
+            results.add(new TransferLegResultDto(i, leg.getFromCardId(), leg.getToCardId(),
+                    leg.getAmount(), state, errors[i]));
+        }
+        return new TransferBatchResultDto(committed, results);
+    }
+
+    /** Сигнализирует об отказе хотя бы одного плеча пакета и вызывает откат транзакции */
+    private static class TransferBatchRejectedException extends RuntimeException {
+        TransferBatchRejectedException() {
+            super("Transfer batch rejected", null, false, false);
+        }
+    }
+
 
     /**
      * Возвращает баланс указанной карты пользователя.
+     * <p>
+     * Баланс читается из {@link CardBalanceCache}; при промахе выполняется один запрос без загрузки
+     * сущностей и без транзакции.
      *
-     * @param username логин пользователя
+     * @param userId   ID пользователя
      * @param cardId   ID карты
      * @return баланс карты в формате Double
      */
     @Override
-    public Double getCardBalance(String username, Long cardId) {
-        Card card = getCardOwnedByUser(username, cardId);
-        return card.getBalance().doubleValue();
+    public Double getCardBalance(Long userId, Long cardId) {
+        CardBalanceCache.Entry entry = balanceCache.get(cardId)
+                .orElseThrow(() -> new RuntimeException("Card not found"));
+        if (!entry.ownerId().equals(userId)) {
+            throw new RuntimeException("Access denied: Card does not belong to user");
+        }
+        return entry.balance().doubleValue();
+    }
+
+    /**
+     * Возвращает балансы нескольких карт пользователя.
+     * <p>
+     * Закэшированные балансы берутся из {@link CardBalanceCache}, остальные читаются одним
+     * запросом {@code IN}. Если хотя бы одна карта не найдена или принадлежит другому
+     * пользователю, запрос отклоняется целиком, как и для одной карты.
+     *
+     * @param userId   ID пользователя
+     * @param cardIds  ID карт (повторы игнорируются)
+     * @return балансы карт по ID в порядке запроса
+     */
+    @Override
+    public Map<Long, Double> getCardBalances(Long userId, List<Long> cardIds) {
+        if (cardIds == null || cardIds.isEmpty()) {
+            throw new BusinessException("Card ids are empty");
+        }
+        Set<Long> ids = new LinkedHashSet<>(cardIds);
+        if (ids.size() > MAX_BALANCE_LOOKUP) {
+            throw new BusinessException("Balance lookup exceeds " + MAX_BALANCE_LOOKUP + " cards");
+        }
+        if (ids.contains(null)) {
+            throw new RuntimeException("Card not found");
+        }
+
+        Map<Long, CardBalanceCache.Entry> entries = balanceCache.getAll(ids);
+        Map<Long, Double> balances = new LinkedHashMap<>();
+        for (Long id : ids) {
+            CardBalanceCache.Entry entry = entries.get(id);
+            if (entry == null) {
+                throw new RuntimeException("Card not found");
+            }
+            if (!entry.ownerId().equals(userId)) {
+                throw new RuntimeException("Access denied: Card does not belong to user");
+            }
+            balances.put(id, entry.balance().doubleValue());
+        }
+        return balances;
+    }
+
+    /**
+     * Изменяет число слотов баланса карты.
+     * <p>
+     * Карта блокируется, баланс переносится между строкой карты и слотами в одной транзакции;
+     * переводы по карте в это время ждут, остальные выполняются без перерыва.
+     *
+     * @param cardId ID карты
+     * @param slots  число слотов: 0 или 1 выключает режим горячей карты
+     * @return DTO карты
+     */
+    @Override
+    public CardDto setBalanceSlots(Long cardId, int slots) {
+        if (slots < 0 || slots > HotCardBalanceManager.MAX_SLOTS) {
+            throw new BusinessException("Balance slots must be between 0 and " + HotCardBalanceManager.MAX_SLOTS);
+        }
+        return transferRetryExecutor.execute(() -> {
+            Card locked = cardRepository.findAllByIdForUpdate(List.of(cardId)).stream()
+                    .findFirst()
+                    .orElseThrow(() -> new RuntimeException("Card not found"));
+            BigDecimal balance = hotCards.reshard(locked, slots);
+            balanceCache.invalidateOnCommit(cardId);
+            return CardDto.fromEntity(locked, balance);
+        });
     }
 
     /** Получает пользователя по username или выбрасывает исключение */
@@ -192,14 +799,70 @@ public class CardService implements CardServiceInterface {
     }
 
     /** Получает карту, принадлежащую пользователю, или выбрасывает исключение */
-    private Card getCardOwnedByUser(String username, Long cardId) {
+    private Card getCardOwnedByUser(Long userId, Long cardId) {
         Card card = getCardOrThrow(cardId);
-        if (!card.getOwner().getUsername().equals(username)) {
+        if (!card.getOwner().getId().equals(userId)) {
+            throw new RuntimeException("Access denied: Card does not belong to user");
+        }
+        return card;
+    }
+
+    /** Блокирует карты в порядке возрастания ID и возвращает их по ID; отсутствующие ID пропускаются */
+    private Map<Long, Card> lockCards(Long... cardIds) {
+        Set<Long> ids = new TreeSet<>();
+        Set<Long> hotIds = new TreeSet<>();
+        for (Long id : cardIds) {
+            if (id != null) {
+                (hotCards.isHot(id) ? hotIds : ids).add(id);
+            }
+        }
+        List<Card> cards = new ArrayList<>();
+        if (!ids.isEmpty()) {
+            cards.addAll(cardRepository.findAllByIdForUpdate(ids));
+        }
+        if (!hotIds.isEmpty()) {
+            cards.addAll(cardRepository.findAllByIdForShare(hotIds));
+        }
+        for (Card card : cards) {
+            hotCards.checkLockMode(card, hotIds.contains(card.getId()));
+        }
+        return cards.stream().collect(Collectors.toMap(Card::getId, Function.identity()));
+    }
+
+    /**
+     * Возвращает ID карт для блокировок внутри узла. Горячие карты исключаются:
+     * зачисления на них не должны выстраиваться в очередь к одной полосе.
+     */
+    private Long[] inProcessLockIds(Long... cardIds) {
+        return Arrays.stream(cardIds)
+                .map(id -> hotCards.isHot(id) ? null : id)
+                .toArray(Long[]::new);
+    }
+
+    /** Возвращает заблокированную карту, принадлежащую пользователю, или выбрасывает исключение */
+    private Card getLockedCardOwnedByUser(Map<Long, Card> locked, Long userId, Long cardId) {
+        Card card = locked.get(cardId);
+        if (card == null) {
+            throw new RuntimeException("Card not found");
+        }
+        if (!card.getOwner().getId().equals(userId)) {
             throw new RuntimeException("Access denied: Card does not belong to user");
         }
         return card;
     }
 
+    /**
+     * Проверяет, что обе карты активны и не просрочены, а на карте-источнике достаточно средств.
+     * Остаток горячей карты проверяется при списании, по заблокированным слотам.
+     */
+    private void validateTransfer(Card fromCard, Card toCard, BigDecimal amount) {
+        CardValidator.validateActiveAndNotExpired(fromCard, "Source card");
+        CardValidator.validateActiveAndNotExpired(toCard, "Destination card");
+        if (!fromCard.isHot()) {
+            CardValidator.validateSufficientBalance(fromCard, amount);
+        }
+    }
+
     /** Обновляет статус карты по ID */
     private void updateCardStatus(Long cardId, CardStatus status) {
         Card card = getCardOrThrow(cardId);
@@ -210,6 +873,10 @@ public class CardService implements CardServiceInterface {
     private void updateCardStatus(Card card, CardStatus status) {
         card.setStatus(status);
         cardRepository.save(card);
+        balanceCache.putOnCommit(card);
+        if (card.getOwner() != null) {
+            eventPublisher.publishEvent(CardChangedEvent.of(CardChangedEvent.Type.STATUS, card));
+        }
     }
 
     /** Парсит строку в CardStatus или выбрасывает исключение */
@@ -221,18 +888,80 @@ public class CardService implements CardServiceInterface {
         }
     }
 
-    /** Выполняет перевод между двумя картами и сохраняет транзакцию */
+    /**
+     * Выполняет перевод между двумя картами и сохраняет транзакцию.
+     * <p>
+     * Обновление карт проверяет версию строки: если карту успел изменить другой перевод,
+     * при фиксации транзакции возникает {@link org.springframework.orm.ObjectOptimisticLockingFailureException},
+     * и {@link TransferRetryExecutor} выполняет перевод заново.
+     * <p>
+     * Публикует {@link TransferCommittedEvent}; слушатели AFTER_COMMIT получат его только
+     * после успешной фиксации транзакции. Новые остатки карт попадают в {@link CardBalanceCache}
+     * также после фиксации, а подписчики {@link CardEventHub} получают {@link CardChangedEvent}.
+     */
     private void performTransfer(Card fromCard, Card toCard, BigDecimal amount) {
-        fromCard.setBalance(fromCard.getBalance().subtract(amount));
-        toCard.setBalance(toCard.getBalance().add(amount));
+        Transfer transfer = applyTransfer(fromCard, toCard, amount);
+        transferRepository.save(transfer);
+        eventPublisher.publishEvent(TransferCommittedEvent.of(transfer.getId(), transfer));
+        publishBalanceChanges(List.of(transfer));
+    }
+
+    /** Публикует события о переводах, вставленных пакетом, с их сгенерированными ID */
+    private void publishCommitted(List<Transfer> transfers, List<Long> ids) {
+        for (int i = 0; i < transfers.size(); i++) {
+            eventPublisher.publishEvent(TransferCommittedEvent.of(ids.get(i), transfers.get(i)));
+        }
+        publishBalanceChanges(transfers);
+    }
+
+    /** Публикует по одному событию об итоговом остатке каждой карты, затронутой переводами */
+    private void publishBalanceChanges(List<Transfer> transfers) {
+        Set<Card> cards = new LinkedHashSet<>();
+        for (Transfer transfer : transfers) {
+            cards.add(transfer.getFromCard());
+            cards.add(transfer.getToCard());
+        }
+        for (Card card : cards) {
+            eventPublisher.publishEvent(CardChangedEvent.of(CardChangedEvent.Type.BALANCE, card));
+        }
+    }
 
-        cardRepository.save(fromCard);
-        cardRepository.save(toCard);
+    /**
+     * Изменяет остатки карт и возвращает ещё не сохранённую запись о переводе.
+     * <p>
+     * Списание выполняется первым: у горячей карты оно может быть отклонено,
+     * и тогда зачисление не должно успеть попасть в БД.
+     */
+    private Transfer applyTransfer(Card fromCard, Card toCard, BigDecimal amount) {
+        debit(fromCard, amount);
+        credit(toCard, amount);
 
         Transfer transfer = new Transfer();
         transfer.setFromCard(fromCard);
         transfer.setToCard(toCard);
         transfer.setAmount(amount);
-        transferRepository.save(transfer);
+        return transfer;
+    }
+
+    /** Списывает сумму с карты: со строки карты или со слотов горячей карты */
+    private void debit(Card card, BigDecimal amount) {
+        if (card.isHot()) {
+            hotCards.debit(card, amount);
+        } else {
+            card.setBalance(card.getBalance().subtract(amount));
+            cardRepository.save(card);
+        }
+        balanceCache.putOnCommit(card);
+    }
+
+    /** Зачисляет сумму на карту: в строку карты или в случайный слот горячей карты */
+    private void credit(Card card, BigDecimal amount) {
+        if (card.isHot()) {
+            hotCards.credit(card, amount);
+        } else {
+            card.setBalance(card.getBalance().add(amount));
+            cardRepository.save(card);
+        }
+        balanceCache.putOnCommit(card);
     }
 }
@@ -1,11 +1,18 @@
 package com.bank.api.service;
 
 import com.bank.api.dto.CardDto;
+import com.bank.api.dto.CardIssueProgressDto;
+import com.bank.api.dto.CardIssueRequestDto;
+import com.bank.api.dto.CardSliceDto;
+import com.bank.api.dto.TransferBatchResultDto;
 import com.bank.api.dto.TransferRequestDto;
+import com.bank.api.repository.CardSearchCriteria;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Интерфейс для сервиса работы с банковскими картами.
@@ -18,6 +25,23 @@ public interface CardServiceInterface {
      */
     List<CardDto> getAllCards();
 
+    /**
+     * Выгружает все карты в системе по одной, не собирая их в список.
+     *
+     * @param sink обработчик, вызываемый для каждой карты
+     */
+    void exportCards(Consumer<CardDto> sink);
+
+    /**
+     * Ищет карты по условиям администратора, порциями по курсору.
+     *
+     * @param criteria условия поиска
+     * @param cursor   курсор из предыдущей порции или null
+     * @param size     размер порции
+     * @return порция карт и курсор следующей порции
+     */
+    CardSliceDto searchCards(CardSearchCriteria criteria, String cursor, int size);
+
     /**
      * Создает карту для пользователя.
      *
@@ -27,6 +51,14 @@ public interface CardServiceInterface {
      */
     CardDto createCardForUser(String username, CardDto cardDto);
 
+    /**
+     * Выпускает карты массово.
+     *
+     * @param requests владельцы и параметры карт
+     * @param progress обработчик, получающий ход выпуска после каждой порции
+     */
+    void issueCards(List<CardIssueRequestDto> requests, Consumer<CardIssueProgressDto> progress);
+
     /**
      * Блокирует карту по ID.
      *
@@ -52,35 +84,73 @@ public interface CardServiceInterface {
     /**
      * Возвращает карты пользователя с фильтром по статусу и пагинацией.
      *
-     * @param username логин пользователя
+     * @param userId   ID пользователя
      * @param status   статус карты (опционально)
      * @param pageable объект пагинации
      * @return страница DTO карт
      */
-    Page<CardDto> getUserCards(String username, String status, Pageable pageable);
+    Page<CardDto> getUserCards(Long userId, String status, Pageable pageable);
+
+    /**
+     * Получает порцию карт пользователя по курсору.
+     *
+     * @param userId   ID пользователя
+     * @param status   статус карты (опционально)
+     * @param cursor   курсор из предыдущей порции или null
+     * @param size     размер порции
+     * @return порция карт и курсор следующей порции
+     */
+    CardSliceDto getUserCardSlice(Long userId, String status, String cursor, int size);
 
     /**
      * Запрашивает блокировку карты пользователя.
      *
-     * @param username логин пользователя
+     * @param userId   ID пользователя
      * @param cardId   ID карты
      */
-    void requestBlockCard(String username, Long cardId);
+    void requestBlockCard(Long userId, Long cardId);
 
     /**
      * Переводит деньги между картами пользователя.
      *
-     * @param username        логин пользователя
+     * @param userId          ID пользователя
      * @param transferRequest DTO с данными перевода
      */
-    void transferBetweenCards(String username, TransferRequestDto transferRequest);
+    void transferBetweenCards(Long userId, TransferRequestDto transferRequest);
+
+    /**
+     * Атомарно выполняет пакет переводов между картами пользователя.
+     *
+     * @param userId   ID пользователя
+     * @param legs     переводы пакета
+     * @return итог пакета и результат каждого перевода
+     */
+    TransferBatchResultDto transferBatch(Long userId, List<TransferRequestDto> legs);
 
     /**
      * Возвращает баланс карты пользователя.
      *
-     * @param username логин пользователя
+     * @param userId   ID пользователя
      * @param cardId   ID карты
      * @return баланс карты
      */
-    Double getCardBalance(String username, Long cardId);
+    Double getCardBalance(Long userId, Long cardId);
+
+    /**
+     * Возвращает балансы нескольких карт пользователя.
+     *
+     * @param userId   ID пользователя
+     * @param cardIds  ID карт
+     * @return балансы карт по ID в порядке запроса
+     */
+    Map<Long, Double> getCardBalances(Long userId, List<Long> cardIds);
+
+    /**
+     * Изменяет число слотов баланса карты (режим горячей карты).
+     *
+     * @param cardId ID карты
+     * @param slots  число слотов: 0 или 1 выключает режим
+     * @return DTO карты
+     */
+    CardDto setBalanceSlots(Long cardId, int slots);
 }
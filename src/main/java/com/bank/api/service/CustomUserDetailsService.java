@@ -1,7 +1,5 @@
 package com.bank.api.service;
 
-import com.bank.api.entity.User;
-import com.bank.api.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.*;
 import org.springframework.stereotype.Service;
@@ -10,12 +8,13 @@ import org.springframework.stereotype.Service;
  * Сервис для загрузки данных пользователя для Spring Security.
  * <p>
  * Реализует UserDetailsService и возвращает объект CustomUserDetails.
+ * Пользователи читаются через {@link UserDetailsCache}.
  */
 @Service
 @RequiredArgsConstructor
 public class CustomUserDetailsService implements UserDetailsService {
 
-    private final UserRepository userRepository;
+    private final UserDetailsCache userDetailsCache;
 
     /**
      * Загружает пользователя по имени.
@@ -26,9 +25,7 @@ public class CustomUserDetailsService implements UserDetailsService {
      */
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username)
+        return userDetailsCache.get(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
-
-        return new CustomUserDetails(user);
     }
 }
@@ -0,0 +1,147 @@
+package com.bank.api.service;
+
+import com.bank.api.entity.Card;
+import com.bank.api.repository.CardBalanceSlotRepository;
+import com.bank.api.repository.CardRepository;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Баланс «горячих» карт, разбитый на слоты.
+ * <p>
+ * Зачисление на горячую карту изменяет одну случайно выбранную строку {@code card_balance_slots}
+ * и не блокирует строку карты монопольно, поэтому параллельные зачисления почти не ждут друг друга.
+ * Списание блокирует все слоты карты, проверяет их сумму и забирает деньги из слотов по порядку.
+ * <p>
+ * Узел хранит множество ID горячих карт, чтобы заранее выбрать способ блокировки. Множество
+ * обновляется по расписанию и при изменении числа слотов; если после блокировки карта оказалась
+ * в другом режиме, выбрасывается {@link OptimisticLockingFailureException} и
+ * {@link TransferRetryExecutor} повторяет перевод.
+ */
+@Component
+public class HotCardBalanceManager {
+
+    /** Максимальное число слотов баланса одной карты */
+    public static final int MAX_SLOTS = 64;
+
+    private final CardRepository cardRepository;
+    private final CardBalanceSlotRepository slotRepository;
+    private volatile Set<Long> hotCardIds = Set.of();
+
+    public HotCardBalanceManager(CardRepository cardRepository, CardBalanceSlotRepository slotRepository) {
+        this.cardRepository = cardRepository;
+        this.slotRepository = slotRepository;
+    }
+
+    /** Возвращает true, если карта по сведениям узла горячая */
+    public boolean isHot(Long cardId) {
+        return cardId != null && hotCardIds.contains(cardId);
+    }
+
+    /** Перечитывает множество горячих карт из БД */
+    @Scheduled(fixedDelayString = "${app.card.hot.refresh-interval-ms:30000}")
+    public void refresh() {
+        hotCardIds = Set.copyOf(cardRepository.findHotCardIds());
+    }
+
+    /**
+     * Проверяет, что карта заблокирована в том режиме, в котором она находится.
+     *
+     * @param card        заблокированная карта
+     * @param lockedAsHot true, если карта блокировалась как горячая
+     * @throws OptimisticLockingFailureException если режим карты изменился
+     */
+    public void checkLockMode(Card card, boolean lockedAsHot) {
+        if (card.isHot() != lockedAsHot) {
+            remember(card);
+            throw new OptimisticLockingFailureException("Hot mode of card " + card.getId() + " changed");
+        }
+    }
+
+    /**
+     * Зачисляет сумму в случайный слот горячей карты.
+     *
+     * @throws OptimisticLockingFailureException если слоты карты изменились
+     */
+    public void credit(Card card, BigDecimal amount) {
+        int slot = ThreadLocalRandom.current().nextInt(card.getBalanceSlots());
+        if (slotRepository.credit(card.getId(), slot, amount) == 0) {
+            throw new OptimisticLockingFailureException("Balance slots of card " + card.getId() + " changed");
+        }
+    }
+
+    /**
+     * Списывает сумму с горячей карты, забирая деньги из слотов по порядку.
+     *
+     * @throws RuntimeException                  если на карте недостаточно средств
+     * @throws OptimisticLockingFailureException если слоты карты изменились
+     */
+    public void debit(Card card, BigDecimal amount) {
+        List<BigDecimal> balances = slotRepository.lockBalances(card.getId());
+        if (balances.size() != card.getBalanceSlots()) {
+            throw new OptimisticLockingFailureException("Balance slots of card " + card.getId() + " changed");
+        }
+        BigDecimal total = balances.stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+        if (total.compareTo(amount) < 0) {
+            throw new RuntimeException("Insufficient balance");
+        }
+
+        BigDecimal remaining = amount;
+        for (int slot = 0; slot < balances.size() && remaining.signum() > 0; slot++) {
+            BigDecimal taken = balances.get(slot).min(remaining);
+            if (taken.signum() > 0) {
+                slotRepository.debit(card.getId(), slot, taken);
+                remaining = remaining.subtract(taken);
+            }
+        }
+    }
+
+    /**
+     * Изменяет число слотов карты, заблокированной {@code SELECT ... FOR UPDATE}.
+     * <p>
+     * Весь баланс переносится в слот 0, остальные слоты создаются пустыми. При числе слотов
+     * 0 или 1 слоты удаляются, а баланс возвращается в строку карты.
+     *
+     * @param card  заблокированная карта
+     * @param slots новое число слотов
+     * @return полный баланс карты
+     */
+    public BigDecimal reshard(Card card, int slots) {
+        BigDecimal total = slotRepository.lockBalances(card.getId()).stream()
+                .reduce(card.getBalance(), BigDecimal::add);
+        if (slots <= 1) {
+            slotRepository.replaceSlots(card.getId(), List.of());
+            card.setBalance(total);
+            card.setBalanceSlots(0);
+        } else {
+            List<BigDecimal> balances = new ArrayList<>(Collections.nCopies(slots, BigDecimal.ZERO));
+            balances.set(0, total);
+            slotRepository.replaceSlots(card.getId(), balances);
+            card.setBalance(BigDecimal.ZERO);
+            card.setBalanceSlots(slots);
+        }
+        cardRepository.save(card);
+        remember(card);
+        return total;
+    }
+
+    /** Запоминает текущий режим карты */
+    private synchronized void remember(Card card) {
+        Set<Long> updated = new HashSet<>(hotCardIds);
+        if (card.isHot()) {
+            updated.add(card.getId());
+        } else {
+            updated.remove(card.getId());
+        }
+        hotCardIds = Set.copyOf(updated);
+    }
+}
@@ -0,0 +1,292 @@
+package com.bank.api.service;
+
+import com.bank.api.entity.IdempotencyRecord;
+import com.bank.api.exception.IdempotencyConflictException;
+import com.bank.api.repository.IdempotencyRecordRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Сервис ключей идемпотентности для операций, изменяющих деньги.
+ * <p>
+ * Результат запроса с заголовком {@code Idempotency-Key} сохраняется в таблице {@code idempotency_keys}
+ * (уникальный ключ — пользователь и значение заголовка) и в ограниченном кэше в памяти. Повтор запроса
+ * возвращает сохранённый ответ, не затрагивая карты и переводы. Повтор, пришедший, пока первый запрос
+ * ещё выполняется, ждёт его завершения. Устаревшие ключи удаляются фоновой задачей.
+ * <p>
+ * Сохраняются только окончательные ответы: успешные и ошибки клиента. Ответ 429 и ошибки
+ * сервера (5xx) временные, поэтому ключ освобождается, и повтор выполняет запрос заново.
+ */
+@Service
+public class IdempotencyService {
+
+    /** Максимальная длина значения заголовка Idempotency-Key */
+    static final int MAX_KEY_LENGTH = 255;
+
+    private static final long DB_POLL_INTERVAL_MS = 50;
+
+    /**
+     * Сохранённый ответ на запрос.
+     *
+     * @param requestHash хэш исходного запроса
+     * @param status      HTTP-статус
+     * @param contentType тип содержимого или null
+     * @param location    заголовок Location или null
+     * @param body        тело ответа или null
+     */
+    public record StoredResponse(String requestHash, int status, String contentType, String location, String body) {
+    }
+
+    private final IdempotencyRecordRepository repository;
+    private final TransactionOperations transactionOperations;
+    private final Duration ttl;
+    private final long waitTimeoutMs;
+    private final Cache<String, StoredResponse> completed;
+    private final ConcurrentMap<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyService(IdempotencyRecordRepository repository,
+                              TransactionOperations transactionOperations,
+                              @Value("${app.idempotency.ttl-hours:24}") long ttlHours,
+                              @Value("${app.idempotency.cache-size:10000}") long cacheSize,
+                              @Value("${app.idempotency.wait-timeout-ms:30000}") long waitTimeoutMs) {
+        this.repository = repository;
+        this.transactionOperations = transactionOperations;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.waitTimeoutMs = waitTimeoutMs;
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Начинает обработку запроса с ключом идемпотентности.
+     * <p>
+     * Если ответ на запрос с этим ключом уже сохранён, возвращает его. Если такой запрос сейчас
+     * выполняется, ждёт его завершения. Иначе резервирует ключ за текущим запросом: после выполнения
+     * вызывающий обязан вызвать {@link #complete} или {@link #release}.
+     *
+     * @param username    логин пользователя
+     * @param key         значение заголовка Idempotency-Key
+     * @param requestHash хэш запроса для обнаружения повторного использования ключа с другими данными
+     * @return сохранённый ответ или пустой Optional, если запрос нужно выполнить
+     * @throws IdempotencyConflictException если ключ некорректен, использован с другим запросом
+     *                                      или запрос с этим ключом не завершился за отведённое время
+     */
+    public Optional<StoredResponse> begin(String username, String key, String requestHash) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IdempotencyConflictException(HttpStatus.BAD_REQUEST,
+                    "Idempotency-Key must be 1-" + MAX_KEY_LENGTH + " characters");
+        }
+        String cacheKey = cacheKey(username, key);
+        while (true) {
+            StoredResponse cached = completed.getIfPresent(cacheKey);
+            if (cached != null) {
+                return Optional.of(checkSameRequest(cached, requestHash));
+            }
+
+            CompletableFuture<StoredResponse> mine = new CompletableFuture<>();
+            CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(cacheKey, mine);
+            if (running != null) {
+                StoredResponse response = awaitLocal(running);
+                if (response != null) {
+                    return Optional.of(checkSameRequest(response, requestHash));
+                }
+                continue;
+            }
+
+            try {
+                if (tryReserve(username, key, requestHash)) {
+                    return Optional.empty();
+                }
+                StoredResponse stored = awaitStored(username, key);
+                inFlight.remove(cacheKey, mine);
+                if (stored == null) {
+                    mine.completeExceptionally(new CancellationException());
+                    continue;
+                }
+                completed.put(cacheKey, stored);
+                mine.complete(stored);
+                return Optional.of(checkSameRequest(stored, requestHash));
+            } catch (RuntimeException e) {
+                inFlight.remove(cacheKey, mine);
+                mine.completeExceptionally(new CancellationException());
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Сохраняет ответ на запрос и передаёт его ожидающим повторам.
+     * <p>
+     * Временный ответ (429 или 5xx) не сохраняется: ключ освобождается, как при {@link #release}.
+     *
+     * @param username логин пользователя
+     * @param key      значение заголовка Idempotency-Key
+     * @param response ответ
+     */
+    public void complete(String username, String key, StoredResponse response) {
+        if (!isFinal(response.status())) {
+            release(username, key);
+            return;
+        }
+        String cacheKey = cacheKey(username, key);
+        try {
+            transactionOperations.executeWithoutResult(status ->
+                    repository.findByUsernameAndIdempotencyKey(username, key).ifPresent(record -> {
+                        record.setStatus(IdempotencyRecord.Status.COMPLETED);
+                        record.setResponseStatus(response.status());
+                        record.setResponseContentType(response.contentType());
+                        record.setResponseLocation(response.location());
+                        record.setResponseBody(response.body());
+                        repository.save(record);
+                    }));
+            completed.put(cacheKey, response);
+        } finally {
+            CompletableFuture<StoredResponse> future = inFlight.remove(cacheKey);
+            if (future != null) {
+                future.complete(response);
+            }
+        }
+    }
+
+    /**
+     * Освобождает ключ, если результат запроса не должен сохраняться (например, при перегрузке
+     * или если запрос завершился исключением).
+     * Ожидающие повторы выполнят запрос заново.
+     *
+     * @param username логин пользователя
+     * @param key      значение заголовка Idempotency-Key
+     */
+    public void release(String username, String key) {
+        String cacheKey = cacheKey(username, key);
+        try {
+            transactionOperations.executeWithoutResult(status ->
+                    repository.findByUsernameAndIdempotencyKey(username, key).ifPresent(repository::delete));
+        } finally {
+            CompletableFuture<StoredResponse> future = inFlight.remove(cacheKey);
+            if (future != null) {
+                future.completeExceptionally(new CancellationException());
+            }
+        }
+    }
+
+    /** Периодически удаляет ключи с истёкшим сроком хранения */
+    @Scheduled(fixedDelayString = "${app.idempotency.sweep-interval-ms:60000}")
+    public void sweepExpired() {
+        repository.deleteExpired(LocalDateTime.now());
+    }
+
+    /**
+     * Резервирует ключ в БД.
+     *
+     * @return true, если ключ зарезервирован за текущим запросом; false, если он уже занят
+     */
+    private boolean tryReserve(String username, String key, String requestHash) {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            transactionOperations.executeWithoutResult(status -> {
+                repository.findByUsernameAndIdempotencyKey(username, key)
+                        .filter(existing -> existing.getExpiresAt().isBefore(now))
+                        .ifPresent(expired -> {
+                            repository.delete(expired);
+                            repository.flush();
+                        });
+                IdempotencyRecord record = new IdempotencyRecord();
+                record.setUsername(username);
+                record.setIdempotencyKey(key);
+                record.setRequestHash(requestHash);
+                record.setStatus(IdempotencyRecord.Status.IN_PROGRESS);
+                record.setExpiresAt(now.plus(ttl));
+                repository.saveAndFlush(record);
+            });
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Ждёт, пока запрос с ключом, занятым в БД (возможно, на другом узле), сохранит ответ.
+     *
+     * @return сохранённый ответ или null, если ключ был освобождён
+     */
+    private StoredResponse awaitStored(String username, String key) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitTimeoutMs);
+        while (true) {
+            Optional<IdempotencyRecord> record = repository.findByUsernameAndIdempotencyKey(username, key);
+            if (record.isEmpty()) {
+                return null;
+            }
+            IdempotencyRecord r = record.get();
+            if (r.getStatus() == IdempotencyRecord.Status.COMPLETED) {
+                return new StoredResponse(r.getRequestHash(), r.getResponseStatus(),
+                        r.getResponseContentType(), r.getResponseLocation(), r.getResponseBody());
+            }
+            if (System.nanoTime() >= deadline) {
+                throw new IdempotencyConflictException(HttpStatus.CONFLICT,
+                        "A request with this Idempotency-Key is still in progress");
+            }
+            sleep(DB_POLL_INTERVAL_MS);
+        }
+    }
+
+    /** Ждёт завершения запроса, выполняющегося на этом узле; null, если ключ был освобождён */
+    private StoredResponse awaitLocal(CompletableFuture<StoredResponse> running) {
+        try {
+            return running.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | CancellationException e) {
+            return null;
+        } catch (TimeoutException e) {
+            throw new IdempotencyConflictException(HttpStatus.CONFLICT,
+                    "A request with this Idempotency-Key is still in progress");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for idempotent request", e);
+        }
+    }
+
+    /** Проверяет, что ответ окончательный и его можно возвращать повторам: 2xx, 3xx или 4xx кроме 429 */
+    static boolean isFinal(int status) {
+        return status < 500 && status != HttpStatus.TOO_MANY_REQUESTS.value();
+    }
+
+    /** Проверяет, что ключ повторно использован с тем же запросом */
+    private static StoredResponse checkSameRequest(StoredResponse response, String requestHash) {
+        if (!response.requestHash().equals(requestHash)) {
+            throw new IdempotencyConflictException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    "Idempotency-Key was already used with a different request");
+        }
+        return response;
+    }
+
+    private static String cacheKey(String username, String key) {
+        return username + '\n' + key;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for idempotent request", e);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.bank.api.service;
+
+import com.bank.api.exception.TooManyRequestsException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Ограничение частоты попыток входа.
+ * <p>
+ * Для каждого логина и каждого IP-адреса ведётся корзина токенов: попытка входа забирает
+ * один токен, корзина пополняется с постоянной скоростью до своей ёмкости. Попытка без
+ * токена отклоняется с {@link TooManyRequestsException} до проверки пароля, поэтому
+ * подбор паролей не занимает пул хеширования.
+ * <p>
+ * Корзины хранятся в ограниченном кэше и удаляются, когда по ключу долго нет попыток:
+ * к этому моменту корзина всё равно была бы полной. Ограничение локально для узла.
+ * Адрес клиента берётся из запроса; за прокси он корректен при настроенном
+ * {@code server.forward-headers-strategy}.
+ */
+@Component
+public class LoginThrottle {
+
+    /** Корзина токенов */
+    private static final class Bucket {
+
+        private final double capacity;
+        private final double tokensPerNano;
+        private double tokens;
+        private long refilledAt;
+
+        private Bucket(double capacity, double tokensPerNano, long now) {
+            this.capacity = capacity;
+            this.tokensPerNano = tokensPerNano;
+            this.tokens = capacity;
+            this.refilledAt = now;
+        }
+
+        synchronized boolean tryAcquire(long now) {
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+            if (tokens < 1) {
+                return false;
+            }
+            tokens -= 1;
+            return true;
+        }
+    }
+
+    private final Cache<String, Bucket> usernameBuckets;
+    private final Cache<String, Bucket> addressBuckets;
+    private final int usernameCapacity;
+    private final double usernameTokensPerNano;
+    private final int addressCapacity;
+    private final double addressTokensPerNano;
+    private final Counter rejected;
+
+    public LoginThrottle(MeterRegistry meterRegistry,
+                         @Value("${app.auth.throttle.username.capacity:10}") int usernameCapacity,
+                         @Value("${app.auth.throttle.username.refill-per-minute:10}") int usernameRefillPerMinute,
+                         @Value("${app.auth.throttle.address.capacity:50}") int addressCapacity,
+                         @Value("${app.auth.throttle.address.refill-per-minute:50}") int addressRefillPerMinute,
+                         @Value("${app.auth.throttle.max-keys:100000}") long maxKeys) {
+        this.usernameCapacity = Math.max(1, usernameCapacity);
+        this.usernameTokensPerNano = perNano(usernameRefillPerMinute);
+        this.addressCapacity = Math.max(1, addressCapacity);
+        this.addressTokensPerNano = perNano(addressRefillPerMinute);
+        this.usernameBuckets = buckets(maxKeys, this.usernameCapacity, usernameRefillPerMinute);
+        this.addressBuckets = buckets(maxKeys, this.addressCapacity, addressRefillPerMinute);
+        this.rejected = Counter.builder("auth.login.throttled")
+                .description("Login attempts rejected by the per-username or per-address throttle")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Учитывает попытку входа.
+     *
+     * @param username      логин из запроса
+     * @param clientAddress адрес клиента или null, если он неизвестен
+     * @throws TooManyRequestsException если превышен лимит попыток для адреса или логина
+     */
+    public void acquire(String username, String clientAddress) {
+        long now = System.nanoTime();
+        if (clientAddress != null
+                && !addressBuckets.get(clientAddress, key -> new Bucket(addressCapacity, addressTokensPerNano, now))
+                .tryAcquire(now)) {
+            rejected.increment();
+            throw new TooManyRequestsException("Too many login attempts from this address, try again later");
+        }
+        if (username != null
+                && !usernameBuckets.get(username.toLowerCase(Locale.ROOT),
+                        key -> new Bucket(usernameCapacity, usernameTokensPerNano, now))
+                .tryAcquire(now)) {
+            rejected.increment();
+            throw new TooManyRequestsException("Too many login attempts for this user, try again later");
+        }
+    }
+
+    private static double perNano(int refillPerMinute) {
+        return Math.max(1, refillPerMinute) / (double) Duration.ofMinutes(1).toNanos();
+    }
+
+    /** Кэш корзин; запись живёт, пока пустая корзина не наполнится до конца */
+    private static Cache<String, Bucket> buckets(long maxKeys, int capacity, int refillPerMinute) {
+        long refillSeconds = (long) Math.ceil(capacity * 60.0 / Math.max(1, refillPerMinute));
+        return Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(Duration.ofSeconds(Math.max(1, refillSeconds)))
+                .build();
+    }
+}
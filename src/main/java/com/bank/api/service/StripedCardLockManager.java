@@ -0,0 +1,126 @@
+package com.bank.api.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Набор полосатых (striped) блокировок для сериализации переводов по картам внутри узла.
+ * <p>
+ * Каждая карта отображается на одну из фиксированного числа блокировок. Переводы, затрагивающие
+ * одну и ту же карту, выстраиваются в очередь до обращения к БД, поэтому горячая карта
+ * не создаёт лавину ожиданий блокировок строк в MariaDB.
+ * <p>
+ * Блокировки всегда берутся в порядке возрастания номера полосы, поэтому взаимная
+ * блокировка между потоками невозможна. Время ожидания записывается в гистограмму
+ * {@code card.lock.wait} для подбора числа полос; тег {@code outcome} отличает полученные
+ * блокировки ({@code acquired}) от истёкших ожиданий ({@code timeout}).
+ */
+@Component
+public class StripedCardLockManager {
+
+    private final ReentrantLock[] stripes;
+    private final long timeoutMs;
+    private final Timer acquiredTimer;
+    private final Timer timeoutTimer;
+
+    public StripedCardLockManager(@Value("${app.transfer.lock.stripes:256}") int stripeCount,
+                                  @Value("${app.transfer.lock.timeout-ms:5000}") long timeoutMs,
+                                  MeterRegistry meterRegistry) {
+        int size = 1;
+        while (size < stripeCount) {
+            size <<= 1;
+        }
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.timeoutMs = timeoutMs;
+        this.acquiredTimer = waitTimer("acquired", timeoutMs, meterRegistry);
+        this.timeoutTimer = waitTimer("timeout", timeoutMs, meterRegistry);
+        Gauge.builder("card.lock.stripes", stripes, s -> s.length)
+                .description("Number of striped card locks")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Выполняет действие, удерживая блокировки всех указанных карт.
+     *
+     * @param cardIds ID карт; null-значения игнорируются
+     * @param action  действие
+     * @param <T>     тип результата
+     * @return результат действия
+     * @throws RuntimeException если блокировку не удалось получить за отведённое время
+     */
+    public <T> T callLocked(Long[] cardIds, Supplier<T> action) {
+        int[] order = stripeOrder(cardIds);
+        int acquired = 0;
+        try {
+            long start = System.nanoTime();
+            for (int index : order) {
+                if (!stripes[index].tryLock(timeoutMs, TimeUnit.MILLISECONDS)) {
+                    timeoutTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    throw new RuntimeException("Card is busy, try again later");
+                }
+                acquired++;
+            }
+            acquiredTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return action.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for card lock", e);
+        } finally {
+            for (int i = acquired - 1; i >= 0; i--) {
+                stripes[order[i]].unlock();
+            }
+        }
+    }
+
+    /**
+     * Выполняет действие без результата, удерживая блокировки всех указанных карт.
+     *
+     * @param action  действие
+     * @param cardIds ID карт
+     */
+    public void runLocked(Runnable action, Long... cardIds) {
+        callLocked(cardIds, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private static Timer waitTimer(String outcome, long timeoutMs, MeterRegistry meterRegistry) {
+        return Timer.builder("card.lock.wait")
+                .description("Time spent waiting for striped card locks before a transfer")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(100))
+                .maximumExpectedValue(Duration.ofMillis(Math.max(1, timeoutMs)))
+                .register(meterRegistry);
+    }
+
+    /** Возвращает уникальные номера полос для карт в порядке возрастания */
+    int[] stripeOrder(Long[] cardIds) {
+        return Arrays.stream(cardIds)
+                .filter(Objects::nonNull)
+                .mapToInt(this::stripeFor)
+                .distinct()
+                .sorted()
+                .toArray();
+    }
+
+    /** Номер полосы для карты; ID перемешивается, чтобы последовательные ID равномерно распределялись по полосам */
+    private int stripeFor(long cardId) {
+        long h = cardId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & (stripes.length - 1);
+    }
+}
@@ -0,0 +1,150 @@
+package com.bank.api.service;
+
+import com.bank.api.entity.RevokedToken;
+import com.bank.api.repository.RevokedTokenRepository;
+import com.bank.api.util.UuidBloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Список отозванных JWT.
+ * <p>
+ * Отозванные токены хранятся в таблице {@code revoked_tokens} до истечения их срока действия.
+ * В памяти находится только фильтр Блума по их ID: для неотозванного токена, то есть почти для
+ * каждого запроса, проверка отвечает «нет» без обращения к базе. Только при срабатывании фильтра
+ * наличие токена проверяется точно, по первичному ключу таблицы.
+ * <p>
+ * Фильтр периодически строится заново из непросроченных записей, а истёкшие записи удаляются,
+ * поэтому его размер определяется числом токенов, отозванных за срок жизни токена. Токены,
+ * отозванные на этом узле, добавляются в фильтр сразу после фиксации; отозванные на других
+ * узлах видны после следующего перестроения.
+ * <p>
+ * Отзыв всех токенов пользователя (блокировка, удаление) выполняется версией токенов
+ * ({@link TokenVersionRegistry}); здесь отзываются отдельные токены.
+ */
+@Component
+public class TokenRevocationList {
+
+    private final RevokedTokenRepository repository;
+    private final long minCapacity;
+    private final double falsePositiveRate;
+    private final Counter filterHits;
+    private final Counter falsePositives;
+    private volatile UuidBloomFilter filter;
+    private volatile UuidBloomFilter building;
+
+    public TokenRevocationList(RevokedTokenRepository repository,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.auth.revocation.min-capacity:10000}") long minCapacity,
+                               @Value("${app.auth.revocation.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.repository = repository;
+        this.minCapacity = minCapacity;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = UuidBloomFilter.create(minCapacity, falsePositiveRate);
+        this.filterHits = Counter.builder("auth.revocation.filter.hits")
+                .description("Token checks that passed the Bloom filter and were verified in the database")
+                .register(meterRegistry);
+        this.falsePositives = Counter.builder("auth.revocation.filter.false-positives")
+                .description("Bloom filter hits for tokens that were not revoked")
+                .register(meterRegistry);
+        Gauge.builder("auth.revocation.filter.bits", this, list -> list.filter.bitSize())
+                .description("Size of the revoked token Bloom filter")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Проверяет, отозван ли токен.
+     *
+     * @param tokenId ID токена или null для токена без ID
+     * @return true если токен отозван
+     */
+    public boolean isRevoked(UUID tokenId) {
+        if (tokenId == null || !filter.mightContain(tokenId)) {
+            return false;
+        }
+        filterHits.increment();
+        boolean revoked = repository.existsById(tokenId.toString());
+        if (!revoked) {
+            falsePositives.increment();
+        }
+        return revoked;
+    }
+
+    /**
+     * Отзывает токен. В фильтр узла токен попадает после фиксации текущей транзакции.
+     *
+     * @param tokenId   ID токена
+     * @param userId    ID владельца токена
+     * @param expiresAt время истечения токена
+     */
+    public void revoke(UUID tokenId, Long userId, Instant expiresAt) {
+        if (!repository.existsById(tokenId.toString())) {
+            repository.save(new RevokedToken(tokenId.toString(), userId,
+                    LocalDateTime.ofInstant(expiresAt, ZoneId.systemDefault())));
+        }
+        afterCommit(() -> add(tokenId));
+    }
+
+    /** Строит фильтр при запуске, до приёма запросов */
+    @PostConstruct
+    public void load() {
+        rebuild();
+    }
+
+    /**
+     * Удаляет истёкшие записи и строит фильтр заново из оставшихся.
+     * <p>
+     * Новый фильтр начинает принимать локальные отзывы до чтения таблицы, поэтому токен,
+     * отозванный во время перестроения, попадает в него либо из таблицы, либо напрямую.
+     */
+    @Scheduled(fixedDelayString = "${app.auth.revocation.rebuild-interval-ms:300000}")
+    public synchronized void rebuild() {
+        LocalDateTime now = LocalDateTime.now();
+        repository.deleteExpired(now);
+        UuidBloomFilter next = UuidBloomFilter.create(Math.max(minCapacity, 2L * repository.count()), falsePositiveRate);
+        building = next;
+        try {
+            List<String> tokenIds = repository.findActiveTokenIds(now);
+            for (String tokenId : tokenIds) {
+                next.put(UUID.fromString(tokenId));
+            }
+            filter = next;
+        } finally {
+            building = null;
+        }
+    }
+
+    private void add(UUID tokenId) {
+        UuidBloomFilter pending = building;
+        filter.put(tokenId);
+        if (pending != null) {
+            pending.put(tokenId);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
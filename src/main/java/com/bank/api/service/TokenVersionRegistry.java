@@ -0,0 +1,95 @@
+package com.bank.api.service;
+
+import com.bank.api.entity.UserTokenVersion;
+import com.bank.api.repository.UserTokenVersionRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Текущие версии токенов пользователей.
+ * <p>
+ * Версия хранится в JWT, и проверка токена сравнивает её с версией из этого реестра без обращения
+ * к базе. В памяти находятся только пользователи, версия которых увеличивалась (блокировка или
+ * удаление), остальные имеют версию 0. Реестр загружается при запуске и периодически
+ * перечитывается, чтобы увидеть изменения, сделанные другими узлами; значения только растут.
+ */
+@Component
+public class TokenVersionRegistry {
+
+    private final UserTokenVersionRepository repository;
+    private final ConcurrentMap<Long, Integer> versions = new ConcurrentHashMap<>();
+
+    public TokenVersionRegistry(UserTokenVersionRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Возвращает текущую версию токенов пользователя.
+     *
+     * @param userId ID пользователя
+     * @return версия для новых токенов
+     */
+    public int currentVersion(Long userId) {
+        return versions.getOrDefault(userId, 0);
+    }
+
+    /**
+     * Проверяет, не отозван ли токен.
+     * <p>
+     * Версия больше известной допустима: токен мог выпустить другой узел, который уже увидел
+     * отзыв, ещё не попавший в этот реестр.
+     *
+     * @param userId       ID пользователя из токена
+     * @param tokenVersion версия из токена
+     * @return true если токен не отозван
+     */
+    public boolean isCurrent(Long userId, int tokenVersion) {
+        return tokenVersion >= currentVersion(userId);
+    }
+
+    /**
+     * Отзывает все выпущенные токены пользователя, увеличивая его версию.
+     * <p>
+     * Вызывается внутри транзакции; в реестре новая версия появляется после её фиксации.
+     *
+     * @param userId ID пользователя
+     */
+    public void revokeTokens(Long userId) {
+        repository.increment(userId);
+        int version = repository.findVersion(userId).orElse(1);
+        afterCommit(() -> versions.merge(userId, version, Math::max));
+    }
+
+    /** Загружает версии при запуске, до приёма запросов */
+    @PostConstruct
+    public void load() {
+        refresh();
+    }
+
+    /** Перечитывает версии из базы */
+    @Scheduled(fixedDelayString = "${app.auth.token-versions.refresh-interval-ms:30000}")
+    public void refresh() {
+        for (UserTokenVersion version : repository.findAll()) {
+            versions.merge(version.getUserId(), version.getVersion(), Math::max);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,12 @@
+package com.bank.api.service;
+
+import com.bank.api.dto.TransferRequestDto;
+
+/**
+ * Перевод, поставленный в очередь на выполнение от имени пользователя.
+ *
+ * @param userId  ID пользователя
+ * @param request данные перевода
+ */
+public record TransferCommand(Long userId, TransferRequestDto request) {
+}
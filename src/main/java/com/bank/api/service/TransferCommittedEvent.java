@@ -0,0 +1,29 @@
+package com.bank.api.service;
+
+import com.bank.api.entity.Transfer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Событие о выполненном переводе.
+ * <p>
+ * Публикуется {@link CardService} внутри транзакции перевода. Слушатели, которым нужны только
+ * зафиксированные переводы, подписываются через
+ * {@link org.springframework.transaction.event.TransactionalEventListener} с фазой AFTER_COMMIT.
+ *
+ * @param transferId ID записи о переводе
+ * @param fromCardId ID карты-отправителя
+ * @param toCardId   ID карты-получателя
+ * @param amount     сумма перевода
+ * @param createdAt  время перевода
+ */
+public record TransferCommittedEvent(Long transferId, Long fromCardId, Long toCardId,
+                                     BigDecimal amount, LocalDateTime createdAt) {
+
+    /** Создаёт событие по сохранённой записи о переводе */
+    static TransferCommittedEvent of(Long transferId, Transfer transfer) {
+        return new TransferCommittedEvent(transferId, transfer.getFromCard().getId(),
+                transfer.getToCard().getId(), transfer.getAmount(), transfer.getCreatedAt());
+    }
+}
@@ -0,0 +1,21 @@
+package com.bank.api.service;
+
+/**
+ * Режим конкурентного доступа к картам при переводе.
+ * <p>
+ * Задаётся свойством {@code app.transfer.mode}.
+ */
+public enum TransferMode {
+
+    /** Карты блокируются в БД ({@code SELECT ... FOR UPDATE}) в порядке возрастания ID */
+    PESSIMISTIC,
+
+    /** Карты читаются без блокировок, конфликт обнаруживается по версии строки, перевод повторяется */
+    OPTIMISTIC,
+
+    /**
+     * Списание и зачисление выполняются условными {@code UPDATE} без предварительного чтения карт.
+     * Владелец, статус, срок действия и остаток проверяются в условии запроса.
+     */
+    CONDITIONAL
+}
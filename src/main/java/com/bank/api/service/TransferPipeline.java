@@ -0,0 +1,279 @@
+package com.bank.api.service;
+
+import com.bank.api.dto.TransferRequestDto;
+import com.bank.api.dto.TransferStatusDto;
+import com.bank.api.exception.ServiceUnavailableException;
+import com.bank.api.exception.TooManyRequestsException;
+import com.bank.api.util.CardValidator;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Конвейер переводов с групповой фиксацией (group commit).
+ * <p>
+ * Заявки помещаются в ограниченную очередь. Несколько потоков-писателей забирают их пачками
+ * и выполняют каждую пачку в одной транзакции, поэтому на одну фиксацию в MariaDB приходится
+ * много переводов. Каждая заявка получает собственный результат: вызывающий может дождаться
+ * фиксации своей пачки или запросить статус позже по идентификатору заявки.
+ * <p>
+ * Если очередь заполнена, заявка отклоняется с {@link TooManyRequestsException}. Синхронный
+ * вызов ждёт фиксации не дольше {@code app.transfer.pipeline.wait-timeout-ms}, после чего
+ * получает {@link ServiceUnavailableException}; заявка при этом остаётся в очереди, и её
+ * итог доступен по идентификатору.
+ * <p>
+ * Пачки всегда выполняются с блокировкой строк, независимо от {@code app.transfer.mode},
+ * см. {@link CardService#applyTransferBatch(List)}.
+ * Включается свойством {@code app.transfer.pipeline.enabled}.
+ */
+@Component
+public class TransferPipeline implements SmartLifecycle {
+
+    /** Заявка в очереди */
+    private record Submission(UUID id, TransferCommand command, CompletableFuture<Void> result) {
+    }
+
+    /** Статус заявки вместе с владельцем, чтобы не раскрывать чужие заявки */
+    private record OwnedStatus(Long userId, TransferStatusDto status) {
+    }
+
+    private final CardService cardService;
+    private final TransferRetryExecutor transferRetryExecutor;
+    private final boolean enabled;
+    private final int writerThreads;
+    private final int maxBatchSize;
+    private final long submitTimeoutMs;
+    private final long waitTimeoutMs;
+    private final BlockingQueue<Submission> queue;
+    private final Cache<UUID, OwnedStatus> statuses;
+    private final DistributionSummary batchSizes;
+    private final List<Thread> writers = new ArrayList<>();
+    private volatile boolean running;
+
+    public TransferPipeline(CardService cardService,
+                            TransferRetryExecutor transferRetryExecutor,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.transfer.pipeline.enabled:false}") boolean enabled,
+                            @Value("${app.transfer.pipeline.queue-capacity:4096}") int queueCapacity,
+                            @Value("${app.transfer.pipeline.writer-threads:4}") int writerThreads,
+                            @Value("${app.transfer.pipeline.max-batch-size:128}") int maxBatchSize,
+                            @Value("${app.transfer.pipeline.submit-timeout-ms:50}") long submitTimeoutMs,
+                            @Value("${app.transfer.pipeline.wait-timeout-ms:5000}") long waitTimeoutMs,
+                            @Value("${app.transfer.pipeline.status-ttl-minutes:15}") long statusTtlMinutes) {
+        this.cardService = cardService;
+        this.transferRetryExecutor = transferRetryExecutor;
+        this.enabled = enabled;
+        this.writerThreads = Math.max(1, writerThreads);
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.submitTimeoutMs = submitTimeoutMs;
+        this.waitTimeoutMs = waitTimeoutMs;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.statuses = Caffeine.newBuilder()
+                .maximumSize(Math.max(1, queueCapacity) * 16L)
+                .expireAfterWrite(Duration.ofMinutes(statusTtlMinutes))
+                .build();
+        this.batchSizes = DistributionSummary.builder("transfer.pipeline.batch.size")
+                .description("Number of transfers committed in one pipeline transaction")
+                .register(meterRegistry);
+        Gauge.builder("transfer.pipeline.queue.size", queue, BlockingQueue::size)
+                .description("Transfers waiting in the pipeline queue")
+                .register(meterRegistry);
+    }
+
+    /** Возвращает true, если переводы выполняются через конвейер */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Ставит перевод в очередь.
+     *
+     * @param userId          ID пользователя
+     * @param transferRequest данные перевода
+     * @return идентификатор заявки и её результат, завершающийся после фиксации пачки
+     * @throws TooManyRequestsException если очередь заполнена
+     */
+    public Ticket submit(Long userId, TransferRequestDto transferRequest) {
+        if (!running) {
+            throw new IllegalStateException("Transfer pipeline is not running");
+        }
+        CardValidator.validatePositiveAmount(transferRequest.getAmount());
+
+        Submission submission = new Submission(UUID.randomUUID(),
+                new TransferCommand(userId, transferRequest), new CompletableFuture<>());
+        statuses.put(submission.id(), new OwnedStatus(userId,
+                new TransferStatusDto(submission.id(), TransferStatusDto.State.PENDING, null)));
+        try {
+            if (!queue.offer(submission, submitTimeoutMs, TimeUnit.MILLISECONDS)) {
+                statuses.invalidate(submission.id());
+                throw new TooManyRequestsException("Transfer queue is full, try again later");
+            }
+        } catch (InterruptedException e) {
+            statuses.invalidate(submission.id());
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while submitting transfer", e);
+        }
+        return new Ticket(submission.id(), submission.result());
+    }
+
+    /**
+     * Выполняет перевод через конвейер и ждёт фиксации пачки.
+     *
+     * @param userId          ID пользователя
+     * @param transferRequest данные перевода
+     * @throws ServiceUnavailableException если пачка не зафиксирована за {@code app.transfer.pipeline.wait-timeout-ms}
+     * @throws RuntimeException причина отказа, если перевод не выполнен
+     */
+    public void submitAndWait(Long userId, TransferRequestDto transferRequest) {
+        Ticket ticket = submit(userId, transferRequest);
+        try {
+            ticket.result().get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new ServiceUnavailableException("Transfer " + ticket.id() + " is still pending, check its status later");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for transfer", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Возвращает статус заявки, если она принадлежит пользователю и ещё хранится.
+     *
+     * @param userId ID пользователя
+     * @param id     идентификатор заявки
+     * @return статус заявки
+     */
+    public Optional<TransferStatusDto> getStatus(Long userId, UUID id) {
+        OwnedStatus owned = statuses.getIfPresent(id);
+        if (owned == null || !owned.userId().equals(userId)) {
+            return Optional.empty();
+        }
+        return Optional.of(owned.status());
+    }
+
+    /** Цикл потока-писателя: забирает пачку из очереди и выполняет её */
+    private void drainLoop() {
+        List<Submission> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Submission first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Выполняет пачку в одной транзакции.
+     * <p>
+     * Если не удалась вся транзакция, переводы пачки выполняются по одному, чтобы ошибка
+     * одной заявки не отклонила остальные.
+     */
+    private void process(List<Submission> batch) {
+        List<TransferCommand> commands = batch.stream().map(Submission::command).toList();
+        List<RuntimeException> outcomes;
+        try {
+            outcomes = transferRetryExecutor.execute(() -> cardService.applyTransferBatch(commands));
+        } catch (RuntimeException e) {
+            if (batch.size() > 1) {
+                for (Submission submission : batch) {
+                    process(List.of(submission));
+                }
+            } else {
+                complete(batch.get(0), e);
+            }
+            return;
+        }
+        batchSizes.record(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            complete(batch.get(i), outcomes.get(i));
+        }
+    }
+
+    /** Завершает заявку и сохраняет её итоговый статус */
+    private void complete(Submission submission, RuntimeException error) {
+        TransferStatusDto status = error == null
+                ? new TransferStatusDto(submission.id(), TransferStatusDto.State.COMPLETED, null)
+                : new TransferStatusDto(submission.id(), TransferStatusDto.State.FAILED, error.getMessage());
+        statuses.put(submission.id(), new OwnedStatus(submission.command().userId(), status));
+        if (error == null) {
+            submission.result().complete(null);
+        } else {
+            submission.result().completeExceptionally(error);
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < writerThreads; i++) {
+            Thread writer = new Thread(this::drainLoop, "transfer-writer-" + i);
+            writer.setDaemon(true);
+            writer.start();
+            writers.add(writer);
+        }
+    }
+
+    /** Останавливает приём заявок и дожидается выполнения уже принятых */
+    @Override
+    public void stop() {
+        running = false;
+        for (Thread writer : writers) {
+            try {
+                writer.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        writers.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Принятая заявка на перевод.
+     *
+     * @param id     идентификатор заявки
+     * @param result результат, завершающийся после фиксации пачки
+     */
+    public record Ticket(UUID id, CompletableFuture<Void> result) {
+    }
+}
@@ -0,0 +1,141 @@
+package com.bank.api.service;
+
+import com.bank.api.exception.CardConflictException;
+import jakarta.persistence.OptimisticLockException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Выполняет операцию перевода в отдельной транзакции с автоматическим повтором.
+ * <p>
+ * Повтор выполняется, если MariaDB откатила транзакцию из-за взаимной блокировки (ошибка 1213)
+ * или таймаута ожидания блокировки (ошибка 1205), а также при конфликте версий в оптимистичном
+ * режиме и при параллельном изменении карты в режиме условных переводов
+ * ({@link CardConflictException}). Число попыток для этих двух случаев настраивается отдельно.
+ * Между попытками выдерживается пауза с экспоненциальным ростом и случайным разбросом,
+ * ограниченная сверху.
+ * <p>
+ * Вызывать нужно вне внешней транзакции: иначе откат затронет и её, и повтор не поможет.
+ */
+@Component
+public class TransferRetryExecutor {
+
+    /** Код ошибки MariaDB: взаимная блокировка, транзакция выбрана жертвой */
+    static final int ER_LOCK_DEADLOCK = 1213;
+
+    /** Код ошибки MariaDB: превышено время ожидания блокировки */
+    static final int ER_LOCK_WAIT_TIMEOUT = 1205;
+
+    private final TransactionOperations transactionOperations;
+    private final int maxAttempts;
+    private final int optimisticMaxAttempts;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+
+    public TransferRetryExecutor(TransactionOperations transactionOperations,
+                                 @Value("${app.transfer.retry.max-attempts:5}") int maxAttempts,
+                                 @Value("${app.transfer.optimistic.max-attempts:10}") int optimisticMaxAttempts,
+                                 @Value("${app.transfer.retry.initial-backoff-ms:10}") long initialBackoffMs,
+                                 @Value("${app.transfer.retry.max-backoff-ms:200}") long maxBackoffMs) {
+        this.transactionOperations = transactionOperations;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.optimisticMaxAttempts = Math.max(1, optimisticMaxAttempts);
+        this.initialBackoffMs = Math.max(0, initialBackoffMs);
+        this.maxBackoffMs = Math.max(this.initialBackoffMs, maxBackoffMs);
+    }
+
+    /**
+     * Выполняет действие в транзакции, повторяя его при конфликте блокировок или версий.
+     *
+     * @param action действие, выполняемое внутри транзакции
+     * @param <T>    тип результата
+     * @return результат действия
+     * @throws RuntimeException последняя ошибка, если все попытки исчерпаны, или любая неповторяемая ошибка
+     */
+    public <T> T execute(Supplier<T> action) {
+        int lockAttempts = 0;
+        int versionAttempts = 0;
+        while (true) {
+            try {
+                return transactionOperations.execute(status -> action.get());
+            } catch (RuntimeException ex) {
+                int attempt;
+                if (isRetryable(ex)) {
+                    attempt = ++lockAttempts;
+                    if (attempt >= maxAttempts) {
+                        throw ex;
+                    }
+                } else if (isVersionConflict(ex)) {
+                    attempt = ++versionAttempts;
+                    if (attempt >= optimisticMaxAttempts) {
+                        throw ex;
+                    }
+                } else {
+                    throw ex;
+                }
+                backoff(attempt);
+            }
+        }
+    }
+
+    /**
+     * Выполняет действие без результата в транзакции, повторяя его при конфликте блокировок или версий.
+     *
+     * @param action действие, выполняемое внутри транзакции
+     */
+    public void run(Runnable action) {
+        execute(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /** Проверяет, вызвана ли ошибка взаимной блокировкой или таймаутом ожидания блокировки */
+    static boolean isRetryable(Throwable ex) {
+        for (Throwable t = ex; t != null; t = t.getCause()) {
+            if (t instanceof PessimisticLockingFailureException) {
+                return true;
+            }
+            if (t instanceof SQLException sqlEx) {
+                int code = sqlEx.getErrorCode();
+                if (code == ER_LOCK_DEADLOCK || code == ER_LOCK_WAIT_TIMEOUT) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /** Проверяет, вызвана ли ошибка конфликтом версий или параллельным изменением карты */
+    static boolean isVersionConflict(Throwable ex) {
+        for (Throwable t = ex; t != null; t = t.getCause()) {
+            if (t instanceof OptimisticLockingFailureException
+                    || t instanceof OptimisticLockException
+                    || t instanceof CardConflictException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Пауза перед следующей попыткой: случайное значение до min(max, initial * 2^(attempt-1)) */
+    private void backoff(int attempt) {
+        long ceiling = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempt - 1, 20));
+        if (ceiling <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Transfer retry interrupted", e);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.bank.api.service;
+
+import com.bank.api.entity.User;
+import com.bank.api.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Кэш данных пользователей для {@link CustomUserDetailsService}.
+ * <p>
+ * Размер и срок хранения записей ограничены. Одновременные промахи по одному логину
+ * выполняют один запрос к базе, остальные запросы ждут его результата. Отсутствующие
+ * пользователи не кэшируются. Логины сравниваются без учёта регистра, как их сравнивает
+ * уникальный индекс таблицы users, поэтому вход под {@code ALICE} и удаление {@code alice}
+ * затрагивают одну запись.
+ * <p>
+ * Блокировка, активация и удаление пользователя удаляют запись сразу и ещё раз после фиксации
+ * транзакции: промах, прочитавший старые данные до фиксации, не остаётся в кэше.
+ * <p>
+ * При запуске в кэш загружаются пользователи, входившие в систему за последние дни.
+ * Кэш локален для узла; изменения, сделанные другими узлами, видны не позже истечения срока
+ * хранения записи. Статистика публикуется метриками {@code cache.*} с тегом {@code cache=user.details}.
+ */
+@Component
+public class UserDetailsCache {
+
+    private static final Logger log = LoggerFactory.getLogger(UserDetailsCache.class);
+
+    private final UserRepository userRepository;
+    private final Cache<String, CustomUserDetails> cache;
+    private final int warmupSize;
+    private final int warmupDays;
+
+    public UserDetailsCache(UserRepository userRepository,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.auth.user-cache.max-size:10000}") long maxSize,
+                            @Value("${app.auth.user-cache.ttl-seconds:300}") long ttlSeconds,
+                            @Value("${app.auth.user-cache.warmup-size:1000}") int warmupSize,
+                            @Value("${app.auth.user-cache.warmup-days:7}") int warmupDays) {
+        this.userRepository = userRepository;
+        this.warmupSize = warmupSize;
+        this.warmupDays = warmupDays;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "user.details");
+    }
+
+    /**
+     * Возвращает данные пользователя из кэша, а при промахе читает их из БД.
+     *
+     * @param username логин пользователя
+     * @return данные пользователя или пустой Optional, если пользователя нет
+     */
+    public Optional<CustomUserDetails> get(String username) {
+        return Optional.ofNullable(cache.get(key(username), key -> load(username)));
+    }
+
+    /**
+     * Удаляет пользователя из кэша сразу и после фиксации текущей транзакции.
+     *
+     * @param username логин пользователя
+     */
+    public void evict(String username) {
+        if (username == null) {
+            return;
+        }
+        String key = key(username);
+        cache.invalidate(key);
+        afterCommit(() -> cache.invalidate(key));
+    }
+
+    /** Загружает недавно входивших пользователей до приёма запросов */
+    @PostConstruct
+    public void warmUp() {
+        if (warmupSize <= 0) {
+            return;
+        }
+        try {
+            List<User> users = userRepository.findRecentlyActive(LocalDateTime.now().minusDays(warmupDays),
+                    PageRequest.of(0, warmupSize));
+            for (User user : users) {
+                cache.put(key(user.getUsername()), new CustomUserDetails(user));
+            }
+            log.info("Warmed up user details cache with {} users", users.size());
+        } catch (RuntimeException e) {
+            log.warn("User details cache warm-up failed", e);
+        }
+    }
+
+    private CustomUserDetails load(String username) {
+        return userRepository.findByUsername(username)
+                .map(CustomUserDetails::new)
+                .orElse(null);
+    }
+
+    /** Ключ кэша для сравнения логинов без учёта регистра */
+    private static String key(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
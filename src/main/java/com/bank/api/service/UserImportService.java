@@ -0,0 +1,356 @@
+package com.bank.api.service;
+
+import com.bank.api.dto.UserCreateDto;
+import com.bank.api.dto.UserImportErrorDto;
+import com.bank.api.dto.UserImportResultDto;
+import com.bank.api.entity.Role;
+import com.bank.api.entity.User;
+import com.bank.api.exception.TooManyRequestsException;
+import com.bank.api.repository.UserRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Массовый импорт пользователей из CSV или NDJSON.
+ * <p>
+ * Входные данные читаются потоком и обрабатываются порциями по {@code app.user.import.batch-size}
+ * строк, поэтому в памяти находится одна порция, а не весь файл. Для каждой порции:
+ * <ul>
+ *     <li>занятые логины определяются одним запросом к базе</li>
+ *     <li>пароли хешируются параллельно в собственном пуле импорта ({@code app.user.import.hash-threads});
+ *     само хеширование идёт через общий ограниченный пул {@link PasswordEncoder}, поэтому импорт
+ *     не отнимает процессор сверх его лимита. Если очередь общего пула заполнена (например, всплеск
+ *     логинов), импорт ждёт и повторяет попытку до {@code app.user.import.hash-wait-ms}, а не
+ *     отклоняет строку сразу</li>
+ *     <li>пользователи вставляются одним пакетом JDBC в отдельной транзакции</li>
+ * </ul>
+ * Если пакет отклонён базой (логин заняли параллельно), строки порции вставляются по одной.
+ * Строки с ошибками пропускаются и попадают в отчёт; повторный импорт того же файла
+ * безопасен: созданные ранее пользователи отклоняются как занятые логины.
+ * <p>
+ * Логины сравниваются без учёта регистра, как их сравнивает уникальный индекс таблицы users.
+ */
+@Service
+public class UserImportService {
+
+    /** Формат входных данных */
+    public enum Format {
+        /** Строки {@code username,password,role}; первая строка может быть заголовком */
+        CSV,
+        /** Один JSON-объект {@link UserCreateDto} на строку */
+        NDJSON
+    }
+
+    private static final int MAX_USERNAME_LENGTH = 255;
+
+    /** Разобранная строка входных данных */
+    private record Row(long line, String username, String password, Role role) {
+    }
+
+    private final UserRepository userRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final long hashRetryMs;
+    private final long hashWaitMs;
+    private final ExecutorService hashers;
+
+    public UserImportService(UserRepository userRepository,
+                             PasswordEncoder passwordEncoder,
+                             ObjectMapper objectMapper,
+                             @Value("${app.user.import.batch-size:500}") int batchSize,
+                             @Value("${app.user.import.hash-threads:4}") int hashThreads,
+                             @Value("${app.user.import.hash-retry-ms:50}") long hashRetryMs,
+                             @Value("${app.user.import.hash-wait-ms:60000}") long hashWaitMs) {
+        this.userRepository = userRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.objectMapper = objectMapper;
+        this.batchSize = Math.max(1, batchSize);
+        this.hashRetryMs = Math.max(1, hashRetryMs);
+        this.hashWaitMs = Math.max(0, hashWaitMs);
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.hashers = Executors.newFixedThreadPool(Math.max(1, hashThreads), task -> {
+            Thread thread = new Thread(task, "user-import-hashing-" + threadIndex.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Импортирует пользователей.
+     *
+     * @param input  входные данные в UTF-8
+     * @param format формат входных данных
+     * @return число строк и созданных пользователей, ошибки по строкам в порядке строк
+     * @throws IOException ошибка чтения входных данных
+     */
+    public UserImportResultDto importUsers(InputStream input, Format format) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        List<UserImportErrorDto> errors = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        List<Row> chunk = new ArrayList<>(batchSize);
+        long rows = 0;
+        long created = 0;
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || (format == Format.CSV && lineNumber == 1 && isCsvHeader(line))) {
+                continue;
+            }
+            rows++;
+            Row row = parse(line, lineNumber, format, errors);
+            if (row == null) {
+                continue;
+            }
+            if (!seen.add(key(row.username()))) {
+                errors.add(new UserImportErrorDto(row.line(), row.username(), "Duplicate username in import"));
+                continue;
+            }
+            chunk.add(row);
+            if (chunk.size() == batchSize) {
+                created += process(chunk, errors);
+                chunk.clear();
+            }
+        }
+        created += process(chunk, errors);
+        errors.sort(Comparator.comparingLong(UserImportErrorDto::getLine));
+        return new UserImportResultDto(rows, created, errors);
+    }
+
+    /**
+     * Создаёт пользователей порции.
+     *
+     * @return число созданных пользователей
+     */
+    private int process(List<Row> chunk, List<UserImportErrorDto> errors) {
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+        Set<String> existing = userRepository.findExistingUsernames(chunk.stream().map(Row::username).toList())
+                .stream()
+                .map(UserImportService::key)
+                .collect(Collectors.toSet());
+        List<Row> fresh = new ArrayList<>(chunk.size());
+        for (Row row : chunk) {
+            if (existing.contains(key(row.username()))) {
+                errors.add(new UserImportErrorDto(row.line(), row.username(), "Username already exists"));
+            } else {
+                fresh.add(row);
+            }
+        }
+
+        List<Future<String>> hashes = new ArrayList<>(fresh.size());
+        for (Row row : fresh) {
+            hashes.add(hashers.submit(() -> encode(row.password())));
+        }
+        List<User> batch = new ArrayList<>(fresh.size());
+        List<Row> batchRows = new ArrayList<>(fresh.size());
+        for (int i = 0; i < fresh.size(); i++) {
+            Row row = fresh.get(i);
+            String hash;
+            try {
+                hash = await(hashes.get(i));
+            } catch (TooManyRequestsException e) {
+                errors.add(new UserImportErrorDto(row.line(), row.username(), e.getMessage()));
+                continue;
+            } catch (RuntimeException e) {
+                hashes.forEach(future -> future.cancel(true));
+                throw e;
+            }
+            User user = new User();
+            user.setUsername(row.username());
+            user.setPassword(hash);
+            user.setRole(row.role());
+            user.setEnabled(true);
+            batch.add(user);
+            batchRows.add(row);
+        }
+
+        try {
+            return userRepository.insertAll(batch);
+        } catch (DataIntegrityViolationException e) {
+            return insertOneByOne(batch, batchRows, errors);
+        }
+    }
+
+    /**
+     * Хеширует пароль, повторяя попытку, пока очередь хеширования заполнена.
+     *
+     * @throws TooManyRequestsException если очередь не освободилась за {@code app.user.import.hash-wait-ms}
+     */
+    private String encode(String password) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(hashWaitMs);
+        while (true) {
+            try {
+                return passwordEncoder.encode(password);
+            } catch (TooManyRequestsException e) {
+                if (System.nanoTime() - deadline >= 0) {
+                    throw e;
+                }
+                Thread.sleep(hashRetryMs);
+            }
+        }
+    }
+
+    /** Ждёт хеш пароля, пробрасывая исключение хеширования */
+    private static String await(Future<String> hash) {
+        try {
+            return hash.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing passwords", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /** Останавливает пул хеширования при закрытии контекста */
+    @PreDestroy
+    public void shutdown() {
+        hashers.shutdownNow();
+    }
+
+    /** Вставляет пользователей по одному, записывая отклонённые строки в отчёт */
+    private int insertOneByOne(List<User> users, List<Row> rows, List<UserImportErrorDto> errors) {
+        int created = 0;
+        for (int i = 0; i < users.size(); i++) {
+            try {
+                created += userRepository.insertAll(List.of(users.get(i)));
+            } catch (DataIntegrityViolationException e) {
+                String message = e instanceof DuplicateKeyException ? "Username already exists" : "Row rejected by database";
+                errors.add(new UserImportErrorDto(rows.get(i).line(), rows.get(i).username(), message));
+            }
+        }
+        return created;
+    }
+
+    /**
+     * Разбирает и проверяет строку.
+     *
+     * @return строка или null, если она содержит ошибку (ошибка добавляется в отчёт)
+     */
+    private Row parse(String line, long lineNumber, Format format, List<UserImportErrorDto> errors) {
+        String username;
+        String password;
+        Role role;
+        if (format == Format.NDJSON) {
+            UserCreateDto dto;
+            try {
+                dto = objectMapper.readValue(line, UserCreateDto.class);
+            } catch (JsonProcessingException e) {
+                errors.add(new UserImportErrorDto(lineNumber, null, "Malformed row"));
+                return null;
+            }
+            username = dto.getUsername();
+            password = dto.getPassword();
+            role = dto.getRole();
+        } else {
+            List<String> fields = parseCsvLine(line);
+            if (fields == null || fields.size() != 3) {
+                errors.add(new UserImportErrorDto(lineNumber, null, "Malformed row"));
+                return null;
+            }
+            username = fields.get(0);
+            password = fields.get(1);
+            String roleName = fields.get(2).trim();
+            try {
+                role = roleName.isEmpty() ? null : Role.valueOf(roleName.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                errors.add(new UserImportErrorDto(lineNumber, username, "Invalid role: " + roleName));
+                return null;
+            }
+        }
+
+        String error = null;
+        if (username == null || username.isBlank()) {
+            error = "Username is required";
+        } else if (username.length() > MAX_USERNAME_LENGTH) {
+            error = "Username is too long";
+        } else if (password == null || password.isEmpty()) {
+            error = "Password is required";
+        } else if (role == null) {
+            error = "Role is required";
+        }
+        if (error != null) {
+            errors.add(new UserImportErrorDto(lineNumber, username, error));
+            return null;
+        }
+        return new Row(lineNumber, username, password, role);
+    }
+
+    private static boolean isCsvHeader(String line) {
+        List<String> fields = parseCsvLine(line);
+        return fields != null && !fields.isEmpty() && "username".equalsIgnoreCase(fields.get(0).trim());
+    }
+
+    /**
+     * Разбирает строку CSV: поля через запятую, поле в кавычках может содержать запятые,
+     * кавычка внутри него записывается двумя кавычками.
+     *
+     * @return поля строки или null, если кавычка не закрыта
+     */
+    private static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>(3);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /** Ключ логина для сравнения без учёта регистра */
+    private static String key(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+}
@@ -5,28 +5,42 @@ import com.bank.api.dto.UserDto;
 import com.bank.api.entity.Role;
 import com.bank.api.entity.User;
 import com.bank.api.repository.UserRepository;
+import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.EnumSet;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Сервис для работы с пользователями.
  * <p>
  * Содержит бизнес-логику создания, блокировки, активации и удаления пользователей.
+ * Блокировка и удаление отзывают выпущенные пользователю токены (см. {@link TokenVersionRegistry}),
+ * изменение статуса удаляет пользователя из {@link UserDetailsCache}.
  */
 @Service
 public class UserService implements UserServiceInterface {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final EntityManager entityManager;
+    private final TokenVersionRegistry tokenVersions;
+    private final UserDetailsCache userDetailsCache;
 
     public UserService(UserRepository userRepository,
-                       PasswordEncoder passwordEncoder) {
+                       PasswordEncoder passwordEncoder,
+                       EntityManager entityManager,
+                       TokenVersionRegistry tokenVersions,
+                       UserDetailsCache userDetailsCache) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.entityManager = entityManager;
+        this.tokenVersions = tokenVersions;
+        this.userDetailsCache = userDetailsCache;
     }
 
     /**
@@ -42,7 +56,26 @@ public class UserService implements UserServiceInterface {
     }
 
     /**
-     * Блокирует пользователя (устанавливает enabled = false).
+     * Выгружает всех пользователей, читая их из базы потоком.
+     * <p>
+     * Каждый пользователь отсоединяется от контекста персистентности сразу после преобразования
+     * в DTO, поэтому память не зависит от числа пользователей.
+     *
+     * @param sink обработчик, вызываемый для каждого пользователя
+     */
+    @Override
+    @Transactional
+    public void exportUsers(Consumer<UserDto> sink) {
+        try (Stream<User> users = userRepository.streamAll()) {
+            users.forEach(user -> {
+                entityManager.detach(user);
+                sink.accept(UserDto.fromEntity(user));
+            });
+        }
+    }
+
+    /**
+     * Блокирует пользователя (устанавливает enabled = false) и отзывает его токены.
      *
      * @param userId ID пользователя
      */
@@ -53,6 +86,8 @@ public class UserService implements UserServiceInterface {
                 .orElseThrow(() -> new RuntimeException("User not found"));
         user.setEnabled(false);
         userRepository.save(user);
+        tokenVersions.revokeTokens(userId);
+        userDetailsCache.evict(user.getUsername());
     }
 
     /**
@@ -67,6 +102,7 @@ public class UserService implements UserServiceInterface {
                 .orElseThrow(() -> new RuntimeException("User not found"));
         user.setEnabled(true);
         userRepository.save(user);
+        userDetailsCache.evict(user.getUsername());
     }
 
     /**
@@ -94,13 +130,16 @@ public class UserService implements UserServiceInterface {
     }
 
     /**
-     * Удаляет пользователя по ID.
+     * Удаляет пользователя по ID и отзывает его токены.
      *
      * @param userId ID пользователя
      */
     @Override
     @Transactional
     public void deleteUser(Long userId) {
+        userRepository.findById(userId)
+                .ifPresent(user -> userDetailsCache.evict(user.getUsername()));
         userRepository.deleteById(userId);
+        tokenVersions.revokeTokens(userId);
     }
 }
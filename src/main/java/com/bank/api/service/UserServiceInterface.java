@@ -4,6 +4,7 @@ import com.bank.api.dto.UserCreateDto;
 import com.bank.api.dto.UserDto;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Интерфейс для сервиса управления пользователями.
@@ -14,6 +15,13 @@ public interface UserServiceInterface {
      */
     List<UserDto> getAllUsers();
 
+    /**
+     * Выгружает всех пользователей по одному, не собирая их в список.
+     *
+     * @param sink обработчик, вызываемый для каждого пользователя
+     */
+    void exportUsers(Consumer<UserDto> sink);
+
     /**
      * Блокирует пользователя по ID.
      */
@@ -0,0 +1,43 @@
+package com.bank.api.util;
+
+import com.bank.api.entity.CardStatus;
+import com.bank.api.exception.BusinessException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Курсор постраничного чтения карт: статус и ID последней карты предыдущей порции.
+ * <p>
+ * Клиенту передаётся непрозрачной строкой (Base64 без дополнения), которую нужно вернуть
+ * без изменений за следующей порцией.
+ *
+ * @param status статус последней карты
+ * @param id     ID последней карты
+ */
+public record CardCursor(CardStatus status, Long id) {
+
+    /** Кодирует курсор в строку для клиента */
+    public String encode() {
+        String raw = status.name() + ':' + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Разбирает курсор, полученный от клиента.
+     *
+     * @param token строка курсора
+     * @return курсор
+     * @throws BusinessException если строка не является курсором
+     */
+    public static CardCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            return new CardCursor(CardStatus.valueOf(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new BusinessException("Invalid cursor");
+        }
+    }
+}
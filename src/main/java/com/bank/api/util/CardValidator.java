@@ -10,6 +10,12 @@ import com.bank.api.entity.CardStatus;
  * Класс для валидации банковских карт.
  * <p>
  * Проверка баланса, статуса и даты истечения.
+ * <p>
+ * В режиме условных переводов те же условия проверяются в самом {@code UPDATE},
+ * а валидатор используется для определения причины отказа.
+ * <p>
+ * Проверки переводов не изменяют карту: в пакете переводов отказ одного перевода
+ * не откатывает транзакцию, и изменённая карта была бы сохранена вместе с остальными.
  */
 public class CardValidator {
 
@@ -17,18 +23,25 @@ public class CardValidator {
 
     /** Проверяет, что карта не истекла */
     public static void validateNotExpired(Card card) {
-        if (card.getExpirationDate().isBefore(LocalDate.now())) {
+        if (isExpired(card)) {
             card.setStatus(CardStatus.EXPIRED);
             throw new RuntimeException("Card expired");
         }
     }
 
-    /** Проверяет, что карта активна и не истекла */
+    /** Проверяет, что карта активна и не истекла, не изменяя её статус */
     public static void validateActiveAndNotExpired(Card card, String context) {
         if (card.getStatus() != CardStatus.ACTIVE) {
             throw new RuntimeException(context + " is not active");
         }
-        validateNotExpired(card);
+        if (isExpired(card)) {
+            throw new RuntimeException("Card expired");
+        }
+    }
+
+    /** Возвращает true, если срок действия карты истёк */
+    private static boolean isExpired(Card card) {
+        return card.getExpirationDate().isBefore(LocalDate.now());
     }
 
     /** Проверяет, что сумма перевода положительна */
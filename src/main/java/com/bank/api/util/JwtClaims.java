@@ -0,0 +1,31 @@
+package com.bank.api.util;
+
+import com.bank.api.entity.Role;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Данные проверенного JWT: подпись токена уже проверена, срок действия не истёк на момент проверки.
+ *
+ * @param tokenId      ID токена (jti) или null для токенов, выпущенных без него
+ * @param userId       ID пользователя
+ * @param username     имя пользователя (subject)
+ * @param role         роль пользователя
+ * @param tokenVersion версия токенов пользователя на момент выпуска
+ * @param issuedAt     время выпуска
+ * @param expiresAt    время истечения
+ */
+public record JwtClaims(UUID tokenId, Long userId, String username, Role role, int tokenVersion,
+                        Instant issuedAt, Instant expiresAt) {
+
+    /**
+     * Проверяет, истёк ли токен к указанному моменту.
+     *
+     * @param now текущее время
+     * @return true если токен истёк
+     */
+    public boolean isExpired(Instant now) {
+        return !expiresAt.isAfter(now);
+    }
+}
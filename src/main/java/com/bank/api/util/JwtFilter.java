@@ -1,34 +1,45 @@
 package com.bank.api.util;
 
+import com.bank.api.service.AuthenticatedUser;
+import com.bank.api.service.TokenRevocationList;
+import com.bank.api.service.TokenVersionRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Optional;
 
 /**
  * Фильтр JWT для обработки каждого запроса.
  * <p>
  * Проверяет наличие токена в заголовке Authorization,
  * валидирует его и устанавливает аутентификацию пользователя в SecurityContext.
+ * <p>
+ * Токен разбирается и проверяется один раз за запрос (см. {@link JwtUtil#parseValidClaims(String)});
+ * недействительный или истёкший токен оставляет запрос неаутентифицированным.
+ * <p>
+ * Пользователь строится из данных токена без обращения к базе. Токен, выпущенный до блокировки
+ * или удаления пользователя, отклоняется по версии токенов (см. {@link TokenVersionRegistry}),
+ * отдельно отозванный токен — по списку отзыва (см. {@link TokenRevocationList}).
  */
 @Component
 public class JwtFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
-    private final UserDetailsService userDetailsService;
+    private final TokenVersionRegistry tokenVersions;
+    private final TokenRevocationList revocationList;
 
-    public JwtFilter(JwtUtil jwtUtil, UserDetailsService userDetailsService) {
+    public JwtFilter(JwtUtil jwtUtil, TokenVersionRegistry tokenVersions, TokenRevocationList revocationList) {
         this.jwtUtil = jwtUtil;
-        this.userDetailsService = userDetailsService;
+        this.tokenVersions = tokenVersions;
+        this.revocationList = revocationList;
     }
 
 
@@ -48,20 +59,19 @@ public class JwtFilter extends OncePerRequestFilter {
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
         String authHeader = request.getHeader("Authorization");
 
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            String jwt = authHeader.substring(7);
-            String username = jwtUtil.extractUsername(jwt);
-
-            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+        if (authHeader != null && authHeader.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            Optional<JwtClaims> claims = jwtUtil.parseValidClaims(authHeader.substring(7))
+                    .filter(c -> tokenVersions.isCurrent(c.userId(), c.tokenVersion()))
+                    .filter(c -> !revocationList.isRevoked(c.tokenId()));
 
-                if (jwtUtil.validateToken(jwt, userDetails)) {
-                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            userDetails, null, userDetails.getAuthorities()
-                    );
-                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
-                }
+            if (claims.isPresent()) {
+                AuthenticatedUser user = AuthenticatedUser.from(claims.get());
+                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                        user, null, user.getAuthorities()
+                );
+                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authToken);
             }
         }
 
@@ -1,30 +1,144 @@
 package com.bank.api.util;
 
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.stereotype.Component;
+import com.bank.api.entity.Role;
+import com.bank.api.entity.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.impl.TextCodec;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
 
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
 import java.util.function.Function;
 
 /**
  * Утилитарный класс для работы с JWT токенами.
  * <p>
  * Позволяет создавать токены, извлекать информацию и валидировать их.
+ * <p>
+ * Ключ подписи и парсер создаются один раз при запуске. {@link #parseValidClaims(String)} проверяет
+ * подпись и срок действия за один разбор и запоминает результат в ограниченном кэше до истечения
+ * токена; ключом кэша служит SHA-256 токена, сами токены в памяти не хранятся. Повторные запросы
+ * с тем же токеном не разбирают его заново.
+ * <p>
+ * Токен содержит ID, роль и версию токенов пользователя, поэтому аутентификация по нему
+ * не обращается к базе. Каждый токен получает собственный ID (jti), по которому его можно отозвать.
  */
 @Component
 public class JwtUtil {
 
-    @Value("${jwt.secret}")
-    private String secret;
+    private static final String USER_ID_CLAIM = "uid";
+    private static final String ROLE_CLAIM = "role";
+    private static final String TOKEN_VERSION_CLAIM = "ver";
+
+    private final Key signingKey;
+    private final JwtParser parser;
+    private final long expiration;
+    private final Cache<String, JwtClaims> verifiedTokens;
+
+    public JwtUtil(@Value("${jwt.secret}") String secret,
+                   @Value("${jwt.expiration}") long expiration,
+                   @Value("${jwt.cache.max-size:10000}") long cacheSize) {
+        this.signingKey = new SecretKeySpec(TextCodec.BASE64.decode(secret), SignatureAlgorithm.HS256.getJcaName());
+        this.parser = Jwts.parser().setSigningKey(signingKey);
+        this.expiration = expiration;
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfter(new Expiry<String, JwtClaims>() {
+                    @Override
+                    public long expireAfterCreate(String key, JwtClaims claims, long currentTime) {
+                        return Math.max(0, Duration.between(Instant.now(), claims.expiresAt()).toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, JwtClaims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, JwtClaims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Проверяет подпись и срок действия токена и возвращает его данные.
+     *
+     * @param token JWT токен
+     * @return данные токена или пустой Optional, если токен недействителен или истёк
+     */
+    public Optional<JwtClaims> parseValidClaims(String token) {
+        Instant now = Instant.now();
+        String key = hash(token);
+        JwtClaims cached = verifiedTokens.getIfPresent(key);
+        if (cached != null) {
+            return cached.isExpired(now) ? Optional.empty() : Optional.of(cached);
+        }
+        Claims claims;
+        try {
+            claims = extractAllClaims(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        JwtClaims verified = toJwtClaims(claims);
+        if (verified == null) {
+            return Optional.empty();
+        }
+        if (verified.isExpired(now)) {
+            return Optional.empty();
+        }
+        verifiedTokens.put(key, verified);
+        return Optional.of(verified);
+    }
 
-    @Value("${jwt.expiration}")
-    private long expiration;
+    /**
+     * Преобразует claims в {@link JwtClaims}.
+     *
+     * @param claims claims проверенного токена
+     * @return данные токена или null, если в токене нет нужных полей
+     */
+    private static JwtClaims toJwtClaims(Claims claims) {
+        Object userId = claims.get(USER_ID_CLAIM);
+        Object role = claims.get(ROLE_CLAIM);
+        Object tokenVersion = claims.get(TOKEN_VERSION_CLAIM);
+        if (claims.getSubject() == null || claims.getExpiration() == null
+                || !(userId instanceof Number) || !(role instanceof String) || !(tokenVersion instanceof Number)) {
+            return null;
+        }
+        Role parsedRole;
+        UUID tokenId;
+        try {
+            parsedRole = Role.valueOf((String) role);
+            tokenId = claims.getId() != null ? UUID.fromString(claims.getId()) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return new JwtClaims(tokenId, ((Number) userId).longValue(), claims.getSubject(), parsedRole,
+                ((Number) tokenVersion).intValue(),
+                claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                claims.getExpiration().toInstant());
+    }
 
     /**
      * Извлекает имя пользователя (subject) из JWT.
@@ -66,20 +180,7 @@ public class JwtUtil {
      * @return claims
      */
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .setSigningKey(secret)
-                .parseClaimsJws(token)
-                .getBody();
-    }
-
-    /**
-     * Проверяет, истек ли токен.
-     *
-     * @param token JWT токен
-     * @return true если токен истек
-     */
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        return parser.parseClaimsJws(token).getBody();
     }
 
     /**
@@ -90,19 +191,24 @@ public class JwtUtil {
      * @return true если токен действителен
      */
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        return parseValidClaims(token)
+                .map(claims -> claims.username().equals(userDetails.getUsername()))
+                .orElse(false);
     }
 
     /**
      * Генерирует новый JWT токен для пользователя.
      *
-     * @param userDetails данные пользователя
+     * @param user         пользователь
+     * @param tokenVersion текущая версия токенов пользователя
      * @return JWT токен
      */
-    public String generateToken(UserDetails userDetails) {
+    public String generateToken(User user, int tokenVersion) {
         Map<String, Object> claims = new HashMap<>();
-        return createToken(claims, userDetails.getUsername());
+        claims.put(USER_ID_CLAIM, user.getId());
+        claims.put(ROLE_CLAIM, user.getRole().name());
+        claims.put(TOKEN_VERSION_CLAIM, tokenVersion);
+        return createToken(claims, user.getUsername());
     }
 
     /**
@@ -115,10 +221,21 @@ public class JwtUtil {
     private String createToken(Map<String, Object> claims, String subject) {
         return Jwts.builder()
                 .setClaims(claims)
+                .setId(UUID.randomUUID().toString())
                 .setSubject(subject)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(SignatureAlgorithm.HS256, secret)
+                .signWith(SignatureAlgorithm.HS256, signingKey)
                 .compact();
     }
+
+    /** Возвращает SHA-256 токена — ключ кэша проверенных токенов */
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
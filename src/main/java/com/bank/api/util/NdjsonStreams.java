@@ -0,0 +1,49 @@
+package com.bank.api.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Выгрузка данных в формате NDJSON: один JSON-объект на строку.
+ * <p>
+ * Объекты пишутся в ответ по мере чтения, поэтому в памяти находится только текущий объект,
+ * а не весь список. Отступы в JSON отключаются независимо от настроек приложения: каждый объект
+ * должен занимать ровно одну строку.
+ */
+public final class NdjsonStreams {
+
+    private NdjsonStreams() {
+    }
+
+    /**
+     * Создаёт тело ответа, которое пишет каждый переданный экспортом объект отдельной строкой.
+     *
+     * @param objectMapper сериализатор JSON
+     * @param export       выгрузка: вызывает переданный обработчик для каждого объекта
+     * @param <T>          тип объектов
+     * @return тело ответа
+     */
+    public static <T> StreamingResponseBody body(ObjectMapper objectMapper, Consumer<Consumer<T>> export) {
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+        return out -> {
+            try {
+                export.accept(item -> {
+                    try {
+                        out.write(writer.writeValueAsBytes(item));
+                        out.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+    }
+}
@@ -0,0 +1,97 @@
+package com.bank.api.util;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Фильтр Блума для UUID.
+ * <p>
+ * Отвечает «точно нет» или «возможно есть»: ложноотрицательных ответов не бывает, доля
+ * ложноположительных задаётся при создании. Индексы битов вычисляются двойным хешированием
+ * из двух половин UUID, поэтому проверка не выделяет память и не обращается к строкам.
+ * Добавление и проверка потокобезопасны и выполняются без блокировок.
+ */
+public final class UuidBloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+
+    private UuidBloomFilter(long bitCount, int hashCount) {
+        this.words = new AtomicLongArray((int) ((bitCount + 63) >>> 6));
+        this.bitCount = (long) words.length() << 6;
+        this.hashCount = hashCount;
+    }
+
+    /**
+     * Создаёт фильтр под ожидаемое число элементов.
+     *
+     * @param expectedInsertions ожидаемое число элементов
+     * @param falsePositiveRate  допустимая доля ложноположительных ответов, от 0 до 1
+     * @return пустой фильтр
+     */
+    public static UuidBloomFilter create(long expectedInsertions, double falsePositiveRate) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1");
+        }
+        long n = Math.max(1, expectedInsertions);
+        long bits = Math.max(64, (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2))));
+        if (bits > (long) Integer.MAX_VALUE << 6) {
+            throw new IllegalArgumentException("Bloom filter is too large");
+        }
+        int hashes = Math.max(1, (int) Math.round((double) bits / n * Math.log(2)));
+        return new UuidBloomFilter(bits, hashes);
+    }
+
+    /**
+     * Добавляет элемент.
+     *
+     * @param value UUID
+     */
+    public void put(UUID value) {
+        long h1 = mix(value.getMostSignificantBits());
+        long h2 = mix(value.getLeastSignificantBits()) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = words.get(word);
+            while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+                current = words.get(word);
+            }
+        }
+    }
+
+    /**
+     * Проверяет, мог ли элемент быть добавлен.
+     *
+     * @param value UUID
+     * @return false, если элемент точно не добавлялся
+     */
+    public boolean mightContain(UUID value) {
+        long h1 = mix(value.getMostSignificantBits());
+        long h2 = mix(value.getLeastSignificantBits()) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Возвращает размер фильтра в битах */
+    public long bitSize() {
+        return bitCount;
+    }
+
+    /** Перемешивает биты (финализатор MurmurHash3), чтобы не зависеть от структуры UUID */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb93fe53a87c3L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
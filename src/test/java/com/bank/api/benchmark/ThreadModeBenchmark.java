@@ -0,0 +1,202 @@
+package com.bank.api.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Сравнительный нагрузочный тест режимов обработки запросов: пул платформенных потоков Tomcat
+ * против виртуальных потоков ({@code spring.threads.virtual.enabled=true}).
+ * <p>
+ * Запускаются два экземпляра приложения с общей БД, отличающиеся только этим свойством. Тест
+ * нагружает каждый экземпляр замкнутым циклом запросов с возрастающим числом одновременных
+ * клиентов и для каждого уровня выводит пропускную способность, p50, p99, максимум и долю ошибок.
+ * Максимальная конкурентность — наибольший уровень, на котором p99 не превышает порог,
+ * а ошибок не больше 1%.
+ * <p>
+ * Класс не является JUnit-тестом и запускается вручную после {@code mvn test-compile}:
+ * <pre>
+ * SPRING_THREADS_VIRTUAL_ENABLED=false SERVER_PORT=8084 java -jar target/api.jar &amp;
+ * SPRING_THREADS_VIRTUAL_ENABLED=true  SERVER_PORT=8085 java -jar target/api.jar &amp;
+ * java -cp target/test-classes com.bank.api.benchmark.ThreadModeBenchmark \
+ *     --target platform=http://localhost:8084 --target virtual=http://localhost:8085 \
+ *     --user john --password secret --path /api/user/card \
+ *     --concurrency 50,100,200,400,800,1600 --duration 20 --slo-ms 500
+ * </pre>
+ * Пул соединений Hikari ограничивает число одновременных обращений к MariaDB в обоих режимах;
+ * при сравнении его размер должен быть одинаковым.
+ */
+public final class ThreadModeBenchmark {
+
+    private static final Pattern TOKEN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+
+    private ThreadModeBenchmark() {
+    }
+
+    /** Результат одного уровня нагрузки */
+    private record Level(int concurrency, long requests, long errors, double seconds, long[] latenciesNanos) {
+
+        double throughput() {
+            return requests / seconds;
+        }
+
+        double errorRate() {
+            return requests == 0 ? 0 : (double) errors / requests;
+        }
+
+        double percentileMs(double p) {
+            if (latenciesNanos.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(p * latenciesNanos.length) - 1;
+            return latenciesNanos[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> targets = new LinkedHashMap<>();
+        String user = null;
+        String password = null;
+        String path = "/api/user/card";
+        int[] levels = {50, 100, 200, 400, 800};
+        int durationSeconds = 20;
+        int warmupSeconds = 5;
+        double sloMs = 500;
+
+        for (int i = 0; i < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--target" -> {
+                    String[] parts = value.split("=", 2);
+                    targets.put(parts[0], parts[1]);
+                }
+                case "--user" -> user = value;
+                case "--password" -> password = value;
+                case "--path" -> path = value;
+                case "--concurrency" -> levels = Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray();
+                case "--duration" -> durationSeconds = Integer.parseInt(value);
+                case "--warmup" -> warmupSeconds = Integer.parseInt(value);
+                case "--slo-ms" -> sloMs = Double.parseDouble(value);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (targets.isEmpty() || user == null || password == null) {
+            System.err.println("Usage: ThreadModeBenchmark --target name=url [--target name=url] "
+                    + "--user u --password p [--path /api/user/card] [--concurrency 50,100,200] "
+                    + "[--duration 20] [--warmup 5] [--slo-ms 500]");
+            System.exit(2);
+        }
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        Map<String, Integer> maxConcurrency = new LinkedHashMap<>();
+        for (Map.Entry<String, String> target : targets.entrySet()) {
+            String token = login(client, target.getValue(), user, password);
+            URI uri = URI.create(target.getValue() + path);
+            System.out.printf("%n== %s (%s)%n", target.getKey(), uri);
+            System.out.printf("%11s %10s %10s %10s %10s %8s%n", "concurrency", "req/s", "p50 ms", "p99 ms", "max ms", "errors");
+
+            run(client, uri, token, levels[0], warmupSeconds);
+            int best = 0;
+            for (int concurrency : levels) {
+                Level level = run(client, uri, token, concurrency, durationSeconds);
+                System.out.printf("%11d %10.1f %10.1f %10.1f %10.1f %7.2f%%%n", concurrency, level.throughput(),
+                        level.percentileMs(0.50), level.percentileMs(0.99), level.percentileMs(1.0),
+                        level.errorRate() * 100);
+                if (level.percentileMs(0.99) <= sloMs && level.errorRate() <= 0.01) {
+                    best = concurrency;
+                }
+            }
+            maxConcurrency.put(target.getKey(), best);
+        }
+
+        System.out.printf("%nMax concurrency with p99 <= %.0f ms and errors <= 1%%:%n", sloMs);
+        maxConcurrency.forEach((name, best) -> System.out.printf("  %-10s %d%n", name, best));
+    }
+
+    /** Получает JWT-токен через /api/auth/login */
+    private static String login(HttpClient client, String baseUrl, String user, String password) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"username\":\"" + user + "\",\"password\":\"" + password + "\"}"))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        Matcher matcher = TOKEN.matcher(response.body());
+        if (response.statusCode() != 200 || !matcher.find()) {
+            throw new IllegalStateException("Login to " + baseUrl + " failed: " + response.statusCode());
+        }
+        return matcher.group(1);
+    }
+
+    /** Нагружает URI заданным числом клиентов в течение durationSeconds */
+    private static Level run(HttpClient client, URI uri, String token, int concurrency, int durationSeconds)
+            throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch done = new CountDownLatch(concurrency);
+        List<long[]> perClient = new ArrayList<>(concurrency);
+        long[] requests = new long[concurrency];
+        long[] errors = new long[concurrency];
+
+        for (int c = 0; c < concurrency; c++) {
+            int index = c;
+            perClient.add(new long[1024]);
+            Thread worker = new Thread(() -> {
+                long[] latencies = perClient.get(index);
+                int count = 0;
+                try {
+                    while (running.get()) {
+                        long start = System.nanoTime();
+                        boolean ok;
+                        try {
+                            ok = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() < 400;
+                        } catch (Exception e) {
+                            ok = false;
+                        }
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = System.nanoTime() - start;
+                        if (!ok) {
+                            errors[index]++;
+                        }
+                    }
+                } finally {
+                    perClient.set(index, Arrays.copyOf(latencies, count));
+                    requests[index] = count;
+                    done.countDown();
+                }
+            }, "bench-client-" + c);
+            worker.setDaemon(true);
+            worker.start();
+        }
+
+        long started = System.nanoTime();
+        Thread.sleep(durationSeconds * 1000L);
+        running.set(false);
+        done.await();
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        long[] all = perClient.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        return new Level(concurrency, Arrays.stream(requests).sum(), Arrays.stream(errors).sum(), seconds, all);
+    }
+}
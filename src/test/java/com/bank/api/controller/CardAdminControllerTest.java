@@ -1,7 +1,10 @@
 package com.bank.api.controller;
 
 import com.bank.api.dto.CardDto;
+import com.bank.api.dto.CardIssueProgressDto;
+import com.bank.api.dto.CardSliceDto;
 import com.bank.api.entity.CardStatus;
+import com.bank.api.repository.CardSearchCriteria;
 import com.bank.api.service.CardService;
 
 import com.bank.api.util.JwtFilter;
@@ -15,11 +18,14 @@ import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Consumer;
 
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -62,6 +68,51 @@ public class CardAdminControllerTest {
                 .andExpect(jsonPath("$[0].maskedNumber").value("**** **** **** 1234"));
     }
 
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void testSearchCards() throws Exception {
+        CardDto card = new CardDto(7L, "**** **** **** 1234", LocalDate.of(2026, 12, 31), CardStatus.ACTIVE, new BigDecimal("100.00"));
+        when(cardService.searchCards(any(), eq("abc"), eq(10))).thenReturn(new CardSliceDto(List.of(card), "next"));
+
+        mockMvc.perform(get("/api/admin/cards/search")
+                        .param("status", "ACTIVE")
+                        .param("owner", "jo")
+                        .param("expiresFrom", "2026-01-01")
+                        .param("balanceTo", "500")
+                        .param("cursor", "abc")
+                        .param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(7))
+                .andExpect(jsonPath("$.nextCursor").value("next"));
+
+        verify(cardService).searchCards(new CardSearchCriteria(CardStatus.ACTIVE, "jo", LocalDate.of(2026, 1, 1),
+                null, null, new BigDecimal("500")), "abc", 10);
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void testExportCards() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<CardDto> sink = invocation.getArgument(0);
+            sink.accept(new CardDto(1L, "**** **** **** 1234", LocalDate.of(2026, 12, 31), CardStatus.ACTIVE, new BigDecimal("100.00")));
+            sink.accept(new CardDto(2L, "**** **** **** 5678", LocalDate.of(2027, 6, 30), CardStatus.BLOCKED, new BigDecimal("50.00")));
+            return null;
+        }).when(cardService).exportCards(any());
+
+        MvcResult result = mockMvc.perform(get("/api/admin/cards/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"maskedNumber\":\"**** **** **** 1234\""));
+        assertTrue(lines[1].contains("\"status\":\"BLOCKED\""));
+    }
+
 
     @Test
     @WithMockUser(username = "admin", roles = {"ADMIN"})
@@ -116,4 +167,38 @@ public class CardAdminControllerTest {
                 .andExpect(status().isOk());
         verify(cardService).deleteCard(1L);
     }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void testIssueCards() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<CardIssueProgressDto> progress = invocation.getArgument(1);
+            progress.accept(new CardIssueProgressDto(2, 2, 2, List.of()));
+            return null;
+        }).when(cardService).issueCards(any(), any());
+
+        MvcResult result = mockMvc.perform(post("/api/admin/cards/bulk").with(SecurityMockMvcRequestPostProcessors.csrf())
+                        .contentType("application/json")
+                        .content("[{\"username\":\"john\",\"expirationDate\":\"2030-01-31\",\"balance\":10},"
+                                + "{\"username\":\"bob\",\"expirationDate\":\"2030-01-31\"}]"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertTrue(body.contains("\"processed\":2"));
+        verify(cardService).issueCards(argThat(requests -> requests.size() == 2
+                && requests.get(0).getExpirationDate().equals(LocalDate.of(2030, 1, 31))), any());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void testIssueCardsRejectsEmptyList() throws Exception {
+        mockMvc.perform(post("/api/admin/cards/bulk").with(SecurityMockMvcRequestPostProcessors.csrf())
+                        .contentType("application/json")
+                        .content("[]"))
+                .andExpect(status().isBadRequest());
+        verify(cardService, never()).issueCards(any(), any());
+    }
 }
@@ -1,69 +1,121 @@
 package com.bank.api.controller;
 
 import com.bank.api.dto.CardDto;
+import com.bank.api.dto.CardSliceDto;
+import com.bank.api.dto.TransferBatchResultDto;
+import com.bank.api.dto.TransferLegResultDto;
 import com.bank.api.dto.TransferRequestDto;
 import com.bank.api.entity.CardStatus;
+import com.bank.api.entity.Role;
+import com.bank.api.service.AuthenticatedUser;
+import com.bank.api.service.CardChangeTracker;
+import com.bank.api.service.CardChangedEvent;
+import com.bank.api.service.CardEventHub;
 import com.bank.api.service.CardService;
+import com.bank.api.service.TransferPipeline;
 import com.bank.api.util.JwtFilter;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(controllers = CardUserController.class, excludeFilters = {
         @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = JwtFilter.class)
 })
+@Import(CardChangeTracker.class)
+@TestPropertySource(properties = "app.card.etag.max-age-ms=86400000")
 public class CardUserControllerTest {
 
+    private static final RequestPostProcessor JOHN = user(new AuthenticatedUser(1L, "john", Role.USER));
+
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private CardChangeTracker changeTracker;
+
     @MockitoBean
     private CardService cardService;
 
+    @MockitoBean
+    private TransferPipeline transferPipeline;
+
+    @MockitoBean
+    private CardEventHub cardEventHub;
+
     @Test
-    @WithMockUser(username = "john")
     void testGetUserCards() throws Exception {
         CardDto card = new CardDto(1L, "**** **** **** 1234", LocalDate.of(2026, 12, 31), CardStatus.ACTIVE, new BigDecimal("100.00"));
 
-        when(cardService.getUserCards(eq("john"), isNull(), any(PageRequest.class)))
+        when(cardService.getUserCards(eq(1L), isNull(), any(PageRequest.class)))
                 .thenReturn(new PageImpl<>(List.of(card)));
 
-        mockMvc.perform(get("/api/user/card"))
+        mockMvc.perform(get("/api/user/card").with(JOHN))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.content[0].maskedNumber").value("**** **** **** 1234"));
     }
 
     @Test
-    @WithMockUser(username = "john")
+    void testGetUserCards_notModifiedUntilCardsChange() throws Exception {
+        when(cardService.getUserCards(eq(1L), isNull(), any(PageRequest.class)))
+                .thenReturn(new PageImpl<>(List.of()));
+
+        String eTag = mockMvc.perform(get("/api/user/card").with(JOHN))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/user/card").with(JOHN).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag));
+        verify(cardService, times(1)).getUserCards(any(), any(), any());
+
+        changeTracker.onCardChanged(new CardChangedEvent(CardChangedEvent.Type.STATUS, 1L, 1L,
+                BigDecimal.ONE, CardStatus.BLOCKED));
+
+        mockMvc.perform(get("/api/user/card").with(JOHN).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk());
+        verify(cardService, times(2)).getUserCards(any(), any(), any());
+    }
+
+    @Test
     void testRequestBlockCard() throws Exception {
-        doNothing().when(cardService).requestBlockCard("john", 1L);
+        doNothing().when(cardService).requestBlockCard(1L, 1L);
 
-        mockMvc.perform(patch("/api/user/card/1/block").with(SecurityMockMvcRequestPostProcessors.csrf()))
+        mockMvc.perform(patch("/api/user/card/1/block").with(JOHN).with(SecurityMockMvcRequestPostProcessors.csrf()))
                 .andExpect(status().isOk());
-        verify(cardService).requestBlockCard("john", 1L);
+        verify(cardService).requestBlockCard(1L, 1L);
     }
 
     @Test
-    @WithMockUser(username = "john")
     void testTransferBetweenCards() throws Exception {
-        doNothing().when(cardService).transferBetweenCards(eq("john"), any(TransferRequestDto.class));
+        doNothing().when(cardService).transferBetweenCards(eq(1L), any(TransferRequestDto.class));
 
         String jsonBody = """
                 {
@@ -73,20 +125,90 @@ public class CardUserControllerTest {
                 }
                 """;
 
-        mockMvc.perform(post("/api/user/card/transfer").with(SecurityMockMvcRequestPostProcessors.csrf())
+        mockMvc.perform(post("/api/user/card/transfer").with(JOHN).with(SecurityMockMvcRequestPostProcessors.csrf())
                         .contentType("application/json")
                         .content(jsonBody))
                 .andExpect(status().isOk());
-        verify(cardService).transferBetweenCards(eq("john"), any(TransferRequestDto.class));
+        verify(cardService).transferBetweenCards(eq(1L), any(TransferRequestDto.class));
+    }
+
+    @Test
+    void testTransferBetweenCards_asyncPipeline_returnsAccepted() throws Exception {
+        UUID id = UUID.randomUUID();
+        when(transferPipeline.isEnabled()).thenReturn(true);
+        when(transferPipeline.submit(eq(1L), any(TransferRequestDto.class)))
+                .thenReturn(new TransferPipeline.Ticket(id, new CompletableFuture<>()));
+
+        mockMvc.perform(post("/api/user/card/transfer?async=true").with(JOHN).with(SecurityMockMvcRequestPostProcessors.csrf())
+                        .contentType("application/json")
+                        .content("{\"fromCardId\": 1, \"toCardId\": 2, \"amount\": 50.00}"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/user/card/transfer/" + id))
+                .andExpect(jsonPath("$.status").value("PENDING"));
+        verify(cardService, never()).transferBetweenCards(any(), any());
+    }
+
+    @Test
+    void testTransferBatch_rejected_returnsBadRequest() throws Exception {
+        TransferBatchResultDto result = new TransferBatchResultDto(false, List.of(
+                new TransferLegResultDto(0, 1L, 2L, new BigDecimal("500"),
+                        TransferLegResultDto.State.FAILED, "Insufficient balance")));
+        when(cardService.transferBatch(eq(1L), anyList())).thenReturn(result);
+
+        mockMvc.perform(post("/api/user/card/transfer/batch").with(JOHN).with(SecurityMockMvcRequestPostProcessors.csrf())
+                        .contentType("application/json")
+                        .content("[{\"fromCardId\": 1, \"toCardId\": 2, \"amount\": 500}]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.committed").value(false))
+                .andExpect(jsonPath("$.legs[0].message").value("Insufficient balance"));
+    }
+
+    @Test
+    void testGetTransferStatus_unknown_returnsNotFound() throws Exception {
+        when(transferPipeline.getStatus(eq(1L), any())).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/user/card/transfer/" + UUID.randomUUID()).with(JOHN))
+                .andExpect(status().isNotFound());
     }
 
     @Test
-    @WithMockUser(username = "john")
     void testGetCardBalance() throws Exception {
-        when(cardService.getCardBalance("john", 1L)).thenReturn(100.0);
+        when(cardService.getCardBalance(1L, 1L)).thenReturn(100.0);
 
-        mockMvc.perform(get("/api/user/card/1/balance").with(SecurityMockMvcRequestPostProcessors.csrf()))
+        mockMvc.perform(get("/api/user/card/1/balance").with(JOHN).with(SecurityMockMvcRequestPostProcessors.csrf()))
                 .andExpect(status().isOk())
                 .andExpect(content().string("100.0"));
     }
+
+    @Test
+    void testGetUserCardSlice() throws Exception {
+        CardDto card = new CardDto(1L, "**** **** **** 1234", LocalDate.of(2026, 12, 31), CardStatus.ACTIVE, new BigDecimal("100.00"));
+        when(cardService.getUserCardSlice(1L, null, "QUNUSVZFOjE", 20))
+                .thenReturn(new CardSliceDto(List.of(card), "QUNUSVZFOjI"));
+
+        mockMvc.perform(get("/api/user/card/slice").with(JOHN).param("cursor", "QUNUSVZFOjE"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].maskedNumber").value("**** **** **** 1234"))
+                .andExpect(jsonPath("$.nextCursor").value("QUNUSVZFOjI"));
+    }
+
+    @Test
+    void testGetCardBalances() throws Exception {
+        when(cardService.getCardBalances(1L, List.of(1L, 2L))).thenReturn(Map.of(1L, 100.0, 2L, 50.0));
+
+        mockMvc.perform(get("/api/user/card/balances").with(JOHN).param("ids", "1,2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$['1']").value(100.0))
+                .andExpect(jsonPath("$['2']").value(50.0));
+    }
+
+    @Test
+    void testStreamEvents_subscribesUser() throws Exception {
+        when(cardEventHub.subscribe(1L)).thenReturn(new SseEmitter());
+
+        mockMvc.perform(get("/api/user/card/events").with(JOHN).accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted());
+
+        verify(cardEventHub).subscribe(1L);
+    }
 }
@@ -1,8 +1,11 @@
 package com.bank.api.controller;
 
 import com.bank.api.dto.UserDto;
+import com.bank.api.dto.UserImportErrorDto;
+import com.bank.api.dto.UserImportResultDto;
 import com.bank.api.entity.Role;
 import com.bank.api.entity.User;
+import com.bank.api.service.UserImportService;
 import com.bank.api.service.UserService;
 import com.bank.api.util.JwtFilter;
 import org.junit.jupiter.api.Test;
@@ -32,6 +35,9 @@ public class UserAdminControllerTest{
     @MockitoBean
     private UserService userService;
 
+    @MockitoBean
+    private UserImportService userImportService;
+
     @Test
     @WithMockUser(roles = "ADMIN")
     void testGetAllUsers() throws Exception {
@@ -104,4 +110,18 @@ public class UserAdminControllerTest{
                 .andExpect(status().isOk());
         verify(userService).deleteUser(1L);
     }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void testImportUsers() throws Exception {
+        when(userImportService.importUsers(any(), eq(UserImportService.Format.NDJSON))).thenReturn(
+                new UserImportResultDto(2, 1, List.of(new UserImportErrorDto(2, "john", "Username already exists"))));
+
+        mockMvc.perform(post("/api/admin/users/import").with(SecurityMockMvcRequestPostProcessors.csrf())
+                        .contentType("application/x-ndjson")
+                        .content("{\"username\":\"bob\",\"password\":\"secret\",\"role\":\"USER\"}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.errors[0].line").value(2));
+    }
 }
@@ -0,0 +1,147 @@
+package com.bank.api.journal;
+
+import com.bank.api.repository.TransferRepository;
+import com.bank.api.repository.TransferView;
+import com.bank.api.service.TransferCommittedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.actuate.health.Status;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class TransferJournalTest {
+
+    @TempDir
+    Path dir;
+
+    private final TransferRepository transferRepository = mock(TransferRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private TransferJournal openJournal(int segmentRecords) {
+        return new TransferJournal(transferRepository, meterRegistry, true, dir.toString(), segmentRecords, false);
+    }
+
+    private static void appendTransfers(TransferJournal journal, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            journal.append(100 + i, 1, 2, new BigDecimal("10.25"), Instant.parse("2025-01-01T10:00:00.123456Z"));
+        }
+    }
+
+    private List<JournalRecord> readAll(long fromOffset) throws IOException {
+        List<JournalRecord> records = new ArrayList<>();
+        new TransferJournalReader(dir).replay(fromOffset, records::add);
+        return records;
+    }
+
+    @Test
+    void replay_readsRecordsFromOffsetAcrossSegments() throws IOException {
+        TransferJournal journal = openJournal(4);
+        appendTransfers(journal, 10);
+        journal.close();
+
+        List<JournalRecord> records = readAll(3);
+
+        assertEquals(7, records.size());
+        JournalRecord first = records.get(0);
+        assertEquals(3, first.offset());
+        assertEquals(103, first.transferId());
+        assertEquals(new BigDecimal("10.25"), first.amount());
+        assertEquals(Instant.parse("2025-01-01T10:00:00.123456Z"), first.createdAt());
+        assertEquals(9, records.get(6).offset());
+    }
+
+    @Test
+    void replay_returnsNextOffsetForTailing() throws IOException {
+        TransferJournal journal = openJournal(4);
+        TransferJournalReader reader = new TransferJournalReader(dir);
+        appendTransfers(journal, 3);
+
+        long next = reader.replay(0, record -> { });
+        appendTransfers(journal, 3);
+        List<JournalRecord> tail = new ArrayList<>();
+        long end = reader.replay(next, tail::add);
+        journal.close();
+
+        assertEquals(3, next);
+        assertEquals(6, end);
+        assertEquals(List.of(3L, 4L, 5L), tail.stream().map(JournalRecord::offset).toList());
+    }
+
+    @Test
+    void reopen_continuesAfterLastValidRecord() throws IOException {
+        TransferJournal journal = openJournal(8);
+        appendTransfers(journal, 5);
+        journal.close();
+
+        TransferJournal reopened = openJournal(8);
+        assertEquals(5, reopened.getNextOffset());
+        appendTransfers(reopened, 1);
+        reopened.close();
+
+        assertEquals(6, readAll(0).size());
+    }
+
+    @Test
+    void verify_detectsCorruptedRecord() throws IOException {
+        TransferJournal journal = openJournal(4);
+        appendTransfers(journal, 6);
+        journal.close();
+        ByteArrayOutputStream report = new ByteArrayOutputStream();
+        assertTrue(TransferJournalVerifier.verify(dir, new PrintStream(report)));
+
+        try (RandomAccessFile file = new RandomAccessFile(
+                dir.resolve(JournalFormat.segmentName(0)).toFile(), "rw")) {
+            file.seek(JournalFormat.RECORD_SIZE + 20);
+            file.write(0x7F);
+        }
+
+        assertFalse(TransferJournalVerifier.verify(dir, new PrintStream(report)));
+        assertEquals(1, readAll(0).size());
+    }
+
+    @Test
+    void catchUp_appendsTransfersCommittedAfterLastJournaledOne() throws IOException {
+        TransferJournal journal = openJournal(2);
+        appendTransfers(journal, 3);
+        journal.close();
+        LocalDateTime createdAt = LocalDateTime.of(2025, 1, 1, 10, 0);
+        when(transferRepository.findCommittedAfter(eq(102L), any())).thenReturn(List.of(
+                new TransferView(103L, 1L, 2L, new BigDecimal("5.00"), createdAt),
+                new TransferView(104L, 2L, 1L, new BigDecimal("7.00"), createdAt)));
+
+        TransferJournal reopened = openJournal(2);
+        assertEquals(102, reopened.getLastTransferId());
+        assertEquals(2, reopened.catchUp());
+        reopened.close();
+
+        assertEquals(List.of(100L, 101L, 102L, 103L, 104L),
+                readAll(0).stream().map(JournalRecord::transferId).toList());
+    }
+
+    @Test
+    void onTransferCommitted_failureIsCountedAndReportedByHealth() throws IOException {
+        TransferJournal journal = openJournal(4);
+        assertEquals(Status.UP, journal.health().getStatus());
+        journal.close();
+
+        journal.onTransferCommitted(new TransferCommittedEvent(100L, 1L, 2L, BigDecimal.ONE, LocalDateTime.now()));
+
+        assertEquals(1.0, meterRegistry.get("transfer.journal.append.failures").counter().count());
+        assertEquals(Status.DOWN, journal.health().getStatus());
+    }
+}
@@ -0,0 +1,101 @@
+package com.bank.api.service;
+
+import com.bank.api.entity.Card;
+import com.bank.api.entity.User;
+import com.bank.api.repository.CardBalanceView;
+import com.bank.api.repository.CardRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CardBalanceCacheTest {
+
+    private CardRepository cardRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private CardBalanceCache cache;
+    private Card card;
+
+    @BeforeEach
+    void setUp() {
+        cardRepository = mock(CardRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new CardBalanceCache(cardRepository, meterRegistry, 100, 60);
+
+        User owner = new User();
+        ReflectionTestUtils.setField(owner, "id", 3L);
+        owner.setUsername("john");
+        card = new Card();
+        ReflectionTestUtils.setField(card, "id", 7L);
+        card.setOwner(owner);
+    }
+
+    @Test
+    void get_missLoadsOnceThenHits() {
+        when(cardRepository.findBalanceView(7L)).thenReturn(Optional.of(view("100", 1)));
+
+        assertEquals(new BigDecimal("100"), cache.get(7L).orElseThrow().balance());
+        assertEquals(new BigDecimal("100"), cache.get(7L).orElseThrow().balance());
+
+        verify(cardRepository, times(1)).findBalanceView(7L);
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "card.balance").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void putOnCommit_writesThroughAndIgnoresOlderVersions() {
+        setState("250", 5L);
+        cache.putOnCommit(card);
+        setState("100", 4L);
+        cache.putOnCommit(card);
+
+        CardBalanceCache.Entry entry = cache.get(7L).orElseThrow();
+
+        assertEquals(new BigDecimal("250"), entry.balance());
+        assertEquals(3L, entry.ownerId());
+        verify(cardRepository, never()).findBalanceView(any());
+    }
+
+    @Test
+    void get_loadRacingWithCommit_isNotCached() {
+        setState("50", 2L);
+        when(cardRepository.findBalanceView(7L)).thenAnswer(invocation -> {
+            // перевод фиксируется, пока промах читает старый остаток
+            cache.invalidateOnCommit(7L);
+            return Optional.of(view("100", 1));
+        }).thenReturn(Optional.of(view("50", 2)));
+
+        cache.get(7L);
+
+        assertEquals(new BigDecimal("50"), cache.get(7L).orElseThrow().balance());
+        verify(cardRepository, times(2)).findBalanceView(7L);
+    }
+
+    @Test
+    void putOnCommit_hotCard_invalidates() {
+        when(cardRepository.findBalanceView(7L))
+                .thenReturn(Optional.of(view("100", 1)))
+                .thenReturn(Optional.of(view("130", 1)));
+        cache.get(7L);
+        card.setBalanceSlots(4);
+
+        cache.putOnCommit(card);
+
+        assertEquals(new BigDecimal("130"), cache.get(7L).orElseThrow().balance());
+    }
+
+    private void setState(String balance, Long version) {
+        card.setBalance(new BigDecimal(balance));
+        ReflectionTestUtils.setField(card, "version", version);
+    }
+
+    private static CardBalanceView view(String balance, long version) {
+        return new CardBalanceView(7L, 3L, new BigDecimal(balance), version);
+    }
+}
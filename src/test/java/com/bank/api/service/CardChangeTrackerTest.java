@@ -0,0 +1,108 @@
+package com.bank.api.service;
+
+import com.bank.api.entity.Card;
+import com.bank.api.entity.CardStatus;
+import com.bank.api.entity.User;
+import com.bank.api.repository.CardRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.event.TransactionalEventListenerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CardChangeTrackerTest {
+
+    @Test
+    void getETag_changesOnlyAfterUserCardsChange() {
+        CardChangeTracker tracker = new CardChangeTracker(1, 60_000);
+        String john = tracker.getETag(1L);
+        String bob = tracker.getETag(2L);
+
+        assertNotEquals(john, bob);
+        assertEquals(john, tracker.getETag(1L));
+
+        tracker.onCardChanged(new CardChangedEvent(CardChangedEvent.Type.BALANCE, 1L, 1L, BigDecimal.TEN, CardStatus.ACTIVE));
+        assertNotEquals(john, tracker.getETag(1L));
+
+        String changed = tracker.getETag(1L);
+        tracker.bumpOnCommit(1L);
+        assertNotEquals(changed, tracker.getETag(1L));
+    }
+
+    @Test
+    void getETag_expiresAfterMaxAgeSoOtherNodesChangesBecomeVisible() {
+        AtomicLong now = new AtomicLong(10_000);
+        CardChangeTracker tracker = new CardChangeTracker(16, 5_000, now::get);
+        String eTag = tracker.getETag(1L);
+
+        now.addAndGet(4_999);
+        assertEquals(eTag, tracker.getETag(1L));
+
+        now.addAndGet(1);
+        assertNotEquals(eTag, tracker.getETag(1L));
+    }
+
+    @Test
+    void getETag_differsBetweenRestarts() {
+        assertNotEquals(new CardChangeTracker(16, 60_000).getETag(1L), new CardChangeTracker(16, 60_000).getETag(1L));
+    }
+
+    @Test
+    void onCardChanged_bumpsAfterBalanceCacheIsUpdated() {
+        CardRepository cardRepository = mock(CardRepository.class);
+        CardBalanceCache cache = new CardBalanceCache(cardRepository, new SimpleMeterRegistry(), 100, 60);
+        CardChangeTracker tracker = new CardChangeTracker(16, 60_000);
+        User owner = new User();
+        ReflectionTestUtils.setField(owner, "id", 1L);
+        Card card = new Card();
+        ReflectionTestUtils.setField(card, "id", 7L);
+        ReflectionTestUtils.setField(card, "version", 2L);
+        card.setOwner(owner);
+        card.setBalance(new BigDecimal("130"));
+        String before = tracker.getETag(1L);
+
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            context.registerBean(TransactionalEventListenerFactory.class);
+            context.registerBean(CardChangeTracker.class, () -> tracker);
+            context.refresh();
+
+            TransactionSynchronizationManager.initSynchronization();
+            TransactionSynchronizationManager.setActualTransactionActive(true);
+            try {
+                // изменение отмечается раньше записи в кэш — порядок задаётся не регистрацией
+                tracker.bumpOnCommit(1L);
+                context.publishEvent(new CardChangedEvent(CardChangedEvent.Type.BALANCE, 7L, 1L,
+                        card.getBalance(), CardStatus.ACTIVE));
+                cache.putOnCommit(card);
+
+                List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+                List<Runnable> steps = new ArrayList<>();
+                synchronizations.forEach(synchronization -> steps.add(synchronization::afterCommit));
+                synchronizations.forEach(synchronization ->
+                        steps.add(() -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED)));
+                for (Runnable step : steps) {
+                    step.run();
+                    if (!before.equals(tracker.getETag(1L))) {
+                        assertEquals(new BigDecimal("130"), cache.get(7L).orElseThrow().balance());
+                    }
+                }
+            } finally {
+                TransactionSynchronizationManager.setActualTransactionActive(false);
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+        }
+
+        assertNotEquals(before, tracker.getETag(1L));
+        verify(cardRepository, never()).findBalanceView(any());
+    }
+}
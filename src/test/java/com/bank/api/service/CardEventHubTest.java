@@ -0,0 +1,138 @@
+package com.bank.api.service;
+
+import com.bank.api.dto.CardEventDto;
+import com.bank.api.entity.CardStatus;
+import com.bank.api.repository.CardBalanceView;
+import com.bank.api.repository.CardRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CardEventHubTest {
+
+    private CardRepository cardRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private final List<RecordingEmitter> emitters = new CopyOnWriteArrayList<>();
+    private CardEventHub hub;
+
+    @BeforeEach
+    void setUp() {
+        cardRepository = mock(CardRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        hub = new CardEventHub(cardRepository, meterRegistry, 1, 60_000, 10, 2, 0) {
+            @Override
+            SseEmitter createEmitter(long timeoutMs) {
+                RecordingEmitter emitter = new RecordingEmitter();
+                emitters.add(emitter);
+                return emitter;
+            }
+        };
+    }
+
+    @AfterEach
+    void tearDown() {
+        emitters.forEach(e -> e.release.countDown());
+        hub.shutdown();
+    }
+
+    @Test
+    void onCardChanged_deliversToOwnerOnlyAndResolvesHotBalance() throws Exception {
+        hub.subscribe(1L);
+        hub.subscribe(2L);
+        when(cardRepository.findBalanceView(7L))
+                .thenReturn(Optional.of(new CardBalanceView(7L, 1L, new BigDecimal("130"), 2L)));
+
+        hub.onCardChanged(new CardChangedEvent(CardChangedEvent.Type.BALANCE, 7L, 1L, null, CardStatus.ACTIVE));
+
+        CardEventDto sent = emitters.get(0).awaitData();
+        assertEquals(7L, sent.getCardId());
+        assertEquals(new BigDecimal("130"), sent.getBalance());
+        assertTrue(emitters.get(1).data.isEmpty());
+    }
+
+    @Test
+    void onCardChanged_slowSubscriberIsDropped() throws Exception {
+        hub.subscribe(1L);
+        RecordingEmitter slow = emitters.get(0);
+        slow.release = new CountDownLatch(1);
+
+        hub.onCardChanged(status(1L));
+        assertTrue(slow.sending.await(5, TimeUnit.SECONDS));
+        hub.onCardChanged(status(2L));
+        hub.onCardChanged(status(3L));
+
+        assertEquals(0, hub.getSubscriberCount());
+        assertEquals(1.0, meterRegistry.get("card.events.dropped").counter().count());
+        slow.release.countDown();
+        assertTrue(slow.completed.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void disconnectStalled_interruptsStuckSendAndCompletesStream() throws Exception {
+        hub.subscribe(1L);
+        RecordingEmitter stuck = emitters.get(0);
+        stuck.release = new CountDownLatch(1);
+
+        hub.onCardChanged(status(1L));
+        assertTrue(stuck.sending.await(5, TimeUnit.SECONDS));
+        hub.disconnectStalled();
+
+        assertEquals(0, hub.getSubscriberCount());
+        assertEquals(1.0, meterRegistry.get("card.events.stalled").counter().count());
+        assertTrue(stuck.completed.await(5, TimeUnit.SECONDS));
+    }
+
+    private static CardChangedEvent status(Long cardId) {
+        return new CardChangedEvent(CardChangedEvent.Type.STATUS, cardId, 1L, BigDecimal.ONE, CardStatus.BLOCKED);
+    }
+
+    /** Поток, запоминающий отправленные данные; отправка может ждать, как при медленном клиенте */
+    private static class RecordingEmitter extends SseEmitter {
+        private final List<CardEventDto> data = new CopyOnWriteArrayList<>();
+        private final CountDownLatch sending = new CountDownLatch(1);
+        private final CountDownLatch delivered = new CountDownLatch(1);
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private volatile CountDownLatch release = new CountDownLatch(0);
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            sending.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Send interrupted", e);
+            }
+            for (ResponseBodyEmitter.DataWithMediaType part : builder.build()) {
+                if (part.getData() instanceof CardEventDto dto) {
+                    data.add(dto);
+                    delivered.countDown();
+                }
+            }
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed.countDown();
+        }
+
+        CardEventDto awaitData() throws InterruptedException {
+            assertTrue(delivered.await(5, TimeUnit.SECONDS));
+            return data.get(0);
+        }
+    }
+}
@@ -1,21 +1,41 @@
 package com.bank.api.service;
 
 import com.bank.api.dto.CardDto;
+import com.bank.api.dto.CardIssueProgressDto;
+import com.bank.api.dto.CardIssueRequestDto;
+import com.bank.api.dto.CardSliceDto;
+import com.bank.api.dto.TransferBatchResultDto;
+import com.bank.api.dto.TransferLegResultDto;
 import com.bank.api.dto.TransferRequestDto;
 import com.bank.api.entity.Card;
 import com.bank.api.entity.CardStatus;
 import com.bank.api.entity.User;
+import com.bank.api.exception.BusinessException;
+import com.bank.api.repository.CardBalanceView;
 import com.bank.api.repository.CardRepository;
+import com.bank.api.repository.CardSearchCriteria;
 import com.bank.api.repository.TransferRepository;
 import com.bank.api.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionOperations;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -27,6 +47,11 @@ class CardServiceTest {
     private CardRepository cardRepository;
     private UserRepository userRepository;
     private TransferRepository transferRepository;
+    private StripedCardLockManager cardLockManager;
+    private HotCardBalanceManager hotCards;
+    private CardBalanceCache balanceCache;
+    private CardChangeTracker changeTracker;
+    private ApplicationEventPublisher eventPublisher;
     private User user;
 
     @BeforeEach
@@ -34,11 +59,22 @@ class CardServiceTest {
         cardRepository = mock(CardRepository.class);
         userRepository = mock(UserRepository.class);
         transferRepository = mock(TransferRepository.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        hotCards = mock(HotCardBalanceManager.class);
+        balanceCache = new CardBalanceCache(cardRepository, new SimpleMeterRegistry(), 100, 60);
+        changeTracker = new CardChangeTracker(16, 60_000);
 
-        cardService = new CardService(cardRepository, userRepository, transferRepository);
+        TransferRetryExecutor transferRetryExecutor =
+                new TransferRetryExecutor(TransactionOperations.withoutTransaction(), 3, 3, 0, 0);
+
+        cardLockManager = new StripedCardLockManager(16, 1000, new SimpleMeterRegistry());
+
+        cardService = new CardService(cardRepository, userRepository, transferRepository,
+                transferRetryExecutor, cardLockManager, hotCards, balanceCache, changeTracker, eventPublisher, TransferMode.PESSIMISTIC);
 
         // Создаем фиктивного пользователя
         user = new User();
+        ReflectionTestUtils.setField(user, "id", 1L);
         user.setUsername("john");
         when(userRepository.findByUsername("john")).thenReturn(Optional.of(user));
     }
@@ -69,6 +105,52 @@ class CardServiceTest {
         assertNotNull(created.getMaskedNumber());
     }
 
+    @Test
+    void issueCards_insertsChunksWithFreeNumbersAndReportsProgress() {
+        List<CardIssueRequestDto> requests = new ArrayList<>();
+        for (int i = 0; i < CardService.ISSUE_CHUNK_SIZE + 1; i++) {
+            CardIssueRequestDto request = new CardIssueRequestDto();
+            request.setUsername(i % 2 == 0 ? "john" : "JOHN");
+            request.setExpirationDate(LocalDate.now().plusYears(3));
+            requests.add(request);
+        }
+        requests.get(0).setUsername("ghost");
+        requests.get(1).setExpirationDate(null);
+        when(userRepository.findByUsernameIn(anyCollection())).thenReturn(List.of(user));
+        when(cardRepository.findExistingNumbers(anyCollection()))
+                .thenAnswer(invocation -> List.of(invocation.<Collection<String>>getArgument(0).iterator().next()))
+                .thenReturn(List.of());
+        List<String> inserted = new ArrayList<>();
+        when(cardRepository.insertAll(anyList()))
+                .thenThrow(new DuplicateKeyException("duplicate number"))
+                .thenAnswer(invocation -> {
+                    List<Card> cards = invocation.getArgument(0);
+                    cards.forEach(card -> inserted.add(card.getNumber()));
+                    return cards.size();
+                });
+        List<CardIssueProgressDto> progress = new ArrayList<>();
+        String etag = changeTracker.getETag(1L);
+
+        cardService.issueCards(requests, progress::add);
+
+        assertEquals(2, progress.size());
+        assertEquals(CardService.ISSUE_CHUNK_SIZE, progress.get(0).getProcessed());
+        assertEquals(CardService.ISSUE_CHUNK_SIZE - 2, progress.get(0).getIssued());
+        assertEquals(List.of("User not found", "Expiration date is required"),
+                progress.get(0).getErrors().stream().map(e -> e.getMessage()).toList());
+        assertEquals(CardService.ISSUE_CHUNK_SIZE + 1, progress.get(1).getProcessed());
+        assertEquals(CardService.ISSUE_CHUNK_SIZE - 1, progress.get(1).getIssued());
+        assertEquals(CardService.ISSUE_CHUNK_SIZE - 1, new HashSet<>(inserted).size());
+        verify(userRepository, times(2)).findByUsernameIn(anyCollection());
+        verify(userRepository, never()).findByUsername(any());
+        assertNotEquals(etag, changeTracker.getETag(1L));
+    }
+
+    @Test
+    void issueCards_rejectsEmptyList() {
+        assertThrows(BusinessException.class, () -> cardService.issueCards(List.of(), progress -> {}));
+    }
+
     @Test
     void transferBetweenCards_success() {
         Card fromCard = new Card();
@@ -85,15 +167,16 @@ class CardServiceTest {
         toCard.setNumber("9876543210987654");
         toCard.setExpirationDate(LocalDate.now().plusYears(1));
 
-        when(cardRepository.findById(1L)).thenReturn(Optional.of(fromCard));
-        when(cardRepository.findById(2L)).thenReturn(Optional.of(toCard));
+        ReflectionTestUtils.setField(fromCard, "id", 1L);
+        ReflectionTestUtils.setField(toCard, "id", 2L);
+        when(cardRepository.findAllByIdForUpdate(any())).thenReturn(List.of(fromCard, toCard));
 
         TransferRequestDto dto = new TransferRequestDto();
         dto.setFromCardId(1L);
         dto.setToCardId(2L);
         dto.setAmount(new BigDecimal("100"));
 
-        cardService.transferBetweenCards("john", dto);
+        cardService.transferBetweenCards(1L, dto);
 
         assertEquals(new BigDecimal("100"), fromCard.getBalance());
         assertEquals(new BigDecimal("150"), toCard.getBalance());
@@ -101,6 +184,111 @@ class CardServiceTest {
         verify(transferRepository).save(any());
     }
 
+    @Test
+    void getUserCardSlice_continuesFromCursorWithoutCount() {
+        when(cardRepository.findSliceByOwner(eq(1L), any()))
+                .thenReturn(new SliceImpl<>(List.of(activeCardDto(4L), activeCardDto(9L)), PageRequest.of(0, 2), true));
+        when(cardRepository.findSliceByOwnerAfter(eq(1L), any(), any(), any(), any()))
+                .thenReturn(new SliceImpl<>(List.of(activeCardDto(12L)), PageRequest.of(0, 2), false));
+
+        CardSliceDto first = cardService.getUserCardSlice(1L, null, null, 2);
+        CardSliceDto second = cardService.getUserCardSlice(1L, null, first.getNextCursor(), 2);
+
+        assertEquals(2, first.getItems().size());
+        assertNotNull(first.getNextCursor());
+        assertEquals(1, second.getItems().size());
+        assertNull(second.getNextCursor());
+        verify(cardRepository).findSliceByOwnerAfter(1L, CardStatus.ACTIVE, 9L,
+                List.of(CardStatus.BLOCKED, CardStatus.EXPIRED), PageRequest.of(0, 2));
+        verify(cardRepository, never()).findCardDtosByOwner(any(), any());
+
+        assertThrows(BusinessException.class, () -> cardService.getUserCardSlice(1L, null, "not-a-cursor", 2));
+        assertThrows(BusinessException.class,
+                () -> cardService.getUserCardSlice(1L, "BLOCKED", first.getNextCursor(), 2));
+    }
+
+    @Test
+    void searchCards_fetchesOneExtraRowAndContinuesAfterLastId() {
+        CardSearchCriteria criteria = new CardSearchCriteria(CardStatus.ACTIVE, " jo ", null, null,
+                new BigDecimal("10"), null);
+        when(cardRepository.searchCardDtos(any(), isNull(), eq(3)))
+                .thenReturn(List.of(activeCardDto(4L), activeCardDto(9L), activeCardDto(12L)));
+        when(cardRepository.searchCardDtos(any(), eq(9L), eq(3)))
+                .thenReturn(List.of(activeCardDto(12L)));
+
+        CardSliceDto first = cardService.searchCards(criteria, null, 2);
+        CardSliceDto second = cardService.searchCards(criteria, first.getNextCursor(), 2);
+
+        assertEquals(List.of(4L, 9L), first.getItems().stream().map(CardDto::getId).toList());
+        assertNotNull(first.getNextCursor());
+        assertEquals(1, second.getItems().size());
+        assertNull(second.getNextCursor());
+        verify(cardRepository).searchCardDtos(argThat(c -> "jo".equals(c.ownerPrefix())), eq(9L), eq(3));
+    }
+
+    @Test
+    void searchCards_rejectsEmptyRangesAndBadSize() {
+        CardSearchCriteria any = new CardSearchCriteria(null, null, null, null, null, null);
+        assertThrows(BusinessException.class, () -> cardService.searchCards(any, null, 0));
+        assertThrows(BusinessException.class, () -> cardService.searchCards(any, null, 101));
+        assertThrows(BusinessException.class, () -> cardService.searchCards(new CardSearchCriteria(null, null,
+                LocalDate.of(2027, 1, 1), LocalDate.of(2026, 1, 1), null, null), null, 10));
+        assertThrows(BusinessException.class, () -> cardService.searchCards(new CardSearchCriteria(null, null,
+                null, null, BigDecimal.TEN, BigDecimal.ONE), null, 10));
+        verify(cardRepository, never()).searchCardDtos(any(), any(), anyInt());
+    }
+
+    @Test
+    void getCardBalances_loadsMissesWithOneQuery() {
+        when(cardRepository.findBalanceViews(any())).thenReturn(List.of(
+                new CardBalanceView(1L, 1L, new BigDecimal("100"), 1L),
+                new CardBalanceView(2L, 1L, new BigDecimal("50"), 1L)));
+
+        Map<Long, Double> balances = cardService.getCardBalances(1L, List.of(2L, 1L, 2L));
+
+        assertEquals(List.of(2L, 1L), List.copyOf(balances.keySet()));
+        assertEquals(100.0, balances.get(1L));
+        assertEquals(50.0, balances.get(2L));
+        verify(cardRepository).findBalanceViews(argThat(ids -> ids.size() == 2));
+        verify(cardRepository, never()).findById(any());
+
+        RuntimeException ex = assertThrows(RuntimeException.class,
+                () -> cardService.getCardBalances(1L, List.of(1L, 9L)));
+        assertEquals("Card not found", ex.getMessage());
+        ex = assertThrows(RuntimeException.class, () -> cardService.getCardBalances(2L, List.of(1L)));
+        assertEquals("Access denied: Card does not belong to user", ex.getMessage());
+    }
+
+    @Test
+    void getCardBalance_afterTransfer_servedFromCache() {
+        Card fromCard = new Card();
+        fromCard.setOwner(user);
+        fromCard.setBalance(new BigDecimal("200"));
+        fromCard.setStatus(CardStatus.ACTIVE);
+        fromCard.setExpirationDate(LocalDate.now().plusYears(1));
+        Card toCard = new Card();
+        toCard.setOwner(user);
+        toCard.setBalance(new BigDecimal("50"));
+        toCard.setStatus(CardStatus.ACTIVE);
+        toCard.setExpirationDate(LocalDate.now().plusYears(1));
+        ReflectionTestUtils.setField(fromCard, "id", 1L);
+        ReflectionTestUtils.setField(toCard, "id", 2L);
+        when(cardRepository.findAllByIdForUpdate(any())).thenReturn(List.of(fromCard, toCard));
+
+        TransferRequestDto dto = new TransferRequestDto();
+        dto.setFromCardId(1L);
+        dto.setToCardId(2L);
+        dto.setAmount(new BigDecimal("100"));
+        cardService.transferBetweenCards(1L, dto);
+
+        assertEquals(100.0, cardService.getCardBalance(1L, 1L));
+        assertEquals(150.0, cardService.getCardBalance(1L, 2L));
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> cardService.getCardBalance(2L, 1L));
+        assertEquals("Access denied: Card does not belong to user", ex.getMessage());
+        verify(cardRepository, never()).findBalanceView(any());
+        verify(cardRepository, never()).findById(any());
+    }
+
     @Test
     void transferBetweenCards_insufficientBalance_throws() {
         Card fromCard = new Card();
@@ -117,6 +305,71 @@ class CardServiceTest {
         toCard.setNumber("9876543210987654");
         toCard.setExpirationDate(LocalDate.now().plusYears(1));
 
+        ReflectionTestUtils.setField(fromCard, "id", 1L);
+        ReflectionTestUtils.setField(toCard, "id", 2L);
+        when(cardRepository.findAllByIdForUpdate(any())).thenReturn(List.of(fromCard, toCard));
+
+        TransferRequestDto dto = new TransferRequestDto();
+        dto.setFromCardId(1L);
+        dto.setToCardId(2L);
+        dto.setAmount(new BigDecimal("100"));
+
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> cardService.transferBetweenCards(1L, dto));
+        assertTrue(ex.getMessage().toLowerCase().contains("balance"));
+    }
+
+    @Test
+    void transferBetweenCards_locksCardsInAscendingIdOrder() {
+        Card fromCard = new Card();
+        fromCard.setOwner(user);
+        fromCard.setBalance(new BigDecimal("200"));
+        fromCard.setStatus(CardStatus.ACTIVE);
+        fromCard.setNumber("1234567890123456");
+        fromCard.setExpirationDate(LocalDate.now().plusYears(1));
+        ReflectionTestUtils.setField(fromCard, "id", 7L);
+
+        Card toCard = new Card();
+        toCard.setOwner(user);
+        toCard.setBalance(new BigDecimal("50"));
+        toCard.setStatus(CardStatus.ACTIVE);
+        toCard.setNumber("9876543210987654");
+        toCard.setExpirationDate(LocalDate.now().plusYears(1));
+        ReflectionTestUtils.setField(toCard, "id", 3L);
+
+        when(cardRepository.findAllByIdForUpdate(any())).thenReturn(List.of(toCard, fromCard));
+
+        TransferRequestDto dto = new TransferRequestDto();
+        dto.setFromCardId(7L);
+        dto.setToCardId(3L);
+        dto.setAmount(new BigDecimal("25"));
+
+        cardService.transferBetweenCards(1L, dto);
+
+        verify(cardRepository).findAllByIdForUpdate(argThat(ids -> List.copyOf(ids).equals(List.of(3L, 7L))));
+        assertEquals(new BigDecimal("175"), fromCard.getBalance());
+        assertEquals(new BigDecimal("75"), toCard.getBalance());
+    }
+
+    @Test
+    void transferBetweenCards_optimisticMode_readsCardsWithoutLocks() {
+        cardService = new CardService(cardRepository, userRepository, transferRepository,
+                new TransferRetryExecutor(TransactionOperations.withoutTransaction(), 3, 3, 0, 0),
+                cardLockManager, hotCards, balanceCache, changeTracker, eventPublisher, TransferMode.OPTIMISTIC);
+
+        Card fromCard = new Card();
+        fromCard.setOwner(user);
+        fromCard.setBalance(new BigDecimal("200"));
+        fromCard.setStatus(CardStatus.ACTIVE);
+        fromCard.setNumber("1234567890123456");
+        fromCard.setExpirationDate(LocalDate.now().plusYears(1));
+
+        Card toCard = new Card();
+        toCard.setOwner(user);
+        toCard.setBalance(new BigDecimal("50"));
+        toCard.setStatus(CardStatus.ACTIVE);
+        toCard.setNumber("9876543210987654");
+        toCard.setExpirationDate(LocalDate.now().plusYears(1));
+
         when(cardRepository.findById(1L)).thenReturn(Optional.of(fromCard));
         when(cardRepository.findById(2L)).thenReturn(Optional.of(toCard));
 
@@ -125,8 +378,150 @@ class CardServiceTest {
         dto.setToCardId(2L);
         dto.setAmount(new BigDecimal("100"));
 
-        RuntimeException ex = assertThrows(RuntimeException.class, () -> cardService.transferBetweenCards("john", dto));
-        assertTrue(ex.getMessage().toLowerCase().contains("balance"));
+        cardService.transferBetweenCards(1L, dto);
+
+        assertEquals(new BigDecimal("100"), fromCard.getBalance());
+        assertEquals(new BigDecimal("150"), toCard.getBalance());
+        verify(cardRepository, never()).findAllByIdForUpdate(any());
+        verify(transferRepository).save(any());
+    }
+
+    @Test
+    void transferBetweenCards_conditionalMode_decidesByAffectedRows() {
+        cardService = new CardService(cardRepository, userRepository, transferRepository,
+                new TransferRetryExecutor(TransactionOperations.withoutTransaction(), 3, 3, 0, 0),
+                cardLockManager, hotCards, balanceCache, changeTracker, eventPublisher, TransferMode.CONDITIONAL);
+
+        BigDecimal amount = new BigDecimal("100");
+        when(cardRepository.debitIfAllowed(eq(1L), eq(1L), eq(amount), any())).thenReturn(1);
+        when(cardRepository.creditIfAllowed(eq(2L), eq(1L), eq(amount), any())).thenReturn(1);
+
+        TransferRequestDto dto = new TransferRequestDto();
+        dto.setFromCardId(1L);
+        dto.setToCardId(2L);
+        dto.setAmount(amount);
+
+        cardService.transferBetweenCards(1L, dto);
+
+        verify(cardRepository, never()).findById(any());
+        verify(cardRepository, never()).save(any());
+        verify(transferRepository).save(any());
+    }
+
+    @Test
+    void transferBetweenCards_conditionalMode_reportsInsufficientBalance() {
+        cardService = new CardService(cardRepository, userRepository, transferRepository,
+                new TransferRetryExecutor(TransactionOperations.withoutTransaction(), 3, 3, 0, 0),
+                cardLockManager, hotCards, balanceCache, changeTracker, eventPublisher, TransferMode.CONDITIONAL);
+
+        Card fromCard = new Card();
+        fromCard.setOwner(user);
+        fromCard.setBalance(new BigDecimal("50"));
+        fromCard.setStatus(CardStatus.ACTIVE);
+        fromCard.setNumber("1234567890123456");
+        fromCard.setExpirationDate(LocalDate.now().plusYears(1));
+
+        when(cardRepository.debitIfAllowed(eq(1L), eq(1L), any(), any())).thenReturn(0);
+        when(cardRepository.findById(1L)).thenReturn(Optional.of(fromCard));
+
+        TransferRequestDto dto = new TransferRequestDto();
+        dto.setFromCardId(1L);
+        dto.setToCardId(2L);
+        dto.setAmount(new BigDecimal("100"));
+
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> cardService.transferBetweenCards(1L, dto));
+        assertEquals("Insufficient balance", ex.getMessage());
+        verify(cardRepository, never()).creditIfAllowed(any(), any(), any(), any());
+        verify(transferRepository, never()).save(any());
+    }
+
+    @Test
+    void transferBatch_appliesAllLegsAndBatchInsertsTransfers() {
+        Card source = activeCard(1L, "200");
+        Card first = activeCard(2L, "0");
+        Card second = activeCard(3L, "0");
+        when(cardRepository.findAllByIdForUpdate(any())).thenReturn(List.of(source, first, second));
+        when(transferRepository.insertAll(anyList())).thenReturn(List.of(10L, 11L));
+
+        TransferBatchResultDto result = cardService.transferBatch(1L,
+                List.of(leg(1L, 2L, "120"), leg(1L, 3L, "80")));
+
+        assertTrue(result.isCommitted());
+        assertEquals(TransferLegResultDto.State.APPLIED, result.getLegs().get(1).getStatus());
+        assertEquals(0, source.getBalance().compareTo(BigDecimal.ZERO));
+        assertEquals(new BigDecimal("80"), second.getBalance());
+        verify(cardRepository, times(1)).findAllByIdForUpdate(any());
+        verify(transferRepository).insertAll(argThat(transfers -> transfers.size() == 2));
+        verify(transferRepository, never()).save(any());
+        ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher, times(5)).publishEvent(events.capture());
+        assertEquals(List.of(10L, 11L), events.getAllValues().stream()
+                .filter(TransferCommittedEvent.class::isInstance)
+                .map(e -> ((TransferCommittedEvent) e).transferId())
+                .toList());
+        assertEquals(List.of(1L, 2L, 3L), events.getAllValues().stream()
+                .filter(CardChangedEvent.class::isInstance)
+                .map(e -> ((CardChangedEvent) e).cardId())
+                .toList());
+    }
+
+    @Test
+    void transferBatch_rejectsWholeBatchWhenOneLegFails() {
+        Card source = activeCard(1L, "200");
+        Card first = activeCard(2L, "0");
+        Card second = activeCard(3L, "0");
+        when(cardRepository.findAllByIdForUpdate(any())).thenReturn(List.of(source, first, second));
+
+        TransferBatchResultDto result = cardService.transferBatch(1L,
+                List.of(leg(1L, 2L, "150"), leg(1L, 3L, "80")));
+
+        assertFalse(result.isCommitted());
+        assertEquals(TransferLegResultDto.State.NOT_APPLIED, result.getLegs().get(0).getStatus());
+        assertEquals(TransferLegResultDto.State.FAILED, result.getLegs().get(1).getStatus());
+        assertEquals("Insufficient balance", result.getLegs().get(1).getMessage());
+        verify(transferRepository, never()).insertAll(any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void transferBetweenCards_toHotCard_creditsSlotUnderSharedLock() {
+        Card source = activeCard(1L, "200");
+        Card hot = activeCard(2L, "0");
+        hot.setBalanceSlots(4);
+        when(hotCards.isHot(2L)).thenReturn(true);
+        when(cardRepository.findAllByIdForUpdate(any())).thenReturn(List.of(source));
+        when(cardRepository.findAllByIdForShare(any())).thenReturn(List.of(hot));
+
+        cardService.transferBetweenCards(1L, leg(1L, 2L, "50"));
+
+        assertEquals(new BigDecimal("150"), source.getBalance());
+        verify(cardRepository).findAllByIdForUpdate(argThat(ids -> ids.size() == 1 && ids.contains(1L)));
+        verify(hotCards).checkLockMode(hot, true);
+        verify(hotCards).credit(hot, new BigDecimal("50"));
+        verify(cardRepository, never()).save(hot);
+    }
+
+    private static CardDto activeCardDto(Long id) {
+        return new CardDto(id, "**** **** **** 3456", LocalDate.now().plusYears(1), CardStatus.ACTIVE, BigDecimal.TEN);
+    }
+
+    private Card activeCard(Long id, String balance) {
+        Card card = new Card();
+        card.setOwner(user);
+        card.setBalance(new BigDecimal(balance));
+        card.setStatus(CardStatus.ACTIVE);
+        card.setNumber("123456789012345" + id);
+        card.setExpirationDate(LocalDate.now().plusYears(1));
+        ReflectionTestUtils.setField(card, "id", id);
+        return card;
+    }
+
+    private static TransferRequestDto leg(Long fromCardId, Long toCardId, String amount) {
+        TransferRequestDto dto = new TransferRequestDto();
+        dto.setFromCardId(fromCardId);
+        dto.setToCardId(toCardId);
+        dto.setAmount(new BigDecimal(amount));
+        return dto;
     }
 
     @Test
@@ -163,32 +558,22 @@ class CardServiceTest {
 
     @Test
     void getUserCards_withStatus_returnsFiltered() {
-        Card card = new Card();
-        card.setOwner(user);
-        card.setStatus(CardStatus.ACTIVE);
-        card.setNumber("1234567890123456");
-        card.setExpirationDate(LocalDate.now().plusYears(1));
-
-        when(cardRepository.findAllByOwnerAndStatus(eq(user), eq(CardStatus.ACTIVE), any()))
-                .thenReturn(new PageImpl<>(List.of(card)));
+        when(cardRepository.findCardDtosByOwnerAndStatus(eq(1L), eq(CardStatus.ACTIVE), any()))
+                .thenReturn(new PageImpl<>(List.of(activeCardDto(1L))));
 
-        var page = cardService.getUserCards("john", "ACTIVE", Pageable.unpaged());
+        var page = cardService.getUserCards(1L, "ACTIVE", Pageable.unpaged());
         assertEquals(1, page.getContent().size());
         assertEquals(CardStatus.ACTIVE, page.getContent().get(0).getStatus());
+        verifyNoInteractions(userRepository);
     }
 
     @Test
     void getUserCards_withoutStatus_returnsAll() {
-        Card card = new Card();
-        card.setOwner(user);
-        card.setStatus(CardStatus.ACTIVE);
-        card.setNumber("1234567890123456");
-        card.setExpirationDate(LocalDate.now().plusYears(1));
-
-        when(cardRepository.findAllByOwner(eq(user), any(Pageable.class)))
-                .thenReturn(new PageImpl<>(List.of(card)));
+        when(cardRepository.findCardDtosByOwner(eq(1L), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(activeCardDto(1L))));
 
-        var page = cardService.getUserCards("john", null, Pageable.unpaged());
+        var page = cardService.getUserCards(1L, null, Pageable.unpaged());
         assertEquals(1, page.getContent().size());
+        verify(cardRepository, never()).findById(any());
     }
 }
@@ -0,0 +1,99 @@
+package com.bank.api.service;
+
+import com.bank.api.entity.Card;
+import com.bank.api.repository.CardBalanceSlotRepository;
+import com.bank.api.repository.CardRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class HotCardBalanceManagerTest {
+
+    private CardRepository cardRepository;
+    private CardBalanceSlotRepository slotRepository;
+    private HotCardBalanceManager hotCards;
+    private Card card;
+
+    @BeforeEach
+    void setUp() {
+        cardRepository = mock(CardRepository.class);
+        slotRepository = mock(CardBalanceSlotRepository.class);
+        hotCards = new HotCardBalanceManager(cardRepository, slotRepository);
+
+        card = new Card();
+        ReflectionTestUtils.setField(card, "id", 7L);
+        card.setBalance(BigDecimal.ZERO);
+        card.setBalanceSlots(3);
+    }
+
+    @Test
+    void debit_drainsSlotsInOrder() {
+        when(slotRepository.lockBalances(7L)).thenReturn(List.of(
+                new BigDecimal("30"), new BigDecimal("50"), new BigDecimal("40")));
+
+        hotCards.debit(card, new BigDecimal("70"));
+
+        verify(slotRepository).debit(7L, 0, new BigDecimal("30"));
+        verify(slotRepository).debit(7L, 1, new BigDecimal("40"));
+        verify(slotRepository, never()).debit(eq(7L), eq(2), any());
+    }
+
+    @Test
+    void debit_insufficientTotal_throwsAndChangesNothing() {
+        when(slotRepository.lockBalances(7L)).thenReturn(List.of(
+                new BigDecimal("10"), new BigDecimal("10"), new BigDecimal("10")));
+
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> hotCards.debit(card, new BigDecimal("31")));
+
+        assertEquals("Insufficient balance", ex.getMessage());
+        verify(slotRepository, never()).debit(any(), anyInt(), any());
+    }
+
+    @Test
+    void credit_missingSlot_requestsRetry() {
+        when(slotRepository.credit(eq(7L), anyInt(), any())).thenReturn(0);
+
+        assertThrows(OptimisticLockingFailureException.class, () -> hotCards.credit(card, BigDecimal.TEN));
+    }
+
+    @Test
+    void reshard_movesWholeBalanceIntoFirstSlotAndBack() {
+        Card regular = new Card();
+        ReflectionTestUtils.setField(regular, "id", 8L);
+        regular.setBalance(new BigDecimal("100"));
+        when(slotRepository.lockBalances(8L)).thenReturn(List.of());
+
+        assertEquals(new BigDecimal("100"), hotCards.reshard(regular, 4));
+
+        assertTrue(regular.isHot());
+        assertEquals(BigDecimal.ZERO, regular.getBalance());
+        verify(slotRepository).replaceSlots(8L, List.of(new BigDecimal("100"),
+                BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO));
+        assertTrue(hotCards.isHot(8L));
+
+        when(slotRepository.lockBalances(8L)).thenReturn(List.of(
+                new BigDecimal("60"), new BigDecimal("25"), BigDecimal.ZERO, new BigDecimal("15")));
+
+        assertEquals(new BigDecimal("100"), hotCards.reshard(regular, 0));
+
+        assertFalse(regular.isHot());
+        assertEquals(new BigDecimal("100"), regular.getBalance());
+        verify(slotRepository).replaceSlots(8L, List.of());
+        assertFalse(hotCards.isHot(8L));
+    }
+
+    @Test
+    void checkLockMode_modeChanged_requestsRetry() {
+        assertThrows(OptimisticLockingFailureException.class, () -> hotCards.checkLockMode(card, false));
+        assertTrue(hotCards.isHot(7L));
+        assertDoesNotThrow(() -> hotCards.checkLockMode(card, true));
+    }
+}
@@ -0,0 +1,118 @@
+package com.bank.api.service;
+
+import com.bank.api.entity.IdempotencyRecord;
+import com.bank.api.exception.IdempotencyConflictException;
+import com.bank.api.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class IdempotencyServiceTest {
+
+    private IdempotencyRecordRepository repository;
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(IdempotencyRecordRepository.class);
+        when(repository.findByUsernameAndIdempotencyKey("john", "key-1")).thenReturn(Optional.empty());
+        when(repository.saveAndFlush(any(IdempotencyRecord.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        idempotencyService = new IdempotencyService(repository, TransactionOperations.withoutTransaction(),
+                24, 100, 2000);
+    }
+
+    private static IdempotencyService.StoredResponse response(String hash) {
+        return response(hash, 200);
+    }
+
+    private static IdempotencyService.StoredResponse response(String hash, int status) {
+        return new IdempotencyService.StoredResponse(hash, status, "application/json", null, "{\"status\":\"COMPLETED\"}");
+    }
+
+    /** Ждёт, пока поток не начнёт ожидать результат с таймаутом */
+    private static void awaitTimedWaiting(Thread thread) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (thread.getState() != Thread.State.TIMED_WAITING) {
+            assertTrue(System.nanoTime() < deadline, "Duplicate request did not start waiting");
+            Thread.onSpinWait();
+        }
+    }
+
+    @Test
+    void begin_firstRequestReservesKey() {
+        Optional<IdempotencyService.StoredResponse> stored = idempotencyService.begin("john", "key-1", "hash");
+
+        assertTrue(stored.isEmpty());
+        verify(repository).saveAndFlush(any(IdempotencyRecord.class));
+    }
+
+    @Test
+    void begin_afterComplete_replaysStoredResponse() {
+        idempotencyService.begin("john", "key-1", "hash");
+        idempotencyService.complete("john", "key-1", response("hash"));
+        clearInvocations(repository);
+
+        Optional<IdempotencyService.StoredResponse> stored = idempotencyService.begin("john", "key-1", "hash");
+
+        assertTrue(stored.isPresent());
+        assertEquals(200, stored.get().status());
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void begin_sameKeyDifferentRequest_throwsUnprocessable() {
+        idempotencyService.begin("john", "key-1", "hash");
+        idempotencyService.complete("john", "key-1", response("hash"));
+
+        IdempotencyConflictException ex = assertThrows(IdempotencyConflictException.class,
+                () -> idempotencyService.begin("john", "key-1", "other-hash"));
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, ex.getStatus());
+    }
+
+    @Test
+    void begin_concurrentDuplicate_waitsForFirstRequest() throws Exception {
+        idempotencyService.begin("john", "key-1", "hash");
+
+        CompletableFuture<Optional<IdempotencyService.StoredResponse>> duplicate = new CompletableFuture<>();
+        Thread waiter = new Thread(() -> duplicate.complete(idempotencyService.begin("john", "key-1", "hash")));
+        waiter.start();
+        awaitTimedWaiting(waiter);
+        assertFalse(duplicate.isDone());
+
+        idempotencyService.complete("john", "key-1", response("hash"));
+
+        Optional<IdempotencyService.StoredResponse> stored = duplicate.get(1, TimeUnit.SECONDS);
+        assertTrue(stored.isPresent());
+        verify(repository, times(1)).saveAndFlush(any(IdempotencyRecord.class));
+    }
+
+    @Test
+    void complete_serverError_releasesKeyInsteadOfStoring() {
+        idempotencyService.begin("john", "key-1", "hash");
+        idempotencyService.complete("john", "key-1", response("hash", 500));
+
+        Optional<IdempotencyService.StoredResponse> retried = idempotencyService.begin("john", "key-1", "hash");
+
+        assertTrue(retried.isEmpty());
+        verify(repository, times(2)).saveAndFlush(any(IdempotencyRecord.class));
+        verify(repository, never()).save(any(IdempotencyRecord.class));
+    }
+
+    @Test
+    void begin_blankKey_throwsBadRequest() {
+        IdempotencyConflictException ex = assertThrows(IdempotencyConflictException.class,
+                () -> idempotencyService.begin("john", " ", "hash"));
+
+        assertEquals(HttpStatus.BAD_REQUEST, ex.getStatus());
+    }
+}
@@ -0,0 +1,32 @@
+package com.bank.api.service;
+
+import com.bank.api.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginThrottleTest {
+
+    @Test
+    void acquire_limitsAttemptsPerUsername() {
+        LoginThrottle throttle = new LoginThrottle(new SimpleMeterRegistry(), 2, 1, 100, 1, 1000);
+
+        throttle.acquire("john", "10.0.0.1");
+        throttle.acquire("JOHN", "10.0.0.2");
+
+        assertThrows(TooManyRequestsException.class, () -> throttle.acquire("john", "10.0.0.3"));
+        assertDoesNotThrow(() -> throttle.acquire("bob", "10.0.0.3"));
+    }
+
+    @Test
+    void acquire_limitsAttemptsPerAddress() {
+        LoginThrottle throttle = new LoginThrottle(new SimpleMeterRegistry(), 100, 1, 2, 1, 1000);
+
+        throttle.acquire("john", "10.0.0.1");
+        throttle.acquire("bob", "10.0.0.1");
+
+        assertThrows(TooManyRequestsException.class, () -> throttle.acquire("alice", "10.0.0.1"));
+        assertDoesNotThrow(() -> throttle.acquire("alice", "10.0.0.2"));
+    }
+}
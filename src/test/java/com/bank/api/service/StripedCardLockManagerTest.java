@@ -0,0 +1,93 @@
+package com.bank.api.service;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StripedCardLockManagerTest {
+
+    @Test
+    void stripeOrder_isSortedAndDistinct() {
+        StripedCardLockManager locks = new StripedCardLockManager(8, 1000, new SimpleMeterRegistry());
+
+        int[] order = locks.stripeOrder(new Long[]{42L, 7L, 42L, null});
+
+        for (int i = 1; i < order.length; i++) {
+            assertTrue(order[i - 1] < order[i]);
+        }
+        assertTrue(order.length <= 2);
+    }
+
+    @Test
+    void runLocked_oppositeDirectionsDoNotDeadlock() throws Exception {
+        StripedCardLockManager locks = new StripedCardLockManager(4, 5000, new SimpleMeterRegistry());
+        AtomicInteger counter = new AtomicInteger();
+        int threads = 8;
+        CountDownLatch done = new CountDownLatch(threads);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+
+        for (int t = 0; t < threads; t++) {
+            boolean forward = t % 2 == 0;
+            pool.execute(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    if (forward) {
+                        locks.runLocked(counter::incrementAndGet, 1L, 2L);
+                    } else {
+                        locks.runLocked(counter::incrementAndGet, 2L, 1L);
+                    }
+                }
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        pool.shutdown();
+        assertEquals(threads * 1000, counter.get());
+    }
+
+    @Test
+    void runLocked_recordsWaitTime() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        StripedCardLockManager locks = new StripedCardLockManager(4, 1000, registry);
+
+        locks.runLocked(() -> { }, 1L, 2L);
+
+        assertEquals(1, registry.get("card.lock.wait").tag("outcome", "acquired").timer().count());
+        assertEquals(0, registry.get("card.lock.wait").tag("outcome", "timeout").timer().count());
+    }
+
+    @Test
+    void runLocked_recordsWaitTimeOnTimeout() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        StripedCardLockManager locks = new StripedCardLockManager(4, 20, registry);
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> locks.runLocked(() -> {
+            locked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, 1L));
+        holder.start();
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+        assertThrows(RuntimeException.class, () -> locks.runLocked(() -> { }, 1L));
+        release.countDown();
+        holder.join();
+
+        Timer timeouts = registry.get("card.lock.wait").tag("outcome", "timeout").timer();
+        assertEquals(1, timeouts.count());
+        assertTrue(timeouts.totalTime(TimeUnit.MILLISECONDS) >= 20);
+        assertEquals(1, registry.get("card.lock.wait").tag("outcome", "acquired").timer().count());
+    }
+}
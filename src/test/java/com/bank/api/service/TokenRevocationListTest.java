@@ -0,0 +1,61 @@
+package com.bank.api.service;
+
+import com.bank.api.entity.RevokedToken;
+import com.bank.api.repository.RevokedTokenRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class TokenRevocationListTest {
+
+    private RevokedTokenRepository repository;
+    private TokenRevocationList revocationList;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(RevokedTokenRepository.class);
+        revocationList = new TokenRevocationList(repository, new SimpleMeterRegistry(), 100, 0.01);
+    }
+
+    @Test
+    void isRevoked_notRevokedTokenSkipsDatabase() {
+        assertFalse(revocationList.isRevoked(UUID.randomUUID()));
+        assertFalse(revocationList.isRevoked(null));
+
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void revoke_tokenIsRevokedImmediately() {
+        UUID tokenId = UUID.randomUUID();
+
+        revocationList.revoke(tokenId, 1L, Instant.now().plusSeconds(60));
+        when(repository.existsById(tokenId.toString())).thenReturn(true);
+
+        verify(repository).save(any(RevokedToken.class));
+        assertTrue(revocationList.isRevoked(tokenId));
+    }
+
+    @Test
+    void rebuild_loadsRevocationsFromOtherNodesAndDropsExpired() {
+        UUID revoked = UUID.randomUUID();
+        UUID expired = UUID.randomUUID();
+        revocationList.revoke(expired, 1L, Instant.now().plusSeconds(60));
+        when(repository.findActiveTokenIds(any())).thenReturn(List.of(revoked.toString()));
+        when(repository.existsById(revoked.toString())).thenReturn(true);
+
+        revocationList.rebuild();
+
+        verify(repository).deleteExpired(any());
+        assertTrue(revocationList.isRevoked(revoked));
+        assertFalse(revocationList.isRevoked(expired));
+    }
+}
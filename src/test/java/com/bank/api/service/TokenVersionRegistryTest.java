@@ -0,0 +1,54 @@
+package com.bank.api.service;
+
+import com.bank.api.entity.UserTokenVersion;
+import com.bank.api.repository.UserTokenVersionRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TokenVersionRegistryTest {
+
+    @Test
+    void revokeTokens_invalidatesTokensIssuedBefore() {
+        UserTokenVersionRepository repository = mock(UserTokenVersionRepository.class);
+        when(repository.findVersion(1L)).thenReturn(Optional.of(1));
+        TokenVersionRegistry registry = new TokenVersionRegistry(repository);
+
+        assertTrue(registry.isCurrent(1L, 0));
+        registry.revokeTokens(1L);
+
+        verify(repository).increment(1L);
+        assertFalse(registry.isCurrent(1L, 0));
+        assertTrue(registry.isCurrent(1L, 1));
+        assertTrue(registry.isCurrent(2L, 0));
+    }
+
+    @Test
+    void refresh_picksUpVersionsFromOtherNodesAndNeverGoesBack() {
+        UserTokenVersionRepository repository = mock(UserTokenVersionRepository.class);
+        when(repository.findAll())
+                .thenReturn(List.of(new UserTokenVersion(1L, 3)))
+                .thenReturn(List.of(new UserTokenVersion(1L, 2)));
+        TokenVersionRegistry registry = new TokenVersionRegistry(repository);
+
+        registry.refresh();
+        registry.refresh();
+
+        assertEquals(3, registry.currentVersion(1L));
+    }
+
+    @Test
+    void isCurrent_acceptsTokenIssuedByNodeWithNewerVersion() {
+        UserTokenVersionRepository repository = mock(UserTokenVersionRepository.class);
+        when(repository.findAll()).thenReturn(List.of());
+        TokenVersionRegistry registry = new TokenVersionRegistry(repository);
+        registry.load();
+
+        assertEquals(0, registry.currentVersion(1L));
+        assertTrue(registry.isCurrent(1L, 1));
+    }
+}
@@ -0,0 +1,101 @@
+package com.bank.api.service;
+
+import com.bank.api.dto.TransferRequestDto;
+import com.bank.api.dto.TransferStatusDto;
+import com.bank.api.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class TransferPipelineTest {
+
+    private final CardService cardService = mock(CardService.class);
+    private TransferPipeline pipeline;
+
+    @AfterEach
+    void tearDown() {
+        if (pipeline != null) {
+            pipeline.stop();
+        }
+    }
+
+    private TransferPipeline startPipeline() {
+        pipeline = new TransferPipeline(cardService,
+                new TransferRetryExecutor(TransactionOperations.withoutTransaction(), 3, 3, 0, 0),
+                new SimpleMeterRegistry(), true, 16, 1, 8, 50, 1000, 5);
+        pipeline.start();
+        return pipeline;
+    }
+
+    private static TransferRequestDto request(String amount) {
+        TransferRequestDto dto = new TransferRequestDto();
+        dto.setFromCardId(1L);
+        dto.setToCardId(2L);
+        dto.setAmount(new BigDecimal(amount));
+        return dto;
+    }
+
+    @Test
+    void submitAndWait_reportsPerRequestOutcome() {
+        when(cardService.applyTransferBatch(anyList())).thenAnswer(invocation -> {
+            List<TransferCommand> commands = invocation.getArgument(0);
+            List<RuntimeException> outcomes = new ArrayList<>();
+            for (TransferCommand command : commands) {
+                boolean tooLarge = command.request().getAmount().compareTo(new BigDecimal("100")) > 0;
+                outcomes.add(tooLarge ? new RuntimeException("Insufficient balance") : null);
+            }
+            return outcomes;
+        });
+        startPipeline();
+
+        assertDoesNotThrow(() -> pipeline.submitAndWait(1L, request("10")));
+        RuntimeException ex = assertThrows(RuntimeException.class,
+                () -> pipeline.submitAndWait(1L, request("500")));
+        assertEquals("Insufficient balance", ex.getMessage());
+    }
+
+    @Test
+    void submit_statusIsVisibleOnlyToOwner() {
+        when(cardService.applyTransferBatch(anyList())).thenAnswer(invocation ->
+                new ArrayList<RuntimeException>(Collections.nCopies(
+                        invocation.<List<?>>getArgument(0).size(), null)));
+        startPipeline();
+
+        TransferPipeline.Ticket ticket = pipeline.submit(1L, request("10"));
+        ticket.result().join();
+
+        assertEquals(TransferStatusDto.State.COMPLETED,
+                pipeline.getStatus(1L, ticket.id()).orElseThrow().getStatus());
+        assertTrue(pipeline.getStatus(2L, ticket.id()).isEmpty());
+    }
+
+    @Test
+    void submitAndWait_timesOutWhileBatchIsPending() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        when(cardService.applyTransferBatch(anyList())).thenAnswer(invocation -> {
+            release.await();
+            return new ArrayList<RuntimeException>(Collections.nCopies(
+                    invocation.<List<?>>getArgument(0).size(), null));
+        });
+        startPipeline();
+
+        try {
+            ServiceUnavailableException ex = assertThrows(ServiceUnavailableException.class,
+                    () -> pipeline.submitAndWait(1L, request("10")));
+            assertTrue(ex.getMessage().contains("still pending"));
+        } finally {
+            release.countDown();
+        }
+    }
+}
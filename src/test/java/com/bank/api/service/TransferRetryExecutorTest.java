@@ -0,0 +1,94 @@
+package com.bank.api.service;
+
+import com.bank.api.entity.Card;
+import com.bank.api.exception.CardConflictException;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransferRetryExecutorTest {
+
+    private final TransferRetryExecutor executor =
+            new TransferRetryExecutor(TransactionOperations.withoutTransaction(), 3, 4, 0, 0);
+
+    @Test
+    void execute_retriesOnDeadlockAndSucceeds() {
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = executor.execute(() -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new CannotAcquireLockException("deadlock");
+            }
+            return "ok";
+        });
+
+        assertEquals("ok", result);
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void execute_givesUpAfterMaxAttempts() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(CannotAcquireLockException.class, () -> executor.run(() -> {
+            calls.incrementAndGet();
+            throw new CannotAcquireLockException("lock wait timeout");
+        }));
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void execute_replaysVersionConflictsUpToOptimisticLimit() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> executor.run(() -> {
+            calls.incrementAndGet();
+            throw new ObjectOptimisticLockingFailureException(Card.class, 1L);
+        }));
+        assertEquals(4, calls.get());
+    }
+
+    @Test
+    void execute_retriesConcurrentCardModification() {
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = executor.execute(() -> {
+            if (calls.incrementAndGet() < 2) {
+                throw new CardConflictException("Source card was modified concurrently");
+            }
+            return "ok";
+        });
+
+        assertEquals("ok", result);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void execute_doesNotRetryBusinessErrors() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(RuntimeException.class, () -> executor.run(() -> {
+            calls.incrementAndGet();
+            throw new RuntimeException("Insufficient balance");
+        }));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void isRetryable_detectsMariaDbErrorCodesInCauseChain() {
+        SQLException deadlock = new SQLException("Deadlock found", "40001", 1213);
+        SQLException timeout = new SQLException("Lock wait timeout exceeded", "HY000", 1205);
+        SQLException duplicate = new SQLException("Duplicate entry", "23000", 1062);
+
+        assertTrue(TransferRetryExecutor.isRetryable(new RuntimeException(deadlock)));
+        assertTrue(TransferRetryExecutor.isRetryable(new RuntimeException(timeout)));
+        assertFalse(TransferRetryExecutor.isRetryable(new DataIntegrityViolationException("dup", duplicate)));
+    }
+}
@@ -0,0 +1,100 @@
+package com.bank.api.service;
+
+import com.bank.api.entity.Role;
+import com.bank.api.entity.User;
+import com.bank.api.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class UserDetailsCacheTest {
+
+    private UserRepository userRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private UserDetailsCache cache;
+    private User john;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new UserDetailsCache(userRepository, meterRegistry, 100, 60, 10, 7);
+
+        john = new User();
+        john.setUsername("john");
+        john.setPassword("hashed");
+        john.setRole(Role.USER);
+    }
+
+    @Test
+    void get_concurrentMissesLoadOnce() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(userRepository.findByUsername("john")).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(john);
+        });
+
+        CompletableFuture<Optional<CustomUserDetails>> first = CompletableFuture.supplyAsync(() -> cache.get("john"));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Optional<CustomUserDetails>> second = CompletableFuture.supplyAsync(() -> cache.get("john"));
+        release.countDown();
+
+        assertSame(first.get(5, TimeUnit.SECONDS).orElseThrow(), second.get(5, TimeUnit.SECONDS).orElseThrow());
+        verify(userRepository, times(1)).findByUsername("john");
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "user.details").tag("result", "miss")
+                .functionCounter().count());
+    }
+
+    @Test
+    void evict_nextGetSeesBlockedUser() {
+        when(userRepository.findByUsername("john")).thenReturn(Optional.of(john));
+        assertTrue(cache.get("john").orElseThrow().isEnabled());
+
+        User blocked = new User();
+        blocked.setUsername("john");
+        blocked.setRole(Role.USER);
+        blocked.setEnabled(false);
+        when(userRepository.findByUsername("john")).thenReturn(Optional.of(blocked));
+        cache.evict("john");
+
+        assertFalse(cache.get("john").orElseThrow().isEnabled());
+        assertTrue(cache.get("bob").isEmpty());
+    }
+
+    @Test
+    void evict_removesEntryLoadedWithDifferentCase() {
+        when(userRepository.findByUsername("JOHN")).thenReturn(Optional.of(john));
+        assertTrue(cache.get("JOHN").orElseThrow().isEnabled());
+
+        User blocked = new User();
+        blocked.setUsername("john");
+        blocked.setRole(Role.USER);
+        blocked.setEnabled(false);
+        when(userRepository.findByUsername("JOHN")).thenReturn(Optional.of(blocked));
+        cache.evict("john");
+
+        assertFalse(cache.get("JOHN").orElseThrow().isEnabled());
+    }
+
+    @Test
+    void warmUp_loadsRecentlyActiveUsers() {
+        when(userRepository.findRecentlyActive(any(), any())).thenReturn(List.of(john));
+
+        cache.warmUp();
+
+        assertEquals("john", cache.get("john").orElseThrow().getUsername());
+        verify(userRepository, never()).findByUsername(any());
+    }
+}
@@ -0,0 +1,136 @@
+package com.bank.api.service;
+
+import com.bank.api.dto.UserImportErrorDto;
+import com.bank.api.dto.UserImportResultDto;
+import com.bank.api.entity.User;
+import com.bank.api.exception.TooManyRequestsException;
+import com.bank.api.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class UserImportServiceTest {
+
+    private UserRepository userRepository;
+    private PasswordEncoder passwordEncoder;
+    private UserImportService importService;
+    private final List<List<User>> inserted = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        passwordEncoder = mock(PasswordEncoder.class);
+        when(passwordEncoder.encode(any())).thenAnswer(invocation -> "hashed-" + invocation.getArgument(0));
+        when(userRepository.insertAll(anyList())).thenAnswer(invocation -> {
+            List<User> users = invocation.getArgument(0);
+            inserted.add(users);
+            return users.size();
+        });
+        importService = new UserImportService(userRepository, passwordEncoder, new ObjectMapper(), 2, 2, 1, 1000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        importService.shutdown();
+    }
+
+    @Test
+    void importUsers_csvInsertsInBatchesAndReportsBadRows() throws Exception {
+        when(userRepository.findExistingUsernames(anyList())).thenReturn(List.of("Alice"));
+        String csv = """
+                username,password,role
+                john,secret,USER
+                alice,secret,USER
+                "smith, jr","pa""ss",admin
+                bob,,USER
+                JOHN,other,USER
+                eve,secret,GUEST
+                kate,secret,USER
+                """;
+
+        UserImportResultDto result = importService.importUsers(stream(csv), UserImportService.Format.CSV);
+
+        assertEquals(7, result.getRows());
+        assertEquals(3, result.getCreated());
+        assertEquals(List.of(3L, 5L, 6L, 7L), result.getErrors().stream().map(UserImportErrorDto::getLine).toList());
+        assertEquals("Username already exists", result.getErrors().get(0).getMessage());
+        assertEquals("Duplicate username in import", result.getErrors().get(2).getMessage());
+        assertEquals(List.of(1, 2), inserted.stream().map(List::size).toList());
+        User smith = inserted.get(1).get(0);
+        assertEquals("smith, jr", smith.getUsername());
+        assertEquals("hashed-pa\"ss", smith.getPassword());
+        verify(userRepository, never()).existsByUsername(any());
+    }
+
+    @Test
+    void importUsers_ndjsonFallsBackToSingleInsertsOnConflict() throws Exception {
+        when(userRepository.findExistingUsernames(anyList())).thenReturn(List.of());
+        when(userRepository.insertAll(anyList())).thenAnswer(invocation -> {
+            List<User> users = invocation.getArgument(0);
+            if (users.stream().anyMatch(user -> user.getUsername().equals("bob"))) {
+                throw new DuplicateKeyException("duplicate");
+            }
+            return users.size();
+        });
+        String ndjson = """
+                {"username":"john","password":"secret","role":"USER"}
+                {"username":"bob","password":"secret","role":"USER"}
+                not json
+                """;
+
+        UserImportResultDto result = importService.importUsers(stream(ndjson), UserImportService.Format.NDJSON);
+
+        assertEquals(3, result.getRows());
+        assertEquals(1, result.getCreated());
+        assertEquals(2, result.getErrors().size());
+        assertEquals("Username already exists", result.getErrors().get(0).getMessage());
+        assertEquals("Malformed row", result.getErrors().get(1).getMessage());
+    }
+
+    @Test
+    void importUsers_waitsForHashingQueueInsteadOfRejectingRows() throws Exception {
+        when(userRepository.findExistingUsernames(anyList())).thenReturn(List.of());
+        when(passwordEncoder.encode(any()))
+                .thenThrow(new TooManyRequestsException("Password hashing queue is full, try again later"))
+                .thenThrow(new TooManyRequestsException("Password hashing queue is full, try again later"))
+                .thenAnswer(invocation -> "hashed-" + invocation.getArgument(0));
+
+        UserImportResultDto result = importService.importUsers(stream("john,secret,USER\n"), UserImportService.Format.CSV);
+
+        assertEquals(1, result.getCreated());
+        assertTrue(result.getErrors().isEmpty());
+        assertEquals("hashed-secret", inserted.get(0).get(0).getPassword());
+        verify(passwordEncoder, times(3)).encode("secret");
+    }
+
+    @Test
+    void importUsers_reportsRowWhenHashingQueueStaysFull() throws Exception {
+        importService.shutdown();
+        importService = new UserImportService(userRepository, passwordEncoder, new ObjectMapper(), 2, 2, 1, 0);
+        when(userRepository.findExistingUsernames(anyList())).thenReturn(List.of());
+        when(passwordEncoder.encode(any()))
+                .thenThrow(new TooManyRequestsException("Password hashing queue is full, try again later"));
+
+        UserImportResultDto result = importService.importUsers(stream("john,secret,USER\n"), UserImportService.Format.CSV);
+
+        assertEquals(0, result.getCreated());
+        assertEquals("Password hashing queue is full, try again later", result.getErrors().get(0).getMessage());
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,15 +1,21 @@
 package com.bank.api.service;
 
 import com.bank.api.dto.UserCreateDto;
+import com.bank.api.dto.UserDto;
 import com.bank.api.entity.Role;
 import com.bank.api.entity.User;
 import com.bank.api.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.argThat;
@@ -19,13 +25,37 @@ class UserServiceTest {
 
     private UserRepository userRepository;
     private PasswordEncoder passwordEncoder;
+    private EntityManager entityManager;
+    private TokenVersionRegistry tokenVersions;
+    private UserDetailsCache userDetailsCache;
     private UserService userService;
 
     @BeforeEach
     void setUp() {
         userRepository = mock(UserRepository.class);
         passwordEncoder = mock(PasswordEncoder.class);
-        userService = new UserService(userRepository, passwordEncoder);
+        entityManager = mock(EntityManager.class);
+        tokenVersions = mock(TokenVersionRegistry.class);
+        userDetailsCache = mock(UserDetailsCache.class);
+        userService = new UserService(userRepository, passwordEncoder, entityManager, tokenVersions, userDetailsCache);
+    }
+
+    @Test
+    void exportUsers_detachesEachUserAndClosesStream() {
+        User john = new User();
+        john.setUsername("john");
+        User jane = new User();
+        jane.setUsername("jane");
+        AtomicBoolean closed = new AtomicBoolean();
+        when(userRepository.streamAll()).thenReturn(Stream.of(john, jane).onClose(() -> closed.set(true)));
+
+        List<UserDto> exported = new ArrayList<>();
+        userService.exportUsers(exported::add);
+
+        assertEquals(List.of("john", "jane"), exported.stream().map(UserDto::getUsername).toList());
+        verify(entityManager).detach(john);
+        verify(entityManager).detach(jane);
+        assertTrue(closed.get());
     }
 
     @Test
@@ -84,6 +114,28 @@ class UserServiceTest {
 
         assertFalse(user.isEnabled());
         verify(userRepository).save(user);
+        verify(tokenVersions).revokeTokens(1L);
+        verify(userDetailsCache).evict("john");
+    }
+
+    @Test
+    void blockUser_evictsDetailsLoadedWithDifferentCaseLogin() {
+        User user = createFakeUser();
+        user.setEnabled(true);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(userRepository.findByUsername("JOHN")).thenAnswer(invocation -> {
+            User loaded = createFakeUser();
+            loaded.setEnabled(user.isEnabled());
+            return Optional.of(loaded);
+        });
+        UserDetailsCache realCache = new UserDetailsCache(userRepository, new SimpleMeterRegistry(), 100, 300, 0, 7);
+        CustomUserDetailsService userDetailsService = new CustomUserDetailsService(realCache);
+        UserService service = new UserService(userRepository, passwordEncoder, entityManager, tokenVersions, realCache);
+
+        assertTrue(userDetailsService.loadUserByUsername("JOHN").isEnabled());
+        service.blockUser(1L);
+
+        assertFalse(userDetailsService.loadUserByUsername("JOHN").isEnabled());
     }
 
     @Test
@@ -100,6 +152,8 @@ class UserServiceTest {
 
         assertTrue(user.isEnabled());
         verify(userRepository).save(user);
+        verifyNoInteractions(tokenVersions);
+        verify(userDetailsCache).evict("john");
     }
 
     @Test
@@ -115,11 +169,15 @@ class UserServiceTest {
 
     @Test
     void deleteUser_callsRepository() {
+        User user = createFakeUser();
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
         doNothing().when(userRepository).deleteById(1L);
 
         userService.deleteUser(1L);
 
         verify(userRepository).deleteById(1L);
+        verify(tokenVersions).revokeTokens(1L);
+        verify(userDetailsCache).evict("john");
     }
 
     private User createFakeUser() {
@@ -31,6 +31,18 @@ class CardValidatorTest {
         assertEquals(CardStatus.EXPIRED, card.getStatus());
     }
 
+    @Test
+    void validateActiveAndNotExpired_expiredCard_throwsWithoutChangingStatus() {
+        Card card = new Card();
+        card.setExpirationDate(LocalDate.now().minusDays(1));
+        card.setStatus(CardStatus.ACTIVE);
+
+        RuntimeException ex = assertThrows(RuntimeException.class, () ->
+                CardValidator.validateActiveAndNotExpired(card, "Card"));
+        assertEquals("Card expired", ex.getMessage());
+        assertEquals(CardStatus.ACTIVE, card.getStatus());
+    }
+
     @Test
     void validateActiveAndNotExpired_inactiveCard_throws() {
         Card card = new Card();
@@ -0,0 +1,56 @@
+package com.bank.api.util;
+
+import com.bank.api.entity.Role;
+import com.bank.api.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilTest {
+
+    private static final User JOHN = new User();
+
+    static {
+        ReflectionTestUtils.setField(JOHN, "id", 7L);
+        JOHN.setUsername("john");
+        JOHN.setRole(Role.USER);
+    }
+
+    @Test
+    void parseValidClaims_verifiesOnceAndCachesResult() {
+        JwtUtil jwtUtil = new JwtUtil("super-secret-key", 60_000, 100);
+        String token = jwtUtil.generateToken(JOHN, 3);
+
+        Optional<JwtClaims> first = jwtUtil.parseValidClaims(token);
+        Optional<JwtClaims> second = jwtUtil.parseValidClaims(token);
+
+        assertTrue(first.isPresent());
+        assertEquals("john", first.get().username());
+        assertEquals(7L, first.get().userId());
+        assertEquals(Role.USER, first.get().role());
+        assertEquals(3, first.get().tokenVersion());
+        assertNotNull(first.get().tokenId());
+        assertNotEquals(first.get().tokenId(), jwtUtil.parseValidClaims(jwtUtil.generateToken(JOHN, 3)).get().tokenId());
+        assertSame(first.get(), second.get());
+        UserDetails details = new org.springframework.security.core.userdetails.User("john", "x", List.of());
+        assertTrue(jwtUtil.validateToken(token, details));
+        assertEquals("john", jwtUtil.extractUsername(token));
+    }
+
+    @Test
+    void parseValidClaims_rejectsTamperedForeignAndExpiredTokens() {
+        JwtUtil jwtUtil = new JwtUtil("super-secret-key", 60_000, 100);
+        String token = jwtUtil.generateToken(JOHN, 3);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertTrue(jwtUtil.parseValidClaims(tampered).isEmpty());
+        assertTrue(jwtUtil.parseValidClaims("not-a-token").isEmpty());
+        assertTrue(jwtUtil.parseValidClaims(new JwtUtil("other-secret-key", 60_000, 100).generateToken(JOHN, 3)).isEmpty());
+        assertTrue(jwtUtil.parseValidClaims(new JwtUtil("super-secret-key", -1_000, 100).generateToken(JOHN, 3)).isEmpty());
+    }
+}
@@ -0,0 +1,38 @@
+package com.bank.api.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UuidBloomFilterTest {
+
+    @Test
+    void mightContain_noFalseNegativesAndBoundedFalsePositives() {
+        UuidBloomFilter filter = UuidBloomFilter.create(10_000, 0.01);
+        List<UUID> added = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            UUID id = UUID.randomUUID();
+            filter.put(id);
+            added.add(id);
+        }
+
+        assertTrue(added.stream().allMatch(filter::mightContain));
+        long falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain(UUID.randomUUID())) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void create_rejectsInvalidRate() {
+        assertThrows(IllegalArgumentException.class, () -> UuidBloomFilter.create(100, 0));
+        assertThrows(IllegalArgumentException.class, () -> UuidBloomFilter.create(100, 1));
+    }
+}